@@ -0,0 +1,154 @@
+package org.cis1200.chess;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * AnalysisWorker keeps searching the position on the board, deeper and
+ * deeper, and reports its score as it goes, for the evaluation bar. It runs
+ * on an {@link EngineService} of its own, so it never holds up the bot's
+ * searches on the game's service, and its engine shares the game's
+ * transposition table: a new position starts from whatever the earlier
+ * analysis and the bot have already stored.
+ *
+ * A search reports after every iteration, which early on means many times a
+ * second. Reports are coalesced instead of all being handed on: the latest
+ * score waits, replacing any before it, until the listener may be called
+ * again, at most {@code updatesPerSecond} times a second. So however fast the
+ * search runs, the event dispatch thread repaints the bar no more often.
+ *
+ * {@link #analyze} stops the previous analysis, and nothing it found reaches
+ * the listener afterwards.
+ */
+public class AnalysisWorker {
+    // the deepest the analysis goes, so an idle board does not search forever
+    public static final int MAX_DEPTH = 24;
+
+    private final EngineService service;
+    private final Executor publisher;
+    private final IntConsumer listener;
+    private final ScheduledExecutorService scheduler;
+    private final long intervalNanos;
+
+    private EngineTask task;
+    private long analysisKey;
+    // counts analyses, so reports of an earlier one can be told apart
+    private long generation;
+    private int pendingScore;
+    private boolean pending;
+    private boolean flushScheduled;
+    private long lastFlush;
+
+    /**
+     * @param engine           the engine to analyse with, not used for anything
+     *                         else
+     * @param publisher        runs the listener; {@code SwingUtilities::invokeLater}
+     *                         for the GUI
+     * @param listener         given the score in centipawns, positive when white
+     *                         stands better; a mate keeps its mate score
+     * @param updatesPerSecond the most times a second the listener is called
+     */
+    public AnalysisWorker(
+            LazySmpSearch engine, Executor publisher, IntConsumer listener, int updatesPerSecond
+    ) {
+        this.service = new EngineService(engine, Runnable::run);
+        this.publisher = publisher;
+        this.listener = listener;
+        this.scheduler = ChessClock.scheduler();
+        this.intervalNanos = 1_000_000_000L / Math.max(1, updatesPerSecond);
+        this.lastFlush = System.nanoTime() - intervalNanos;
+    }
+
+    /**
+     * Stops the analysis under way and starts analysing the position. The
+     * position is copied, so the caller may go on changing it.
+     *
+     * @return false if the position was the one already being analysed,
+     *         which goes on undisturbed
+     */
+    public synchronized boolean analyze(Position position) {
+        if (task != null && position.getKey() == analysisKey) {
+            return false;
+        }
+        stop();
+        analysisKey = position.getKey();
+        long analysis = generation;
+        int side = position.getSideToMove();
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(MAX_DEPTH);
+        task = service.search(
+                position, limits, progress -> report(analysis, side, progress), null
+        );
+        return true;
+    }
+
+    /**
+     * Stops the analysis under way, if any. Nothing more is reported until
+     * the next {@link #analyze}.
+     */
+    public synchronized void stop() {
+        generation++;
+        pending = false;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * @return true while an analysis is searching
+     */
+    public synchronized boolean isAnalyzing() {
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Stops the analysis and its worker thread for good.
+     */
+    public void shutdown() {
+        stop();
+        service.shutdown();
+    }
+
+    // Keeps the latest score, and has it handed on once the interval since
+    // the last one is up
+    private synchronized void report(long analysis, int side, SearchResult progress) {
+        if (analysis != generation) {
+            return;
+        }
+        pendingScore = side == Position.WHITE ? progress.getScore() : -progress.getScore();
+        pending = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            long wait = Math.max(0, lastFlush + intervalNanos - System.nanoTime());
+            scheduler.schedule(this::flush, wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush() {
+        int score;
+        long analysis;
+        synchronized (this) {
+            flushScheduled = false;
+            if (!pending) {
+                return;
+            }
+            pending = false;
+            lastFlush = System.nanoTime();
+            score = pendingScore;
+            analysis = generation;
+        }
+        publisher.execute(() -> {
+            // checked again where the listener runs, in case of a new position
+            if (isCurrent(analysis)) {
+                listener.accept(score);
+            }
+        });
+    }
+
+    private synchronized boolean isCurrent(long analysis) {
+        return analysis == generation;
+    }
+}
@@ -0,0 +1,154 @@
+package org.cis1200.chess;
+
+/**
+ * AttackMap keeps, for every square, how many white and black pieces attack
+ * it. It is built once from a position and then updated incrementally: after
+ * a move only the pieces standing on the squares the move touched, and the
+ * sliders whose rays ran through those squares, have their attacks
+ * recomputed. Every other piece's attacks cannot have changed.
+ */
+public class AttackMap {
+    // attack set of the piece standing on each square (empty if none)
+    private final long[] attacksFrom = new long[64];
+    // color the attacks of each square were counted for
+    private final int[] attackerColor = new int[64];
+    // squares holding a piece that attacks each square
+    private final long[] attackersTo = new long[64];
+    private final int[][] counts = new int[2][64];
+    // squares whose counts changed since the last call to takeChangedSquares
+    private long changedSquares;
+
+    public AttackMap(Position position) {
+        rebuild(position);
+    }
+
+    /**
+     * Recomputes every attack from scratch.
+     */
+    public void rebuild(Position position) {
+        for (int sq = 0; sq < 64; sq++) {
+            attacksFrom[sq] = 0L;
+            attackersTo[sq] = 0L;
+            counts[Position.WHITE][sq] = 0;
+            counts[Position.BLACK][sq] = 0;
+        }
+        long occupied = position.getOccupied();
+        while (occupied != 0) {
+            int sq = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            recompute(position, sq);
+        }
+        changedSquares = -1L;
+    }
+
+    /**
+     * Brings the map in line with a position that differs from the last one
+     * seen only on the given squares: squares a piece left, arrived on, or was
+     * captured from.
+     *
+     * @param position the position after the change
+     * @param changed  bitboard of the squares whose contents changed
+     */
+    public void update(Position position, long changed) {
+        long occupied = position.getOccupied();
+        long diagonal = position.getPieces(Position.WHITE, Position.BISHOP)
+                | position.getPieces(Position.BLACK, Position.BISHOP)
+                | position.getPieces(Position.WHITE, Position.QUEEN)
+                | position.getPieces(Position.BLACK, Position.QUEEN);
+        long straight = position.getPieces(Position.WHITE, Position.ROOK)
+                | position.getPieces(Position.BLACK, Position.ROOK)
+                | position.getPieces(Position.WHITE, Position.QUEEN)
+                | position.getPieces(Position.BLACK, Position.QUEEN);
+
+        long affected = changed;
+        long squares = changed;
+        while (squares != 0) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            // sliders that reached this square before the move, and those that
+            // reach it now
+            affected |= attackersTo[sq] & (diagonal | straight);
+            affected |= Attacks.bishopAttacks(sq, occupied) & diagonal;
+            affected |= Attacks.rookAttacks(sq, occupied) & straight;
+        }
+        while (affected != 0) {
+            int sq = Long.numberOfTrailingZeros(affected);
+            affected &= affected - 1;
+            recompute(position, sq);
+        }
+    }
+
+    // Replaces the stored attacks of the piece on sq with its current ones,
+    // adjusting the counts only where they differ
+    private void recompute(Position position, int sq) {
+        long bit = 1L << sq;
+        int code = position.getPieceAt(sq);
+        long oldAttacks = attacksFrom[sq];
+        int oldColor = attackerColor[sq];
+        long newAttacks = position.attacksFrom(sq);
+        int newColor = code == Position.NO_PIECE ? oldColor : Position.colorOf(code);
+
+        long removed = oldColor == newColor ? oldAttacks & ~newAttacks : oldAttacks;
+        long added = oldColor == newColor ? newAttacks & ~oldAttacks : newAttacks;
+        changedSquares |= removed | added;
+        while (removed != 0) {
+            int target = Long.numberOfTrailingZeros(removed);
+            removed &= removed - 1;
+            counts[oldColor][target]--;
+            attackersTo[target] &= ~bit;
+        }
+        while (added != 0) {
+            int target = Long.numberOfTrailingZeros(added);
+            added &= added - 1;
+            counts[newColor][target]++;
+            attackersTo[target] |= bit;
+        }
+        attacksFrom[sq] = newAttacks;
+        attackerColor[sq] = newColor;
+    }
+
+    /**
+     * @return the number of pieces of the given color attacking sq
+     */
+    public int getAttackCount(int color, int sq) {
+        return counts[color][sq];
+    }
+
+    /**
+     * @return the squares of every piece, of either color, attacking sq
+     */
+    public long getAttackersTo(int sq) {
+        return attackersTo[sq];
+    }
+
+    public boolean isAttacked(int sq, int byColor) {
+        return counts[byColor][sq] > 0;
+    }
+
+    /**
+     * Returns the squares whose attack counts changed since the last call and
+     * clears the record.
+     */
+    public long takeChangedSquares() {
+        long result = changedSquares;
+        changedSquares = 0L;
+        return result;
+    }
+
+    /**
+     * Checks the incremental state against a map rebuilt from scratch.
+     *
+     * @return true if both agree on every square
+     */
+    public boolean matches(Position position) {
+        AttackMap fresh = new AttackMap(position);
+        for (int sq = 0; sq < 64; sq++) {
+            if (fresh.counts[Position.WHITE][sq] != counts[Position.WHITE][sq]
+                    || fresh.counts[Position.BLACK][sq] != counts[Position.BLACK][sq]
+                    || fresh.attackersTo[sq] != attackersTo[sq]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,262 @@
+package org.cis1200.chess;
+
+/**
+ * Attacks holds precomputed attack sets for every piece type on a 64-square
+ * bitboard. Squares are numbered a1 = 0, b1 = 1, ..., h8 = 63, so bit n of a
+ * bitboard is set when square n is in the set.
+ *
+ * Knight, king and pawn attacks never depend on the rest of the board and are
+ * looked up directly. Rook and bishop attacks use magic bitboards: the
+ * blockers on a square's rays are multiplied by a per-square magic number
+ * whose top bits index a table holding the attack set for that blocker
+ * pattern. The magics below were found once by a random trial-and-error
+ * search and are written out, so loading the class only fills the tables
+ * and takes a few milliseconds instead of over a second.
+ */
+public final class Attacks {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    // Directions as (file, rank) steps: rook rays first, then bishop rays
+    private static final int[] ROOK_DF = { 1, -1, 0, 0 };
+    private static final int[] ROOK_DR = { 0, 0, 1, -1 };
+    private static final int[] BISHOP_DF = { 1, 1, -1, -1 };
+    private static final int[] BISHOP_DR = { 1, -1, 1, -1 };
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = {
+        0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+        0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+        0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+        0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+        0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+        0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+        0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+        0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+        0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+        0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+        0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+        0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+        0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+        0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+        0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+        0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] ROOK_TABLE = new long[102400];
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = {
+        0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+        0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+        0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+        0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+        0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+        0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+        0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+        0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+        0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+        0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+        0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+        0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+        0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+        0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+        0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+        0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+    private static final long[] BISHOP_TABLE = new long[5248];
+
+    // squares strictly between two aligned squares, and the full line through
+    // them, indexed by from * 64 + to
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        int[] knightDf = { 1, 2, 2, 1, -1, -2, -2, -1 };
+        int[] knightDr = { 2, 1, -1, -2, -2, -1, 1, 2 };
+        int[] kingDf = { 1, 1, 0, -1, -1, -1, 0, 1 };
+        int[] kingDr = { 0, 1, 1, 1, 0, -1, -1, -1 };
+        for (int sq = 0; sq < 64; sq++) {
+            int file = sq & 7;
+            int rank = sq >>> 3;
+            for (int i = 0; i < 8; i++) {
+                KNIGHT[sq] |= bitIfOnBoard(file + knightDf[i], rank + knightDr[i]);
+                KING[sq] |= bitIfOnBoard(file + kingDf[i], rank + kingDr[i]);
+            }
+            PAWN[Position.WHITE][sq] = bitIfOnBoard(file - 1, rank + 1)
+                    | bitIfOnBoard(file + 1, rank + 1);
+            PAWN[Position.BLACK][sq] = bitIfOnBoard(file - 1, rank - 1)
+                    | bitIfOnBoard(file + 1, rank - 1);
+        }
+        initMagics(ROOK_DF, ROOK_DR, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_OFFSET, ROOK_TABLE);
+        initMagics(
+                BISHOP_DF, BISHOP_DR, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_OFFSET,
+                BISHOP_TABLE
+        );
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long bitA = 1L << a;
+                long bitB = 1L << b;
+                if ((rookAttacks(a, 0L) & bitB) != 0) {
+                    BETWEEN[a * 64 + b] = rookAttacks(a, bitB) & rookAttacks(b, bitA);
+                    LINE[a * 64 + b] = (rookAttacks(a, 0L) & rookAttacks(b, 0L)) | bitA | bitB;
+                } else if ((bishopAttacks(a, 0L) & bitB) != 0) {
+                    BETWEEN[a * 64 + b] = bishopAttacks(a, bitB) & bishopAttacks(b, bitA);
+                    LINE[a * 64 + b] = (bishopAttacks(a, 0L) & bishopAttacks(b, 0L)) | bitA
+                            | bitB;
+                }
+            }
+        }
+    }
+
+    private static void initMagics(
+            int[] df, int[] dr, long[] masks, long[] magics, int[] shifts, int[] offsets,
+            long[] table
+    ) {
+        int offset = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            // The outermost square of each ray never blocks anything beyond it
+            long edges = ((RANK_1 | RANK_8) & ~rankMask(sq))
+                    | ((FILE_A | FILE_H) & ~fileMask(sq));
+            long mask = rayAttacks(sq, 0L, df, dr) & ~edges;
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+            int shift = 64 - bits;
+
+            // enumerate every subset of the mask (carry-rippler)
+            long subset = 0L;
+            for (int i = 0; i < size; i++) {
+                int index = (int) ((subset * magics[sq]) >>> shift);
+                table[offset + index] = rayAttacks(sq, subset, df, dr);
+                subset = (subset - mask) & mask;
+            }
+
+            masks[sq] = mask;
+            shifts[sq] = shift;
+            offsets[sq] = offset;
+            offset += size;
+        }
+    }
+
+    private static long rankMask(int sq) {
+        return RANK_1 << (8 * (sq >>> 3));
+    }
+
+    private static long fileMask(int sq) {
+        return FILE_A << (sq & 7);
+    }
+
+    private Attacks() {
+    }
+
+    private static long bitIfOnBoard(int file, int rank) {
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return 0L;
+        }
+        return 1L << (rank * 8 + file);
+    }
+
+    public static long knightAttacks(int sq) {
+        return KNIGHT[sq];
+    }
+
+    public static long kingAttacks(int sq) {
+        return KING[sq];
+    }
+
+    /**
+     * Squares a pawn of the given color standing on sq attacks diagonally.
+     */
+    public static long pawnAttacks(int color, int sq) {
+        return PAWN[color][sq];
+    }
+
+    public static long rookAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & ROOK_MASK[sq]) * ROOK_MAGIC[sq]) >>> ROOK_SHIFT[sq]);
+        return ROOK_TABLE[ROOK_OFFSET[sq] + index];
+    }
+
+    public static long bishopAttacks(int sq, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASK[sq]) * BISHOP_MAGIC[sq])
+                >>> BISHOP_SHIFT[sq]);
+        return BISHOP_TABLE[BISHOP_OFFSET[sq] + index];
+    }
+
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * Attack set of a piece of the given type and color on sq. Pawns only
+     * attack diagonally; their pushes are not attacks.
+     */
+    public static long attacks(int type, int color, int sq, long occupied) {
+        switch (type) {
+            case Position.PAWN:
+                return PAWN[color][sq];
+            case Position.KNIGHT:
+                return KNIGHT[sq];
+            case Position.BISHOP:
+                return bishopAttacks(sq, occupied);
+            case Position.ROOK:
+                return rookAttacks(sq, occupied);
+            case Position.QUEEN:
+                return queenAttacks(sq, occupied);
+            case Position.KING:
+                return KING[sq];
+            default:
+                return 0L;
+        }
+    }
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal;
+     * empty if they are not aligned.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from * 64 + to];
+    }
+
+    /**
+     * The whole rank, file or diagonal through two aligned squares; empty if
+     * they are not aligned.
+     */
+    public static long line(int a, int b) {
+        return LINE[a * 64 + b];
+    }
+
+    // Walks each ray one square at a time, stopping on (and including) the
+    // first occupied square
+    private static long rayAttacks(int sq, long occupied, int[] df, int[] dr) {
+        long result = 0L;
+        int file = sq & 7;
+        int rank = sq >>> 3;
+        for (int direction = 0; direction < df.length; direction++) {
+            int f = file + df[direction];
+            int r = rank + dr[direction];
+            while (f >= 0 && f <= 7 && r >= 0 && r <= 7) {
+                long bit = 1L << (r * 8 + f);
+                result |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                f += df[direction];
+                r += dr[direction];
+            }
+        }
+        return result;
+    }
+}
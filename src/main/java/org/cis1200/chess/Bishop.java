@@ -2,11 +2,8 @@ package org.cis1200.chess;
 
 public class Bishop extends Piece {
 
-    public Bishop(int xPos, int yPos, int wid, int hei, ChessColor chessColor) {
-        super(
-                xPos, yPos, wid, hei, chessColor, 3,
-                "files/whiteBishop.png", "files/blackBishop.png", Pieces.BISHOP
-        );
+    public Bishop(int square, ChessColor chessColor) {
+        super(square, chessColor, 3, Pieces.BISHOP);
     }
 
     @Override
@@ -14,10 +11,6 @@ public class Bishop extends Piece {
         if (destination.getPieceColour() == getColor()) {
             return false;
         }
-        int targetX = destination.getX();
-        int targetY = destination.getY();
-        int dx = Math.abs(targetX - getX());
-        int dy = Math.abs(targetY - getY());
-        return ((targetX == this.getX() & targetY == this.getY()) || (dx == dy));
+        return fileDistance(destination) == rankDistance(destination);
     }
 }
@@ -1,23 +1,20 @@
 package org.cis1200.chess;
 
-public class BoardSquare extends Coords {
+public class BoardSquare {
+    private final int square;
     private int whiteCapturable;
     private int blackCapturable;
     private ChessColor pieceColor;
 
-    public BoardSquare(int x, int y, int whiteCapturable, int blackCapturable, ChessColor col) {
-        super(x, y);
+    public BoardSquare(int square, int whiteCapturable, int blackCapturable, ChessColor col) {
+        this.square = square;
         this.pieceColor = col;
         this.whiteCapturable = whiteCapturable;
         this.blackCapturable = blackCapturable;
     }
 
-    public int getX() {
-        return super.getX();
-    }
-
-    public int getY() {
-        return super.getY();
+    public int getSquare() {
+        return square;
     }
 
     public boolean isWhiteCapturable() {
@@ -48,6 +45,11 @@ public class BoardSquare extends Coords {
         }
     }
 
+    public void setCapturable(int whiteCapturable, int blackCapturable) {
+        this.whiteCapturable = whiteCapturable;
+        this.blackCapturable = blackCapturable;
+    }
+
     public void resetCapturable() {
         this.whiteCapturable = 0;
         this.blackCapturable = 0;
@@ -1,11 +1,16 @@
 package org.cis1200.chess;
 
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 
 /**
  * The ChessArena class represents a graphical chess board where players
@@ -24,18 +29,65 @@ public class ChessArena extends JPanel {
     private final JLabel status;
     private final JLabel mode;
     private final JLabel error;
+    private final JLabel clockLabel;
     private final EvalBarPanel eval;
     private ChessLogicMachine chess;
     private PlayerMode playerMode = PlayerMode.PVP;
+    // shared by every search of the game, sized with -Dchess.hashMb=<megabytes>
+    private final TranspositionTable table = new TranspositionTable(
+            Integer.getInteger("chess.hashMb", TranspositionTable.DEFAULT_SIZE_MB)
+    );
+    // searches on -Dchess.threads=<count> threads, one by default
+    private final LazySmpSearch engine = new LazySmpSearch(
+            table, Integer.getInteger("chess.threads", 1)
+    );
+    // -Dchess.clock=<minutes>[+<increment> or d<delay>], or none for no clock
+    private final TimeControl timeControl = TimeControl.parse(
+            System.getProperty("chess.clock", DEFAULT_TIME_CONTROL)
+    );
+    private ChessClock clock;
+    private final Timer clockTimer;
+    // runs the bot's searches off the event dispatch thread and hands their
+    // progress and results back to it
+    private final EngineService engineService = new EngineService(
+            engine, SwingUtilities::invokeLater
+    );
+    // with -Dchess.ponder=true, the default, the bot thinks on the player's time
+    private final Ponderer ponderer = new Ponderer(engineService);
+    private final boolean ponder = Boolean.parseBoolean(
+            System.getProperty("chess.ponder", "true")
+    );
+    // with -Dchess.analysis=true, the default, a search in the background
+    // keeps refining the evaluation bar while the player is to move
+    private final boolean analyze = Boolean.parseBoolean(
+            System.getProperty("chess.analysis", "true")
+    );
+    private final AnalysisWorker analysis;
+    // with -Dchess.book=<file>, the bot plays the book's moves while it has any
+    private final OpeningBook book = OpeningBook.getDefault();
+    private final Random random = new Random();
+    private final MoveList bookMoves = new MoveList();
 
     // game constants
     public static final int BOARD_WIDTH = 640;
     public static final int BOARD_HEIGHT = 640;
+    // milliseconds the bot may think about a move without a clock
+    private static final long BOT_MOVE_TIME = 500;
+    private static final String DEFAULT_TIME_CONTROL = "10+5";
+    // how often the clock display is refreshed, in milliseconds
+    private static final long CLOCK_REFRESH = 100;
+    // the most times a second the analysis redraws the evaluation bar
+    private static final int ANALYSIS_UPDATES = 10;
 
     private King whiteKing;
     private King blackKing;
     private Board board;
 
+    private static final BufferedImage[] SPRITES = new BufferedImage[12];
+    private int animatedSquare = Position.NO_SQUARE;
+    private int animatedX;
+    private int animatedY;
+
     /**
      * Constructs a new ChessArena game instance with specified initial status,
      * mode, error labels,
@@ -46,10 +98,12 @@ public class ChessArena extends JPanel {
      * @param statusInit   the JLabel to display the current status of the game
      * @param modeInit     the JLabel to display the current mode of the game
      * @param errorInit    the JLabel to display any errors or messages during the game
+     * @param clockInit    the JLabel to display the time left to both sides
      * @param evalBarPanel the panel that visually represents the evaluation of the game state
      */
     public ChessArena(
-            JLabel statusInit, JLabel modeInit, JLabel errorInit, EvalBarPanel evalBarPanel
+            JLabel statusInit, JLabel modeInit, JLabel errorInit, JLabel clockInit,
+            EvalBarPanel evalBarPanel
     ) {
         // creates border around the court area, JComponent method
         setBorder(BorderFactory.createLineBorder(Color.BLACK));
@@ -63,7 +117,15 @@ public class ChessArena extends JPanel {
         status = statusInit; // initializes the status JLabel
         mode = modeInit; // initializes the mode JLabel
         error = errorInit; // initializes the error JLabel
+        clockLabel = clockInit;
         eval = evalBarPanel;
+        // its own engine, but the bot's table
+        analysis = new AnalysisWorker(
+                new LazySmpSearch(table, 1), SwingUtilities::invokeLater, eval::updateEvalBar,
+                ANALYSIS_UPDATES
+        );
+        // refreshes the display only while a clock is running
+        clockTimer = new Timer((int) CLOCK_REFRESH, e -> updateClock());
 
         /*
          * Listens for mouseClicks. Updates the model, then updates the game
@@ -73,23 +135,176 @@ public class ChessArena extends JPanel {
             @Override
             public void mouseClicked(MouseEvent e) {
                 Point p = e.getPoint();
-                int x = rawToBoardCoord(p.x);
-                int y = rawToBoardCoord(p.y);
-                // updates the model given the coordinates of the mouseclick
-                chess.handleClick(x, y);
-                // System.out.println("Click at " + x + ", " + y);
+                // the board is the bot's while it thinks
+                if (isBotToMove()) {
+                    return;
+                }
+                checkFlag();
+                int mover = chess.getPosition().getSideToMove();
+                // updates the model given the square that was clicked
+                chess.handleClick(squareAt(p.x, p.y));
+                pressClock(mover);
 
                 updateStatus(); // updates the status JLabel
                 updateError();
                 updateMode();
                 updateEvalView();
                 repaint(); // repaints the game board
+                if (isBotToMove()) {
+                    playBotMove();
+                }
+                stopIfEnded();
             }
         });
     }
 
+    // In BOT mode the computer plays black
+    private boolean isBotToMove() {
+        return playerMode == PlayerMode.BOT && !chess.isGameEnded()
+                && chess.getMode() == Mode.BLACK_SELECT;
+    }
+
+    /**
+     * Has the bot search the current position within its time budget, in the
+     * background, and play the move found when the search is over. A ponder
+     * hit may have the move ready at once.
+     */
+    private void playBotMove() {
+        ChessLogicMachine game = chess;
+        long key = chess.getPosition().getKey();
+        int bookMove = book == null ? Move.NONE
+                : book.choose(chess.getPosition(), random, bookMoves);
+        if (bookMove != Move.NONE) {
+            // played as a search's move would be, once the current event is over
+            ponderer.cancel();
+            SearchResult result = new SearchResult(bookMove, 0, 0, 0, 0, new int[] { bookMove });
+            SwingUtilities.invokeLater(() -> botMoveFound(game, key, result));
+            return;
+        }
+        SearchLimits limits;
+        if (clock == null) {
+            limits = new SearchLimits();
+            limits.setMoveTime(BOT_MOVE_TIME);
+        } else {
+            limits = TimeAllocator.allocate(
+                    clock.getRemaining(Position.BLACK), timeControl.getIncrementMillis(),
+                    timeControl.getDelayMillis(), chess.getPosition().getFullmoveNumber()
+            );
+        }
+        ponderer.reply(
+                chess.getPosition(), limits, this::showProgress,
+                result -> botMoveFound(game, key, result)
+        );
+    }
+
+    // Shows what the bot is thinking in place of the error message
+    private void showProgress(SearchResult progress) {
+        if (!isBotToMove()) {
+            return;
+        }
+        String score = progress.isMate()
+                ? "mate in " + (Search.MATE - Math.abs(progress.getScore()) + 1) / 2
+                : String.format("%+.2f", progress.getScore() / 100.0);
+        int[] pv = progress.getPv();
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < Math.min(pv.length, 4); i++) {
+            line.append(i > 0 ? " " : "").append(Move.toUci(pv[i]));
+        }
+        error.setText(String.format(
+                "Thinking: depth %d, %s, %s, %d kN/s", progress.getDepth(), score, line,
+                progress.getNps() / 1000
+        ));
+    }
+
+    // Plays the bot's move, unless the game has been reset or moved on since
+    // the search started, then ponders the player's most likely reply
+    private void botMoveFound(ChessLogicMachine game, long key, SearchResult result) {
+        if (game != chess || chess.getPosition().getKey() != key || !isBotToMove()) {
+            return;
+        }
+        checkFlag();
+        chess.playMove(result.getBestMove());
+        pressClock(Position.BLACK);
+        updateStatus();
+        updateError();
+        updateMode();
+        updateEvalView();
+        repaint();
+        if (ponder && !chess.isGameEnded()) {
+            ponderer.ponder(
+                    chess.getPosition(),
+                    Ponderer.predictReply(result, chess.getPosition(), table)
+            );
+        }
+    }
+
+    // Hands the turn over on the clock once the mover has moved, and stops it
+    // once the game is over
+    private void pressClock(int mover) {
+        if (clock == null) {
+            return;
+        }
+        if (chess.isGameEnded()) {
+            clock.stop();
+        } else if (chess.getPosition().getSideToMove() != mover) {
+            clock.press(mover);
+        }
+        updateClock();
+    }
+
+    // Ends the game on time if a flag has fallen; the clock only reports it,
+    // the game is ended here on the event dispatch thread
+    private void checkFlag() {
+        if (clock == null || clock.getFlagged() == ChessClock.NONE || chess.isGameEnded()) {
+            return;
+        }
+        chess.flagFall(
+                clock.getFlagged() == Position.WHITE ? ChessColor.WHITE : ChessColor.BLACK
+        );
+        ponderer.cancel();
+        analysis.stop();
+        updateClock();
+        updateError();
+        repaint();
+    }
+
+    // Shows the time left, and keeps refreshing it for as long as a clock runs
+    private void updateClock() {
+        if (clock == null) {
+            clockLabel.setText("No clock");
+        } else {
+            clockLabel.setText(
+                    "White " + formatTime(clock.getRemaining(Position.WHITE)) + "  Black "
+                            + formatTime(clock.getRemaining(Position.BLACK))
+            );
+        }
+        if (clock != null && clock.getRunning() != ChessClock.NONE) {
+            if (!clockTimer.isRunning()) {
+                clockTimer.start();
+            }
+        } else {
+            clockTimer.stop();
+        }
+    }
+
+    // Minutes and seconds, with tenths under ten seconds
+    static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        if (seconds < 10) {
+            return String.format("0:%02d.%d", seconds, millis % 1000 / 100);
+        }
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    // Shows the static evaluation of a new position at once, and has the
+    // analysis refine it unless the game is over or the bot is thinking
     private void updateEvalView() {
-        eval.updateEvalBar(chess.getWhiteEval(), chess.getBlackEval());
+        if (!analyze || chess.isGameEnded() || isBotToMove()) {
+            analysis.stop();
+            eval.updateEvalBar(chess.getEvaluation());
+        } else if (analysis.analyze(chess.getPosition())) {
+            eval.updateEvalBar(chess.getEvaluation());
+        }
     }
 
     public void updateStatus() {
@@ -105,53 +320,52 @@ public class ChessArena extends JPanel {
     }
 
     public void reset() {
-        int size = getPieceSize();
         board = new Board(BOARD_WIDTH, BOARD_HEIGHT);
         squareMatrix = new BoardSquare[8][8];
         pieceMatrix = new Piece[8][8];
 
-        pieceMatrix[0][0] = new Rook(0, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][1] = new Knight(size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][2] = new Bishop(2 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][3] = new Queen(3 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][4] = blackKing = new King(4 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][5] = new Bishop(5 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][6] = new Knight(6 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][7] = new Rook(7 * size, 0, size, size, ChessColor.BLACK);
-
-        pieceMatrix[7][0] = new Rook(0, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][1] = new Knight(size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][2] = new Bishop(2 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][3] = new Queen(3 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][4] = whiteKing = new King(4 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][5] = new Bishop(5 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][6] = new Knight(6 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][7] = new Rook(7 * size, 7 * size, size, size, ChessColor.WHITE);
+        pieceMatrix[0][0] = new Rook(Position.squareOf(0, 0), ChessColor.BLACK);
+        pieceMatrix[0][1] = new Knight(Position.squareOf(0, 1), ChessColor.BLACK);
+        pieceMatrix[0][2] = new Bishop(Position.squareOf(0, 2), ChessColor.BLACK);
+        pieceMatrix[0][3] = new Queen(Position.squareOf(0, 3), ChessColor.BLACK);
+        pieceMatrix[0][4] = blackKing = new King(Position.squareOf(0, 4), ChessColor.BLACK);
+        pieceMatrix[0][5] = new Bishop(Position.squareOf(0, 5), ChessColor.BLACK);
+        pieceMatrix[0][6] = new Knight(Position.squareOf(0, 6), ChessColor.BLACK);
+        pieceMatrix[0][7] = new Rook(Position.squareOf(0, 7), ChessColor.BLACK);
+
+        pieceMatrix[7][0] = new Rook(Position.squareOf(7, 0), ChessColor.WHITE);
+        pieceMatrix[7][1] = new Knight(Position.squareOf(7, 1), ChessColor.WHITE);
+        pieceMatrix[7][2] = new Bishop(Position.squareOf(7, 2), ChessColor.WHITE);
+        pieceMatrix[7][3] = new Queen(Position.squareOf(7, 3), ChessColor.WHITE);
+        pieceMatrix[7][4] = whiteKing = new King(Position.squareOf(7, 4), ChessColor.WHITE);
+        pieceMatrix[7][5] = new Bishop(Position.squareOf(7, 5), ChessColor.WHITE);
+        pieceMatrix[7][6] = new Knight(Position.squareOf(7, 6), ChessColor.WHITE);
+        pieceMatrix[7][7] = new Rook(Position.squareOf(7, 7), ChessColor.WHITE);
 
         for (int j = 0; j < 8; j++) {
-            pieceMatrix[1][j] = new Pawn(j * size, size, size, size, ChessColor.BLACK);
+            pieceMatrix[1][j] = new Pawn(Position.squareOf(1, j), ChessColor.BLACK);
         }
         for (int j = 0; j < 8; j++) {
-            pieceMatrix[6][j] = new Pawn(j * size, 6 * size, size, size, ChessColor.WHITE);
+            pieceMatrix[6][j] = new Pawn(Position.squareOf(6, j), ChessColor.WHITE);
         }
         for (int r = 2; r < 6; r++) {
             for (int c = 0; c < 8; c++) {
-                pieceMatrix[r][c] = new Dummy(c * size, r * size);
+                pieceMatrix[r][c] = new Dummy(Position.squareOf(r, c));
             }
         }
 
-        squareMatrix[0][0] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][1] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][2] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][3] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][4] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][5] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][6] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][0] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][1] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][2] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][3] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][4] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
+        squareMatrix[0][0] = new BoardSquare(Position.squareOf(0, 0), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][1] = new BoardSquare(Position.squareOf(0, 1), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][2] = new BoardSquare(Position.squareOf(0, 2), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][3] = new BoardSquare(Position.squareOf(0, 3), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][4] = new BoardSquare(Position.squareOf(0, 4), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][5] = new BoardSquare(Position.squareOf(0, 5), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][6] = new BoardSquare(Position.squareOf(0, 6), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][0] = new BoardSquare(Position.squareOf(7, 0), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][1] = new BoardSquare(Position.squareOf(7, 1), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][2] = new BoardSquare(Position.squareOf(7, 2), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][3] = new BoardSquare(Position.squareOf(7, 3), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][4] = new BoardSquare(Position.squareOf(7, 4), 0, 0, ChessColor.BLACK);
 
         // Initialize all squares based on initial piece positions
         for (int r = 0; r < 8; r++) {
@@ -173,13 +387,24 @@ public class ChessArena extends JPanel {
 
                 // Assign the square in the matrix with capturable counts set to 0
                 squareMatrix[r][c] = new BoardSquare(
-                        c * size, r * size,
-                        0, 0, pieceColor
+                        Position.squareOf(r, c), 0, 0, pieceColor
                 );
             }
         }
         chess = new ChessLogicMachine(squareMatrix, pieceMatrix, whiteKing, blackKing, this);
         chess.runCaptureSequence();
+        ponderer.cancel();
+        engineService.cancelAll();
+        analysis.stop();
+        table.clear();
+        if (clock != null) {
+            clock.stop();
+        }
+        if (timeControl != null) {
+            clock = new ChessClock(timeControl);
+            clock.setFlagListener(color -> SwingUtilities.invokeLater(this::checkFlag));
+        }
+        updateClock();
         updateStatus();
         updateError();
         updateMode();
@@ -196,18 +421,29 @@ public class ChessArena extends JPanel {
         reset();
     };
 
-    public void animatePieceMovement(Piece piece, BoardSquare start, BoardSquare end) {
+    /**
+     * Slides the piece that has just moved from one square to another. The
+     * position already holds the piece on its destination square; only where
+     * it is drawn changes while the animation runs.
+     *
+     * @param from the square the piece left
+     * @param to   the square the piece now stands on
+     */
+    public void animatePieceMovement(int from, int to) {
         // Get start and end coordinates in pixels
-        int startX = start.getX();
-        int startY = start.getY();
-        int endX = end.getX();
-        int endY = end.getY();
+        int startX = Position.colOf(from) * getPieceSize();
+        int startY = Position.rowOf(from) * getPieceSize();
+        int endX = Position.colOf(to) * getPieceSize();
+        int endY = Position.rowOf(to) * getPieceSize();
 
         int animationDuration = 75;
         int refreshRate = 25;
 
         int totalSteps = animationDuration / refreshRate;
 
+        animatedSquare = to;
+        animatedX = startX;
+        animatedY = startY;
         Timer timer = new Timer(refreshRate, new ActionListener() {
             int step = 0;
 
@@ -215,9 +451,8 @@ public class ChessArena extends JPanel {
             public void actionPerformed(ActionEvent e) {
                 step++;
                 double progress = (double) step / totalSteps;
-                int currentX = (int) (startX + progress * (endX - startX));
-                int currentY = (int) (startY + progress * (endY - startY));
-                piece.setPosition(new Coords(currentX, currentY));
+                animatedX = (int) (startX + progress * (endX - startX));
+                animatedY = (int) (startY + progress * (endY - startY));
                 repaint();
 
                 // Stop animation once completed
@@ -225,7 +460,7 @@ public class ChessArena extends JPanel {
                     ((Timer) e.getSource()).stop();
 
                     // Finalize move
-                    piece.setPosition(end);
+                    animatedSquare = Position.NO_SQUARE;
                     repaint();
                 }
             }
@@ -237,10 +472,20 @@ public class ChessArena extends JPanel {
     public void paintComponent(Graphics g) {
         // super.paintComponent(g);
         board.draw(g);
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                pieceMatrix[r][c].draw(g);
+        Position position = chess.getPosition();
+        int size = getPieceSize();
+        for (int sq = 0; sq < 64; sq++) {
+            int code = position.getPieceAt(sq);
+            if (code == Position.NO_PIECE) {
+                continue;
             }
+            int x = Position.colOf(sq) * size;
+            int y = Position.rowOf(sq) * size;
+            if (sq == animatedSquare) {
+                x = animatedX;
+                y = animatedY;
+            }
+            g.drawImage(getSprite(code), x, y, size, size, null);
         }
         if (chess.getPieceSelected() != null) {
             Graphics2D g2d = (Graphics2D) g;
@@ -254,9 +499,9 @@ public class ChessArena extends JPanel {
             g2d.setColor(Color.orange);
 
             // Draw the filled square
+            int selected = chess.getPieceSelected().getSquare();
             g2d.fillRect(
-                    chess.getPieceSelected().getX(), chess.getPieceSelected().getY(),
-                    ChessArena.getPieceSize(), ChessArena.getPieceSize()
+                    Position.colOf(selected) * size, Position.rowOf(selected) * size, size, size
             );
         }
         if (chess.getStatus() == Status.CHECKMATE || chess.getStatus() == Status.CHECK) {
@@ -271,26 +516,49 @@ public class ChessArena extends JPanel {
             g2d.setColor(Color.RED);
 
             // Draw the filled square
+            int kingSquare = position
+                    .getKingSquare(chess.getKingInCheck().getColor().ordinal());
             g2d.fillRect(
-                    chess.getKingInCheck().getX(), chess.getKingInCheck().getY(),
-                    ChessArena.getPieceSize(), ChessArena.getPieceSize()
+                    Position.colOf(kingSquare) * size, Position.rowOf(kingSquare) * size,
+                    size, size
             );
         }
     }
 
+    // Piece images indexed by Position piece code, loaded once
+    private static BufferedImage getSprite(int code) {
+        if (SPRITES[code] == null) {
+            String color = Position.colorOf(code) == Position.WHITE ? "white" : "black";
+            String name = Pieces.values()[Position.typeOf(code)].name();
+            String file = "files/" + color + name.charAt(0) + name.substring(1).toLowerCase()
+                    + ".png";
+            try {
+                SPRITES[code] = ImageIO.read(new File(file));
+            } catch (IOException e) {
+                System.out.println("Internal Error:" + e.getMessage());
+            }
+        }
+        return SPRITES[code];
+    }
+
     @Override
     public Dimension getPreferredSize() {
         return new Dimension(BOARD_WIDTH, BOARD_HEIGHT);
     }
 
-    public static int rawToBoardCoord(int number) {
-        int divisor = getPieceSize();
-        int result = (number / divisor) * divisor;
-        if (result >= BOARD_HEIGHT) {
-            return (7 * getPieceSize());
-        } else {
-            return result;
-        }
+    /**
+     * Maps a pixel on the board to the square under it. The game logic only
+     * ever sees square indices; this and the drawing code are the only places
+     * that know how big a square is on screen.
+     *
+     * @param x pixel column, 0 at the left edge
+     * @param y pixel row, 0 at the top edge (the eighth rank)
+     * @return the square index, a1 = 0 to h8 = 63
+     */
+    public static int squareAt(int x, int y) {
+        int col = Math.min(Math.max(x / getPieceSize(), 0), 7);
+        int row = Math.min(Math.max(y / getPieceSize(), 0), 7);
+        return Position.squareOf(row, col);
     }
 
     public static int getPieceSize() {
@@ -298,10 +566,35 @@ public class ChessArena extends JPanel {
     }
 
     public void resignGame() {
-        chess.resignGame();
+        ponderer.cancel();
+        if (playerMode == PlayerMode.BOT) {
+            // only the player can resign, even while the bot is thinking
+            chess.resignGame(ChessColor.WHITE);
+        } else {
+            chess.resignGame();
+        }
+        stopIfEnded();
     }
 
     public void drawGame() {
+        // stop thinking while the offer is open
+        ponderer.cancel();
         chess.drawGame();
+        stopIfEnded();
+        if (isBotToMove()) {
+            playBotMove();
+        }
+    }
+
+    // Once the game is over, neither clock nor engine has anything to do
+    private void stopIfEnded() {
+        if (chess.isGameEnded()) {
+            if (clock != null) {
+                clock.stop();
+                updateClock();
+            }
+            ponderer.cancel();
+            analysis.stop();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package org.cis1200.chess;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * ChessClock keeps the time left to each side under a {@link TimeControl}.
+ * Only the side to move has its clock running; {@link #press} stops it once
+ * that side has moved, adds the increment and starts the other clock. The
+ * first press starts the clock of the side that did not press, so White's
+ * first move is free.
+ *
+ * A clock does not tick by itself. The time left is worked out from when the
+ * running clock was started, and a single task is scheduled for the moment it
+ * would run out. If the side has not moved by then its flag falls: the clock
+ * stops and the flag listener is told which side lost on time. Every clock
+ * schedules on the one {@link #scheduler()} thread unless given another, so
+ * there are no threads per game.
+ *
+ * All methods are safe to call from any thread. The flag listener runs on
+ * the scheduler thread.
+ */
+public class ChessClock {
+    public static final int NONE = -1;
+
+    private static ScheduledExecutorService shared;
+
+    private final TimeControl control;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoTime;
+    // millis left to each side when its clock was last stopped
+    private final long[] remaining = new long[2];
+    private int running = NONE;
+    private long startedAt;
+    private boolean stopped;
+    private int flagged = NONE;
+    private ScheduledFuture<?> flagCheck;
+    private IntConsumer flagListener = color -> {
+    };
+
+    public ChessClock(TimeControl control) {
+        this(control, scheduler(), System::nanoTime);
+    }
+
+    /**
+     * @param scheduler where flag-fall checks are run
+     * @param nanoTime  the time source, in nanoseconds like
+     *                  {@link System#nanoTime}
+     */
+    public ChessClock(
+            TimeControl control, ScheduledExecutorService scheduler, LongSupplier nanoTime
+    ) {
+        this.control = control;
+        this.scheduler = scheduler;
+        this.nanoTime = nanoTime;
+        remaining[Position.WHITE] = control.getBaseMillis();
+        remaining[Position.BLACK] = control.getBaseMillis();
+    }
+
+    /**
+     * @return the scheduler shared by all clocks, on a single daemon thread
+     */
+    public static synchronized ScheduledExecutorService scheduler() {
+        if (shared == null) {
+            shared = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "chess-clock");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return shared;
+    }
+
+    /**
+     * Sets what is told the color of a side whose flag falls.
+     */
+    public void setFlagListener(IntConsumer flagListener) {
+        this.flagListener = flagListener;
+    }
+
+    /**
+     * Ends the turn of the side that has just moved and starts the other
+     * side's clock. Does nothing once a flag has fallen or the clock has been
+     * stopped for good.
+     *
+     * @param mover the color that has just moved
+     */
+    public void press(int mover) {
+        synchronized (this) {
+            if (flagged != NONE || stopped) {
+                return;
+            }
+            if (running == mover) {
+                long left = timeLeft(mover);
+                if (left > 0) {
+                    remaining[mover] = left + control.getIncrementMillis();
+                } else {
+                    // the move came too late for the scheduled check to see
+                    flagFell(mover);
+                }
+            }
+            if (flagged == NONE) {
+                start(mover ^ 1);
+                return;
+            }
+        }
+        flagListener.accept(mover);
+    }
+
+    /**
+     * Stops both clocks for good, for a game that has ended.
+     */
+    public synchronized void stop() {
+        if (running != NONE) {
+            remaining[running] = timeLeft(running);
+            running = NONE;
+        }
+        stopped = true;
+        cancelCheck();
+    }
+
+    /**
+     * @return the millis left to the side, counting down while its clock runs
+     */
+    public synchronized long getRemaining(int color) {
+        return Math.max(0, running == color ? timeLeft(color) : remaining[color]);
+    }
+
+    /**
+     * @return the color whose clock is running, or {@link #NONE}
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return the color that has lost on time, or {@link #NONE}
+     */
+    public synchronized int getFlagged() {
+        return flagged;
+    }
+
+    public TimeControl getControl() {
+        return control;
+    }
+
+    /**
+     * Drops the flag of the running side if its time is up, and otherwise
+     * checks again when it will be. The scheduler calls this on its own; it is
+     * public so a clock on a simulated time source can be driven by hand.
+     */
+    public void checkFlag() {
+        int loser;
+        synchronized (this) {
+            if (running == NONE) {
+                return;
+            }
+            long left = timeLeft(running);
+            if (left > 0) {
+                // what is left of the delay comes first
+                long elapsed = (nanoTime.getAsLong() - startedAt) / 1_000_000;
+                schedule(left + Math.max(0, control.getDelayMillis() - elapsed));
+                return;
+            }
+            loser = running;
+            flagFell(loser);
+        }
+        flagListener.accept(loser);
+    }
+
+    // The running clock's time left; the delay is free, then time is charged
+    private long timeLeft(int color) {
+        long elapsed = (nanoTime.getAsLong() - startedAt) / 1_000_000;
+        return remaining[color] - Math.max(0, elapsed - control.getDelayMillis());
+    }
+
+    private void start(int color) {
+        running = color;
+        startedAt = nanoTime.getAsLong();
+        schedule(remaining[color] + control.getDelayMillis());
+    }
+
+    private void flagFell(int color) {
+        remaining[color] = 0;
+        flagged = color;
+        running = NONE;
+        cancelCheck();
+    }
+
+    private void schedule(long millis) {
+        cancelCheck();
+        flagCheck = scheduler.schedule(this::checkFlag, millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelCheck() {
+        if (flagCheck != null) {
+            flagCheck.cancel(false);
+            flagCheck = null;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package org.cis1200.chess;
 
 import javax.sound.sampled.*;
-import java.util.ArrayList;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -19,6 +18,9 @@ import java.util.concurrent.atomic.AtomicReference;
  * interactions.
  */
 public class ChessLogicMachine {
+    // centipawns either way within which the game is called balanced
+    private static final int BALANCED = 25;
+
     private BoardSquare[][] squareMatrixRef;
     private Piece[][] pieceMatrixRef;
     private Mode mode = Mode.WHITE_SELECT;
@@ -31,12 +33,17 @@ public class ChessLogicMachine {
     private Status gameStatus = Status.NORMAL;
     private int whiteEval;
     private int blackEval;
+    // centipawns, positive when white stands better
+    private int evaluation;
     private ChessColor winner;
     private String errorMessage = "No error";
     private Clip clip = null;
     private SoundEffects sounds;
     private boolean kingInCheckSoundPlayed = false; // check Whether works well
     private ChessArena caller;
+    private Position position;
+    private AttackMap attackMap;
+    private final MoveList moveList = new MoveList();
 
     /**
      * Constructs a ChessLogicMachine object with the specified board configuration
@@ -57,384 +64,102 @@ public class ChessLogicMachine {
         blackKingRef = theBlackKing;
         squareMatrixRef = squareMatrix;
         pieceMatrixRef = pieceMatrix;
+        if (pieceMatrix != null) {
+            position = Position.fromMatrix(pieceMatrix, Position.WHITE);
+            attackMap = new AttackMap(position);
+        }
         sounds = new SoundEffects();
         this.caller = caller;
     }
 
-    public void handleClick(int x, int y) {
+    /**
+     * Handles a click on a board square. The first click selects a piece of
+     * the side to move; the next one moves it there if the move is legal, or
+     * selects another piece of the same side instead.
+     *
+     * @param sq the square clicked, a1 = 0 to h8 = 63
+     */
+    public void handleClick(int sq) {
         if (getKingInCheck() != null) {
             checkMateCheck(getKingInCheck());
             setGameEnded();
-            getCaller().updateStatus();
+            if (caller != null) {
+                caller.updateStatus();
+            }
         }
         if (!gameEnded) {
-            int xCoord = x / ChessArena.getPieceSize();
-            int yCoord = y / ChessArena.getPieceSize();
-            Piece piece = pieceMatrixRef[yCoord][xCoord];
-            BoardSquare square = squareMatrixRef[yCoord][xCoord];
-            if (mode == Mode.WHITE_PLACE) {
-                if (piece.getPieceType() == Pieces.KING && piece.getColor() != ChessColor.WHITE) {
-                    setErrorMessage("Cannot capture King!");
-                    mode = Mode.WHITE_SELECT;
-                    pieceSelected = null;
-                } else if (piece.getColor() == ChessColor.WHITE) {
-                    mode = Mode.WHITE_PLACE;
-                    pieceSelected = piece;
-                } else if ((pieceSelected != null)
-                        && (pieceSelected.validMove(squareMatrixRef[yCoord][xCoord]))) {
-                    switch (pieceSelected.getPieceType()) {
-                        case PAWN:
-                            if (isPawnPathClear((Pawn) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.WHITE, Mode.WHITE_SELECT, true,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.BLACK);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.WHITE_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case ROOK:
-                            if (isRookPathClear((Rook) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.WHITE, Mode.WHITE_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.BLACK);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.WHITE_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case KNIGHT, KING:
-                            if (pieceSelected.getPieceType() == Pieces.KING) {
-                                try {
-                                    int targetX = square.getX();
-                                    int targetY = square.getY();
-                                    int dx = Math.abs(targetX - pieceSelected.getX());
-                                    int dy = Math.abs(targetY - pieceSelected.getY());
-
-                                    if (dx == 2 * ChessArena.getPieceSize() && dy == 0) {
-                                        King king = (King) pieceSelected;
-
-                                        if (!king.isFirstMoveMade()) {
-                                            Rook rook = null;
-                                            BoardSquare rookDest = null;
-
-                                            // Check if castling to the right
-                                            if (targetX > pieceSelected.getX()) {
-                                                rook = (Rook) pieceMatrixRef[targetY
-                                                        / ChessArena.getPieceSize()][7];
-                                                rookDest = squareMatrixRef[targetY / ChessArena
-                                                        .getPieceSize()][(pieceSelected.getX()
-                                                                + ChessArena.getPieceSize())
-                                                                / ChessArena.getPieceSize()];
-                                            } else if (targetX < pieceSelected.getX()) {
-                                                rook = (Rook) pieceMatrixRef[targetY
-                                                        / ChessArena.getPieceSize()][0];
-                                                rookDest = squareMatrixRef[targetY / ChessArena
-                                                        .getPieceSize()][(pieceSelected.getX()
-                                                                - ChessArena.getPieceSize())
-                                                                / ChessArena.getPieceSize()];
-                                            }
-
-                                            if (rook != null && !rook.isFirstMoveMade() &&
-                                                    rook.getColor() == king.getColor() &&
-                                                    rookDest.getPieceColour() == ChessColor.EMPTY &&
-                                                    square.getPieceColour() == ChessColor.EMPTY &&
-                                                    !square.isBlackCapturable()
-                                                    && !rookDest.isBlackCapturable()) {
-
-                                                // Move the king
-                                                tryMove(
-                                                        piece, square, king.getColor(),
-                                                        Mode.WHITE_SELECT, false, false
-                                                );
-
-                                                // Move the rook
-                                                int oldRookX = rook.getX();
-                                                int oldRookY = rook.getY();
-                                                rook.setPosition(rookDest);
-                                                pieceMatrixRef[rookDest.getY()
-                                                        / ChessArena.getPieceSize()][rookDest.getX()
-                                                                / ChessArena.getPieceSize()] = rook;
-                                                squareMatrixRef[rookDest.getY()
-                                                        / ChessArena.getPieceSize()][rookDest.getX()
-                                                                / ChessArena.getPieceSize()]
-                                                                        .setPieceColor(
-                                                                                rook.getColor()
-                                                        );
-
-                                                pieceMatrixRef[oldRookY / ChessArena
-                                                        .getPieceSize()][oldRookX / ChessArena
-                                                                .getPieceSize()] = new Dummy(
-                                                                        oldRookX, oldRookY
-                                                                );
-                                                squareMatrixRef[oldRookY
-                                                        / ChessArena.getPieceSize()][oldRookX
-                                                                / ChessArena.getPieceSize()]
-                                                                        .setPieceColor(
-                                                                                ChessColor.EMPTY
-                                                        );
-                                                playSound(Effect.CASTLE);
-                                            } else {
-                                                setErrorMessage("Invalid move!");
-                                                mode = Mode.WHITE_SELECT;
-                                                pieceSelected = null;
-                                            }
-                                        } else {
-                                            setErrorMessage("Invalid move!");
-                                            mode = Mode.WHITE_SELECT;
-                                            pieceSelected = null;
-                                        }
-                                    } else {
-                                        tryMove(
-                                                piece, square, ChessColor.WHITE, Mode.WHITE_SELECT,
-                                                false, false
-                                        );
-                                    }
-                                } catch (Exception e) {
-                                    setErrorMessage("Invalid move!");
-                                    mode = Mode.WHITE_SELECT;
-                                    pieceSelected = null;
-                                }
-                            } else {
-                                tryMove(
-                                        piece, square, ChessColor.WHITE, Mode.WHITE_SELECT, false,
-                                        false
-                                );
-                            }
-                            stalemateCheck(ChessColor.BLACK);
-                            break;
-                        case BISHOP:
-                            if (isBishopPathClear((Bishop) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.WHITE, Mode.WHITE_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.BLACK);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.WHITE_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case QUEEN:
-                            if (isQueenPathClear((Queen) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.WHITE, Mode.WHITE_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.BLACK);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.WHITE_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        default:
-                            break;
-                    }
-                } else {
-                    setErrorMessage("Invalid move!");
-                    mode = Mode.WHITE_SELECT;
-                    pieceSelected = null;
-                }
-            } else if (mode == Mode.WHITE_SELECT) {
-                if (piece.getColor() == ChessColor.WHITE) {
-                    pieceSelected = piece;
-                    changeMode();
-                }
-            } else if (mode == Mode.BLACK_PLACE) {
-                if (piece.getPieceType() == Pieces.KING && piece.getColor() != ChessColor.BLACK) {
+            Piece piece = pieceAt(sq);
+            BoardSquare square = squareAt(sq);
+            boolean whiteToMove = mode == Mode.WHITE_SELECT || mode == Mode.WHITE_PLACE;
+            ChessColor side = whiteToMove ? ChessColor.WHITE : ChessColor.BLACK;
+            ChessColor other = whiteToMove ? ChessColor.BLACK : ChessColor.WHITE;
+            Mode selectMode = whiteToMove ? Mode.WHITE_SELECT : Mode.BLACK_SELECT;
+            if (mode == Mode.WHITE_PLACE || mode == Mode.BLACK_PLACE) {
+                if (piece.getPieceType() == Pieces.KING && piece.getColor() != side) {
                     setErrorMessage("Cannot capture King!");
-                    mode = Mode.BLACK_SELECT;
+                    mode = selectMode;
                     pieceSelected = null;
-                } else if (piece.getColor() == ChessColor.BLACK) {
-                    mode = Mode.BLACK_PLACE;
+                } else if (piece.getColor() == side) {
                     pieceSelected = piece;
                 } else if ((pieceSelected != null)
-                        && (pieceSelected.validMove(squareMatrixRef[yCoord][xCoord]))) {
-                    switch (pieceSelected.getPieceType()) {
-                        case PAWN:
-                            if (isPawnPathClear((Pawn) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.BLACK, Mode.BLACK_SELECT, true,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.WHITE);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.BLACK_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case ROOK:
-                            if (isRookPathClear((Rook) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.BLACK, Mode.BLACK_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.WHITE);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.BLACK_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case KNIGHT, KING:
-                            if (pieceSelected.getPieceType() == Pieces.KING) {
-                                try {
-                                    int targetX = square.getX();
-                                    int targetY = square.getY();
-                                    int dx = Math.abs(targetX - pieceSelected.getX());
-                                    int dy = Math.abs(targetY - pieceSelected.getY());
-
-                                    if (dx == 2 * ChessArena.getPieceSize() && dy == 0) {
-                                        King king = (King) pieceSelected;
-
-                                        if (!king.isFirstMoveMade()) {
-                                            Rook rook = null;
-                                            BoardSquare rookDest = null;
-
-                                            // Check if castling to the right
-                                            if (targetX > pieceSelected.getX()) {
-                                                rook = (Rook) pieceMatrixRef[targetY
-                                                        / ChessArena.getPieceSize()][7];
-                                                rookDest = squareMatrixRef[targetY / ChessArena
-                                                        .getPieceSize()][(pieceSelected.getX()
-                                                                + ChessArena.getPieceSize())
-                                                                / ChessArena.getPieceSize()];
-                                            } else if (targetX < pieceSelected.getX()) {
-                                                rook = (Rook) pieceMatrixRef[targetY
-                                                        / ChessArena.getPieceSize()][0];
-                                                rookDest = squareMatrixRef[targetY / ChessArena
-                                                        .getPieceSize()][(pieceSelected.getX()
-                                                                - ChessArena.getPieceSize())
-                                                                / ChessArena.getPieceSize()];
-                                            }
-
-                                            if (rook != null && !rook.isFirstMoveMade() &&
-                                                    rook.getColor() == king.getColor() &&
-                                                    rookDest.getPieceColour() == ChessColor.EMPTY &&
-                                                    square.getPieceColour() == ChessColor.EMPTY &&
-                                                    !square.isWhiteCapturable()
-                                                    && !rookDest.isWhiteCapturable()) {
-
-                                                // Move the king
-                                                tryMove(
-                                                        piece, square, king.getColor(),
-                                                        Mode.BLACK_SELECT, false, false
-                                                );
-
-                                                // Move the rook
-                                                int oldRookX = rook.getX();
-                                                int oldRookY = rook.getY();
-                                                rook.setPosition(rookDest);
-                                                pieceMatrixRef[rookDest.getY()
-                                                        / ChessArena.getPieceSize()][rookDest.getX()
-                                                                / ChessArena.getPieceSize()] = rook;
-                                                squareMatrixRef[rookDest.getY()
-                                                        / ChessArena.getPieceSize()][rookDest.getX()
-                                                                / ChessArena.getPieceSize()]
-                                                                        .setPieceColor(
-                                                                                rook.getColor()
-                                                        );
-
-                                                pieceMatrixRef[oldRookY / ChessArena
-                                                        .getPieceSize()][oldRookX / ChessArena
-                                                                .getPieceSize()] = new Dummy(
-                                                                        oldRookX, oldRookY
-                                                                );
-                                                squareMatrixRef[oldRookY
-                                                        / ChessArena.getPieceSize()][oldRookX
-                                                                / ChessArena.getPieceSize()]
-                                                                        .setPieceColor(
-                                                                                ChessColor.EMPTY
-                                                        );
-                                                playSound(Effect.CASTLE);
-                                            } else {
-                                                setErrorMessage("Invalid move!");
-                                                mode = Mode.BLACK_SELECT;
-                                                pieceSelected = null;
-                                            }
-                                        } else {
-                                            setErrorMessage("Invalid move!");
-                                            mode = Mode.BLACK_SELECT;
-                                            pieceSelected = null;
-                                        }
-                                    } else {
-                                        tryMove(
-                                                piece, square, ChessColor.BLACK, Mode.BLACK_SELECT,
-                                                false, false
-                                        );
-                                    }
-                                } catch (Exception e) {
-                                    setErrorMessage("Invalid move!");
-                                    mode = Mode.BLACK_SELECT;
-                                    pieceSelected = null;
-                                }
-                            } else {
-                                tryMove(
-                                        piece, square, ChessColor.BLACK, Mode.BLACK_SELECT, false,
-                                        false
-                                );
-                            }
-                            stalemateCheck(ChessColor.WHITE);
-                            break;
-                        case BISHOP:
-                            if (isBishopPathClear((Bishop) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.BLACK, Mode.BLACK_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.WHITE);
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.BLACK_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        case QUEEN:
-                            if (isQueenPathClear((Queen) pieceSelected, square)) {
-                                tryMove(
-                                        piece, square, ChessColor.BLACK, Mode.BLACK_SELECT, false,
-                                        false
-                                );
-                                stalemateCheck(ChessColor.WHITE);
-                                runCaptureSequence();
-                            } else {
-                                setErrorMessage("Invalid move!");
-                                mode = Mode.BLACK_SELECT;
-                                pieceSelected = null;
-                            }
-                            break;
-                        default:
-                            // System.out.println("Dummy");
-                            break;
+                        && (pieceSelected.validMove(square)
+                                || isEnPassantCapture(pieceSelected, square))) {
+                    boolean castle = pieceSelected.getPieceType() == Pieces.KING
+                            && Math.abs(sq - pieceSelected.getSquare()) == 2;
+                    boolean isPawn = pieceSelected.getPieceType() == Pieces.PAWN;
+                    if (!tryMove(piece, square, side, selectMode, isPawn, false) && castle) {
+                        playSound(Effect.CASTLE);
                     }
+                    stalemateCheck(other);
                 } else {
                     setErrorMessage("Invalid move!");
-                    mode = Mode.BLACK_SELECT;
+                    mode = selectMode;
                     pieceSelected = null;
                 }
-            } else if (mode == Mode.BLACK_SELECT) {
-                if (piece.getColor() == ChessColor.BLACK) {
-                    pieceSelected = piece;
-                    changeMode();
-                }
+            } else if (piece.getColor() == side) {
+                pieceSelected = piece;
+                changeMode();
             }
-            runCaptureSequence();
-            updateKingsInCheck();
-            setGameEnded();
+            updateGameState();
         } else {
             setErrorMessage("Game already ended!");
         }
     }
 
+    /**
+     * Plays a move chosen by the engine for the side to move, through the
+     * same path as a move made by clicking but without any dialog; a
+     * promotion takes the piece packed in the move.
+     *
+     * @param move a legal move of the current position
+     */
+    public void playMove(int move) {
+        if (gameEnded || move == Move.NONE) {
+            return;
+        }
+        ChessColor other = position.getSideToMove() == Position.WHITE ? ChessColor.BLACK
+                : ChessColor.WHITE;
+        pieceSelected = null;
+        applyMove(move);
+        mode = other == ChessColor.WHITE ? Mode.WHITE_SELECT : Mode.BLACK_SELECT;
+        if (Move.isCastle(move)) {
+            playSound(Effect.CASTLE);
+        }
+        stalemateCheck(other);
+        updateGameState();
+    }
+
+    // Brings check, mate and draw detection up to date after a move
+    private void updateGameState() {
+        refreshAttacks();
+        updateKingsInCheck();
+        if (kingInCheck != null) {
+            checkMateCheck(kingInCheck);
+        }
+        drawCheck();
+        setGameEnded();
+    }
+
     public int getBlackEval() {
         return blackEval;
     }
@@ -443,117 +168,175 @@ public class ChessLogicMachine {
         return whiteEval;
     }
 
+    /**
+     * @return the static evaluation of the position in centipawns, positive
+     *         when white stands better
+     */
+    public int getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * Tries to move the selected piece to the given square. The move is
+     * looked up among the legal moves of the position; if it is not there it
+     * is rejected, otherwise it is made and the GUI matrices are updated to
+     * match. A move the piece could make were its king not left in check is
+     * reported as such; any other illegal move as invalid.
+     *
+     * @param paramPiece the piece currently on the destination square
+     * @param square     the destination square
+     * @param paramColor the color of the moving side
+     * @param paramMode  the mode to fall back to if the move is rejected
+     * @param isPawn     whether the moving piece is a pawn (may promote)
+     * @param testMode   if true, only report legality without moving anything
+     * @return true if the move would leave the mover's king in check
+     */
     public boolean tryMove(
             Piece paramPiece, BoardSquare square, ChessColor paramColor, Mode paramMode,
             boolean isPawn, boolean testMode
     ) {
-        Piece oldPieceSelected = pieceSelected;
-        int oldPieceX = oldPieceSelected.getX();
-        int oldPieceY = oldPieceSelected.getY();
-        Piece displacedPiece = paramPiece;
-        int destinationX = displacedPiece.getX();
-        int destinationY = displacedPiece.getY();
-        BoardSquare oldSquare = squareMatrixRef[oldPieceY / ChessArena.getPieceSize()][oldPieceX
-                / ChessArena.getPieceSize()];
-        movePiece(pieceSelected, square, pieceSelected.getX(), pieceSelected.getY());
-        if (isPawn) {
-            String promo = promotionSequence(square, (Pawn) pieceSelected);
-            if (promo != null) {
-                switch (promo) {
-                    case "Rook":
-                        pieceMatrixRef[destinationY / ChessArena.getPieceSize()][destinationX
-                                / ChessArena.getPieceSize()] = new Rook(
-                                        destinationX, destinationY, ChessArena.getPieceSize(),
-                                        ChessArena.getPieceSize(), pieceSelected.getColor()
-                                );
-                        break;
-                    case "Bishop":
-                        pieceMatrixRef[destinationY / ChessArena.getPieceSize()][destinationX
-                                / ChessArena.getPieceSize()] = new Bishop(
-                                        destinationX, destinationY, ChessArena.getPieceSize(),
-                                        ChessArena.getPieceSize(), pieceSelected.getColor()
-                                );
-                        break;
-                    case "Queen":
-                        pieceMatrixRef[destinationY / ChessArena.getPieceSize()][destinationX
-                                / ChessArena.getPieceSize()] = new Queen(
-                                        destinationX, destinationY, ChessArena.getPieceSize(),
-                                        ChessArena.getPieceSize(), pieceSelected.getColor()
-                                );
-                        break;
-                    case "Knight":
-                        pieceMatrixRef[destinationY / ChessArena.getPieceSize()][destinationX
-                                / ChessArena.getPieceSize()] = new Knight(
-                                        destinationX, destinationY, ChessArena.getPieceSize(),
-                                        ChessArena.getPieceSize(), pieceSelected.getColor()
-                                );
-                        break;
-                    default:
-                        break;
-                }
-            }
+        int from = pieceSelected.getSquare();
+        int to = square.getSquare();
+        if (testMode) {
+            return !isLegal(from, to);
+        }
+        if (!isLegal(from, to)) {
+            setErrorMessage(isPseudoLegal(from, to) ? "King in check!" : "Invalid move!");
+            mode = paramMode;
+            pieceSelected = null;
+            return true;
+        }
+
+        int promotion = Position.EMPTY;
+        if (isPawn && Position.rankOf(to) == (paramColor == ChessColor.WHITE ? 7 : 0)) {
+            promotion = promotionType(promotionSequence(square, (Pawn) pieceSelected));
         }
         pieceSelected = null;
-        runCaptureSequence();
-        King formerKingInCheck = getKingInCheck();
-        updateKingsInCheck();
-        boolean isKingInCheck = (getKingInCheck() != null
-                && getKingInCheck().getColor() == paramColor);
+        changeMode();
+        applyMove(position.createMove(from, to, promotion));
+        return false;
+    }
+
+    // Makes a legal move on the position and mirrors it on the attack map
+    // and the GUI matrices
+    private void applyMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long before = position.getOccupied();
+        position.makeMove(move);
+        attackMap.update(position, (before ^ position.getOccupied()) | (1L << from) | (1L << to));
+        updateMatrices(from, to, Move.promotion(move), Move.isEnPassant(move));
+        if (caller != null) {
+            caller.animatePieceMovement(from, to);
+        }
+        sounds.playEffect(Effect.MOVE);
+    }
+
+    // True if the side to move has a legal move between the two squares. The
+    // promotion piece never matters for this question.
+    private boolean isLegal(int from, int to) {
+        MoveGenerator.generateLegal(position, moveList);
+        for (int i = 0; i < moveList.size(); i++) {
+            int move = moveList.get(i);
+            if (Move.from(move) == from && Move.to(move) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        if (testMode || isKingInCheck) {
-            movePiece(
-                    oldPieceSelected, oldSquare, oldPieceSelected.getX(),
-                    oldPieceSelected.getY()
-            );
-            pieceMatrixRef[destinationY / ChessArena.getPieceSize()][destinationX
-                    / ChessArena.getPieceSize()] = displacedPiece;
-            squareMatrixRef[destinationY / ChessArena.getPieceSize()][destinationY
-                    / ChessArena.getPieceSize()].setPieceColor(
-                            displacedPiece.getColor()
-            );
-            runCaptureSequence();
-            if (testMode) {
-                kingInCheck = formerKingInCheck;
+    // True if the piece on from could move to to, ignoring its own king
+    private boolean isPseudoLegal(int from, int to) {
+        MoveGenerator.generatePseudoLegal(position, moveList);
+        for (int i = 0; i < moveList.size(); i++) {
+            int move = moveList.get(i);
+            if (Move.from(move) == from && Move.to(move) == to) {
+                return true;
             }
-            setErrorMessage("King in check!");
-            mode = paramMode;
-            pieceSelected = null;
-            return isKingInCheck;
-        } else {
-            oldPieceSelected.setPosition(oldSquare);
-            if (caller != null) {
-                caller.animatePieceMovement(oldPieceSelected, oldSquare, square); // TODO: Figure
-                                                                                  // out smoother
-                                                                                  // animation
+        }
+        return false;
+    }
+
+    // Pawn.validMove only knows about captures onto occupied squares
+    private boolean isEnPassantCapture(Piece piece, BoardSquare square) {
+        return piece.getPieceType() == Pieces.PAWN
+                && square.getSquare() == position.getEnPassantSquare()
+                && (Attacks.pawnAttacks(piece.getColor().ordinal(), piece.getSquare())
+                        & (1L << square.getSquare())) != 0;
+    }
 
+    // Mirrors a move that has just been played on the position onto the GUI
+    // matrices, reusing the existing Piece objects
+    private void updateMatrices(int from, int to, int promotion, boolean enPassant) {
+        Piece moving = pieceAt(from);
+        relocate(from, to);
+        if (promotion != Position.EMPTY) {
+            setPiece(to, createPiece(promotion, moving.getColor(), to));
+        }
+        if (enPassant) {
+            setPiece(to + (moving.getColor() == ChessColor.WHITE ? -8 : 8), null);
+        }
+        if (moving.getPieceType() == Pieces.KING && Math.abs(to - from) == 2) {
+            if (to > from) {
+                relocate(from + 3, from + 1);
+            } else {
+                relocate(from - 4, from - 1);
             }
-            sounds.playEffect(Effect.MOVE);
-            return false;
         }
     }
 
-    // Helper method to convert (x, y) to chess coordinates like a1, b2, etc.
-    private String convertToChessCoordinates(int x, int y) {
-        int boardX = x / ChessArena.getPieceSize();
-        int boardY = y / ChessArena.getPieceSize();
+    private void relocate(int from, int to) {
+        Piece piece = pieceAt(from);
+        piece.setSquare(to);
+        setPiece(to, piece);
+        setPiece(from, null);
+    }
+
+    // Places a piece on a square of the GUI matrices; null leaves it empty
+    private void setPiece(int sq, Piece piece) {
+        if (piece == null) {
+            piece = new Dummy(sq);
+        }
+        pieceMatrixRef[Position.rowOf(sq)][Position.colOf(sq)] = piece;
+        squareAt(sq).setPieceColor(piece.getColor());
+    }
 
-        char file = (char) ('a' + boardX); // Convert 0-7 to a-h
-        int rank = 8 - boardY; // Convert to chess-style rank (1-8)
+    private Piece pieceAt(int sq) {
+        return pieceMatrixRef[Position.rowOf(sq)][Position.colOf(sq)];
+    }
 
-        return "" + file + rank;
+    private BoardSquare squareAt(int sq) {
+        return squareMatrixRef[Position.rowOf(sq)][Position.colOf(sq)];
+    }
+
+    private Piece createPiece(int type, ChessColor color, int sq) {
+        return switch (type) {
+            case Position.ROOK -> new Rook(sq, color);
+            case Position.BISHOP -> new Bishop(sq, color);
+            case Position.KNIGHT -> new Knight(sq, color);
+            default -> new Queen(sq, color);
+        };
+    }
+
+    private static int promotionType(String promo) {
+        if (promo == null) {
+            return Position.QUEEN;
+        }
+        return switch (promo) {
+            case "Rook" -> Position.ROOK;
+            case "Bishop" -> Position.BISHOP;
+            case "Knight" -> Position.KNIGHT;
+            default -> Position.QUEEN;
+        };
     }
 
     public String getTurn() {
         return switch (mode) {
             case WHITE_SELECT -> "White's turn!";
             case BLACK_SELECT -> "Black's turn!";
-            case BLACK_PLACE, WHITE_PLACE -> {
-                String position = convertToChessCoordinates(
-                        pieceSelected.getX(), pieceSelected.getY()
-                );
-                yield pieceSelected.getColor() + " " +
-                        pieceSelected.getPieceType() + " at " + position + ".";
-            }
+            case BLACK_PLACE, WHITE_PLACE -> pieceSelected.getColor() + " "
+                    + pieceSelected.getPieceType() + " at "
+                    + Position.squareName(pieceSelected.getSquare()) + ".";
         };
     }
 
@@ -589,6 +372,10 @@ public class ChessLogicMachine {
                 return "Draw by stalemate";
             case DRAW:
                 return "Draw agreed!";
+            case REPETITION:
+                return "Draw by threefold repetition";
+            case FIFTY_MOVES:
+                return "Draw by the fifty-move rule";
             case CHECK:
                 if (kingInCheck.getColor() == ChessColor.BLACK) {
                     return "Black king in check!";
@@ -608,12 +395,10 @@ public class ChessLogicMachine {
                     return "Black resigns, White wins!";
                 }
             case NORMAL:
-                if (getBlackEval() > getWhiteEval()) {
-                    return "Black is ahead by " + (getBlackEval() - getWhiteEval())
-                            + " points of material.";
-                } else if (getWhiteEval() > getBlackEval()) {
-                    return "White is ahead by " + (getWhiteEval() - getBlackEval())
-                            + " points of material.";
+                if (evaluation <= -BALANCED) {
+                    return "Black is ahead by " + formatPawns(-evaluation) + " pawns.";
+                } else if (evaluation >= BALANCED) {
+                    return "White is ahead by " + formatPawns(evaluation) + " pawns.";
                 } else {
                     return "Game is fairly balanced!";
                 }
@@ -622,9 +407,15 @@ public class ChessLogicMachine {
         }
     }
 
+    // Centipawns as pawns with one decimal, such as 1.5
+    private static String formatPawns(int centipawns) {
+        return String.format("%d.%d", centipawns / 100, centipawns % 100 / 10);
+    }
+
     public void setGameEnded() {
         if (gameStatus == Status.CHECKMATE || gameStatus == Status.STALEMATE
-                || gameStatus == Status.DRAW
+                || gameStatus == Status.DRAW || gameStatus == Status.REPETITION
+                || gameStatus == Status.FIFTY_MOVES
                 || gameStatus == Status.FLAG || gameStatus == Status.RESIGN) {
             gameEnded = true;
         }
@@ -645,8 +436,8 @@ public class ChessLogicMachine {
     private String promotionSequence(BoardSquare destination, Pawn pawn) {
         // Ensure promotion is valid (reaching the last row for black or first row for
         // white)
-        int promotionRow = (pawn.getColor() == ChessColor.WHITE) ? 0 : 7;
-        if (destination.getY() / ChessArena.getPieceSize() != promotionRow) {
+        int promotionRank = (pawn.getColor() == ChessColor.WHITE) ? 7 : 0;
+        if (Position.rankOf(destination.getSquare()) != promotionRank) {
             return null; // Not a valid promotion scenario
         }
 
@@ -697,162 +488,65 @@ public class ChessLogicMachine {
     }
 
     private void checkMateCheck(King king) {
-        Piece oldPiece = pieceSelected;
-        Mode oldMode = mode;
-        pieceSelected = king;
-        mode = (king.getColor() == ChessColor.WHITE) ? Mode.WHITE_PLACE : Mode.BLACK_PLACE;
-        boolean moveAvailable = false;
-        runCaptureSequence();
-        if (gameStatus == Status.CHECK) {
-            ArrayList<Coords> kingMoves = allKingMoves(king, false);
-            for (Coords move : kingMoves) {
-                int xCoord = move.getX() / ChessArena.getPieceSize();
-                int yCoord = move.getY() / ChessArena.getPieceSize();
-                Piece piece = pieceMatrixRef[yCoord][xCoord];
-                BoardSquare square = squareMatrixRef[yCoord][xCoord];
-                if (!tryMove(
-                        piece, square, king.getColor(),
-                        (king.getColor() == ChessColor.WHITE) ? Mode.WHITE_SELECT
-                                : Mode.BLACK_SELECT,
-                        false, true
-                )) {
-                    checkMate = false;
-                    moveAvailable = true;
-                }
-                if (moveAvailable) {
-                    break;
-                }
-                pieceSelected = king;
-                mode = (king.getColor() == ChessColor.WHITE) ? Mode.WHITE_PLACE : Mode.BLACK_PLACE;
-            }
-
-            pieceSelected = oldPiece;
-            mode = oldMode;
-            if (moveAvailable) {
-                return;
-            }
-
-            outer: for (int r = 0; r < 8; r++) {
-                for (int c = 0; c < 8; c++) {
-                    Piece piece = pieceMatrixRef[r][c];
-                    if (piece.getColor() == king.getColor()
-                            && piece.getPieceType() != Pieces.KING) {
-                        ArrayList<Coords> moves = getAllValidMoves(piece);
-                        for (Coords move : moves) {
-                            int xCoord = move.getX() / ChessArena.getPieceSize();
-                            int yCoord = move.getY() / ChessArena.getPieceSize();
-                            BoardSquare thisSquare = squareMatrixRef[yCoord][xCoord];
-                            Piece pieceDestination = pieceMatrixRef[yCoord][xCoord];
-                            pieceSelected = piece;
-                            mode = (piece.getColor() == ChessColor.WHITE) ? Mode.WHITE_PLACE
-                                    : Mode.BLACK_PLACE;
-                            if (!tryMove(
-                                    pieceDestination, thisSquare, piece.getColor(),
-                                    (piece.getColor() == ChessColor.WHITE) ? Mode.WHITE_SELECT
-                                            : Mode.BLACK_SELECT,
-                                    piece.getPieceType() == Pieces.PAWN, true
-                            )) {
-                                checkMate = false;
-                                gameEnded = false;
-                                moveAvailable = true;
-                            }
-                            if (moveAvailable) {
-                                break outer;
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (!moveAvailable) {
-                // No legal moves, it's checkmate
-                checkMate = true;
-                gameEnded = true;
-                winner = (king.getColor() == ChessColor.WHITE) ? ChessColor.BLACK
-                        : ChessColor.WHITE;
-                gameStatus = Status.CHECKMATE;
-                setErrorMessage("Checkmate!");
-                playSound(Effect.CHECKMATE);
-            } else {
-                pieceSelected = oldPiece;
-                mode = oldMode;
-            }
+        if (gameStatus == Status.CHECK
+                && position.getSideToMove() == king.getColor().ordinal()
+                && !hasLegalMove()) {
+            // No legal moves, it's checkmate
+            checkMate = true;
+            gameEnded = true;
+            winner = (king.getColor() == ChessColor.WHITE) ? ChessColor.BLACK
+                    : ChessColor.WHITE;
+            gameStatus = Status.CHECKMATE;
+            setErrorMessage("Checkmate!");
+            playSound(Effect.CHECKMATE);
         } else {
             checkMate = false;
             gameEnded = false;
         }
     }
 
-    private ArrayList<Coords> getAllValidMoves(Piece piece) {
-        return switch (piece.getPieceType()) {
-            case PAWN -> allPawnMoves((Pawn) piece, false);
-            case KING -> allKingMoves((King) piece, false);
-            case QUEEN -> allQueenMoves((Queen) piece, false);
-            case ROOK -> allRookMoves((Rook) piece, false);
-            case KNIGHT -> allKnightMoves((Knight) piece, false);
-            case BISHOP -> allBishopMoves((Bishop) piece, false);
-            default -> new ArrayList<>();
-        };
+    public void stalemateCheck(ChessColor color) {
+        if (gameStatus == Status.NORMAL && position.getSideToMove() == color.ordinal()
+                && !position.isInCheck(color.ordinal()) && !hasLegalMove()) {
+            gameStatus = Status.STALEMATE;
+            gameEnded = true;
+        }
     }
 
-    public void stalemateCheck(ChessColor color) {
-        if (gameStatus == Status.NORMAL) {
-            int numValidMoves = 0;
-            for (int r = 0; r < 8; r++) {
-                for (int c = 0; c < 8; c++) {
-                    Piece piece = pieceMatrixRef[r][c];
-                    if (piece.getColor() == color) {
-                        switch (piece.getPieceType()) {
-                            case PAWN:
-                                numValidMoves += allPawnMoves((Pawn) piece, false).size();
-                                break;
-                            case ROOK:
-                                numValidMoves += allRookMoves((Rook) piece, false).size();
-                                break;
-                            case KNIGHT:
-                                numValidMoves += allKnightMoves((Knight) piece, false).size();
-                                break;
-                            case BISHOP:
-                                numValidMoves += allBishopMoves((Bishop) piece, false).size();
-                                break;
-                            case QUEEN:
-                                numValidMoves += allQueenMoves((Queen) piece, false).size();
-                                break;
-                            case KING:
-                                numValidMoves += allKingMoves((King) piece, false).size();
-                                break;
-                            default:
-                                // System.out.println("Dummy");
-                                break;
-                        }
-                    }
-                }
-            }
-            if (numValidMoves <= 0) {
-                gameStatus = Status.STALEMATE;
-                gameEnded = true;
-            }
-        } else {
+    // Ends the game in a draw once a position has occurred three times or
+    // fifty moves have passed without a capture or pawn move. Checkmate on
+    // the fiftieth move takes precedence.
+    private void drawCheck() {
+        if (gameStatus != Status.NORMAL && gameStatus != Status.CHECK) {
             return;
         }
+        if (position.isThreefoldRepetition()) {
+            gameStatus = Status.REPETITION;
+            gameEnded = true;
+        } else if (position.isFiftyMoveDraw()) {
+            gameStatus = Status.FIFTY_MOVES;
+            gameEnded = true;
+        }
+    }
+
+    private boolean hasLegalMove() {
+        MoveGenerator.generateLegal(position, moveList);
+        return !moveList.isEmpty();
     }
 
     public void updateKingsInCheck() {
-        BoardSquare whiteSquare = squareMatrixRef[whiteKingRef.getY()
-                / ChessArena.getPieceSize()][whiteKingRef.getX() / ChessArena.getPieceSize()];
-        BoardSquare blackSquare = squareMatrixRef[blackKingRef.getY()
-                / ChessArena.getPieceSize()][blackKingRef.getX() / ChessArena.getPieceSize()];
         if (!(gameStatus == Status.STALEMATE || gameStatus == Status.CHECKMATE
-                || gameStatus == Status.DRAW ||
+                || gameStatus == Status.DRAW || gameStatus == Status.REPETITION
+                || gameStatus == Status.FIFTY_MOVES ||
                 gameStatus == Status.FLAG || gameStatus == Status.RESIGN)) {
-            if (whiteSquare.isBlackCapturable()) {
+            if (position.isInCheck(Position.WHITE)) {
                 gameStatus = Status.CHECK;
                 kingInCheck = whiteKingRef;
                 if (!kingInCheckSoundPlayed) {
                     playSound(Effect.CHECK);
                     kingInCheckSoundPlayed = true;
                 }
-            } else if (blackSquare.isWhiteCapturable()) {
+            } else if (position.isInCheck(Position.BLACK)) {
                 gameStatus = Status.CHECK;
                 kingInCheck = blackKingRef;
                 if (!kingInCheckSoundPlayed) {
@@ -867,548 +561,151 @@ public class ChessLogicMachine {
         }
     }
 
+    /**
+     * Rebuilds the position from the piece matrix and recomputes which squares
+     * each side attacks. Call this after setting up or editing the board
+     * directly; moves made through handleClick keep the position and attack
+     * map up to date on their own.
+     */
     public void runCaptureSequence() {
-        // update check and checkmate
-        whiteEval = 0;
-        blackEval = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                squareMatrixRef[r][c].resetCapturable();
-            }
-        }
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece piece = pieceMatrixRef[r][c];
-                switch (piece.getPieceType()) {
-                    case PAWN:
-                        changeAllCapturable(allPawnMoves((Pawn) piece, true), piece.getColor(),
-                                1);
-                        break;
-                    case ROOK:
-                        changeAllCapturable(allRookMoves((Rook) piece, true), piece.getColor(),
-                                1);
-                        break;
-                    case KNIGHT:
-                        changeAllCapturable(
-                                allKnightMoves((Knight) piece, true), piece.getColor(),
-                                1
-                        );
-                        break;
-                    case BISHOP:
-                        changeAllCapturable(
-                                allBishopMoves((Bishop) piece, true), piece.getColor(),
-                                1
-                        );
-                        break;
-                    case QUEEN:
-                        changeAllCapturable(
-                                allQueenMoves((Queen) piece, true), piece.getColor(),
-                                1
-                        );
-                        break;
-                    case KING:
-                        changeAllCapturable(allKingMoves((King) piece, true), piece.getColor(),
-                                1);
-                        break;
-                    default:
-                        // System.out.println("Dummy");
-                        break;
-                }
-                updateEval(piece);
-            }
+        int side = (mode == Mode.WHITE_SELECT || mode == Mode.WHITE_PLACE) ? Position.WHITE
+                : Position.BLACK;
+        position = Position.fromMatrix(pieceMatrixRef, side);
+        attackMap = new AttackMap(position);
+        refreshAttacks();
+    }
+
+    // Copies the attack counts that changed since the last refresh onto the
+    // board squares, and updates material and the evaluation
+    private void refreshAttacks() {
+        long changed = attackMap.takeChangedSquares();
+        while (changed != 0) {
+            int sq = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            BoardSquare square = squareAt(sq);
+            int code = position.getPieceAt(sq);
+            square.setPieceColor(
+                    code == Position.NO_PIECE ? ChessColor.EMPTY
+                            : ChessColor.values()[Position.colorOf(code)]
+            );
+            square.setCapturable(
+                    attackMap.getAttackCount(Position.WHITE, sq),
+                    attackMap.getAttackCount(Position.BLACK, sq)
+            );
         }
-        // System.out.println("White: " + whiteEval + " Black: " + blackEval);
+        whiteEval = position.getMaterial(Position.WHITE);
+        blackEval = position.getMaterial(Position.BLACK);
+        evaluation = Evaluation.evaluateForWhite(position);
     }
 
-    private void updateEval(Piece piece) {
-        switch (piece.getColor()) {
-            case WHITE:
-                whiteEval += piece.getWorth();
-                break;
-            case BLACK:
-                blackEval += piece.getWorth();
-                break;
-            default:
-                // System.out.println("Dummy");
-                break;
-        }
-    }
+    // The all*Moves methods return the squares a piece can move to as a
+    // bitboard. With captures set they return every square the piece attacks,
+    // including those held by its own side.
 
-    private void movePiece(Piece piece, BoardSquare destination, int xCoord, int yCoord) {
-        piece.setPosition(destination);
-        pieceMatrixRef[destination.getY() / ChessArena.getPieceSize()][destination.getX()
-                / ChessArena.getPieceSize()] = piece;
-        squareMatrixRef[destination.getY() / ChessArena.getPieceSize()][destination.getX()
-                / ChessArena.getPieceSize()].setPieceColor(piece.getColor());
-        pieceMatrixRef[yCoord / ChessArena.getPieceSize()][xCoord
-                / ChessArena.getPieceSize()] = new Dummy(xCoord, yCoord);
-        squareMatrixRef[yCoord / ChessArena.getPieceSize()][xCoord / ChessArena.getPieceSize()]
-                .setPieceColor(ChessColor.EMPTY);
-        changeMode();
+    public long allBishopMoves(Bishop bishop, boolean captures) {
+        long attacks = Attacks.bishopAttacks(bishop.getSquare(), position.getOccupied());
+        return withoutOwnPieces(attacks, bishop, captures);
     }
 
-    public boolean isBishopPathClear(Bishop bishop, Coords destination) {
-        int destX = destination.getX();
-        int destY = destination.getY();
-        int startX = bishop.getX();
-        int startY = bishop.getY();
-        int dx = destX - startX;
-        int dy = destY - startY;
-        if (startX == destX && startY == destY) {
-            return true;
-        }
-
-        int stepX = dx > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize();
-        int stepY = dy > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize();
-
-        int x = startX + stepX;
-        int y = startY + stepY;
-
-        while (x != destX && y != destY) {
-            if (pieceMatrixRef[y / ChessArena.getPieceSize()][x / ChessArena.getPieceSize()]
-                    .getPieceType() != Pieces.EMPTY) {
-                return false; // Obstruction found
-            }
-            x += stepX;
-            y += stepY;
-        }
-
-        return true;
+    public long allRookMoves(Rook rook, boolean captures) {
+        long attacks = Attacks.rookAttacks(rook.getSquare(), position.getOccupied());
+        return withoutOwnPieces(attacks, rook, captures);
     }
 
-    public boolean isRookPathClear(Rook rook, Coords destination) {
-        int destX = destination.getX();
-        int destY = destination.getY();
-        int startX = rook.getX();
-        int startY = rook.getY();
-        int dx = destX - startX;
-        int dy = destY - startY;
-
-        if (startX == destX && startY == destY) {
-            return true;
-        }
-
-        int stepX = dx != 0 ? (dx > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize())
-                : 0;
-        int stepY = dy != 0 ? (dy > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize())
-                : 0;
-
-        int x = startX + stepX;
-        int y = startY + stepY;
-
-        while (x != destX || y != destY) {
-            if (pieceMatrixRef[y / ChessArena.getPieceSize()][x / ChessArena.getPieceSize()]
-                    .getPieceType() != Pieces.EMPTY) {
-                return false;
-            }
-            x += stepX;
-            y += stepY;
-        }
-
-        return true;
+    public long allQueenMoves(Queen queen, boolean captures) {
+        long attacks = Attacks.queenAttacks(queen.getSquare(), position.getOccupied());
+        return withoutOwnPieces(attacks, queen, captures);
     }
 
-    public boolean isQueenPathClear(Queen queen, Coords destination) {
-        int destX = destination.getX();
-        int destY = destination.getY();
-        int startX = queen.getX();
-        int startY = queen.getY();
-        int dx = destX - startX;
-        int dy = destY - startY;
-
-        if (startX == destX && startY == destY) {
-            return true;
-        }
-
-        int stepX = dx != 0 ? (dx > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize())
-                : 0;
-        int stepY = dy != 0 ? (dy > 0 ? ChessArena.getPieceSize() : -1 * ChessArena.getPieceSize())
-                : 0;
-
-        int x = startX + stepX;
-        int y = startY + stepY;
-
-        while (x != destX || y != destY) {
-            if (pieceMatrixRef[y / ChessArena.getPieceSize()][x / ChessArena.getPieceSize()]
-                    .getPieceType() != Pieces.EMPTY) {
-                return false;
-            }
-            x += stepX;
-            y += stepY;
-        }
-
-        return true; // Path is clear
+    public long allKnightMoves(Knight knight, boolean captures) {
+        return withoutOwnPieces(Attacks.knightAttacks(knight.getSquare()), knight, captures);
     }
 
-    public boolean isPawnPathClear(Pawn pawn, Coords destination) {
-        boolean firstMove = pawn.isFirstMoveMade();
-        int destX = destination.getX();
-        int destY = destination.getY();
-        int startX = pawn.getX();
-        int startY = pawn.getY();
-        int dx = destX - startX;
-        int dy = destY - startY;
-
-        int forwardStep = pawn.getColor() == ChessColor.WHITE ? -ChessArena.getPieceSize()
-                : ChessArena.getPieceSize();
-
-        if (firstMove || (dy == 1) || (dx != 0)) {
-            return true;
-        } else {
-            int midY = startY + forwardStep; // Square between start and destination
-            int scaledStartX = startX / ChessArena.getPieceSize();
-            int scaledMidY = midY / ChessArena.getPieceSize();
-            // System.out.println("ScaledStartX " + scaledStartX + " ScaledStartY " +
-            // scaledMidY);
-            return ((pieceMatrixRef[scaledMidY][scaledStartX]).getPieceType() == Pieces.EMPTY) &&
-                    pieceMatrixRef[destY / ChessArena.getPieceSize()][destX
-                            / ChessArena.getPieceSize()].getPieceType() == Pieces.EMPTY;
+    // Attacked squares minus the piece's own side, unless every attacked
+    // square is wanted
+    private long withoutOwnPieces(long attacks, Piece piece, boolean captures) {
+        if (!captures) {
+            attacks &= ~position.getColorOccupancy(piece.getColor().ordinal());
         }
+        return attacks;
     }
 
-    public ArrayList<Coords> allBishopMoves(Bishop bishop, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = bishop.getX();
-        int y = bishop.getY();
-
-        // Directions: top-left, top-right, bottom-left, bottom-right
-        int[] dx = { -ChessArena.getPieceSize(), ChessArena.getPieceSize(),
-            -ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-        int[] dy = { -ChessArena.getPieceSize(), -ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-
-        for (int direction = 0; direction < 4; direction++) {
-            int i = x;
-            int j = y;
-
-            // Move along the diagonal in each direction until bounds are exceeded or an
-            // obstruction is found
-            while (true) {
-                i += dx[direction];
-                j += dy[direction];
-
-                // Check if we're out of bounds
-                if (i < 0 || i >= ChessArena.getPieceSize() * 8 || j < 0
-                        || j >= ChessArena.getPieceSize() * 8) {
-                    break;
-                }
-                // Add the square to the list if the destination is empty or occupied by an
-                // enemy piece
-                BoardSquare destinationSquare = squareMatrixRef[j / ChessArena.getPieceSize()][i
-                        / ChessArena.getPieceSize()];
-                if (destinationSquare.getPieceColour() != ChessColor.EMPTY) {
-                    if (captures) {
-                        movableSquares.add(new Coords(i, j));
-                    } else {
-                        if (destinationSquare.getPieceColour() != bishop.getColor()) {
-                            movableSquares.add(new Coords(i, j));
-                        }
-                    }
-                    break;
-                }
-                if (destinationSquare.getPieceColour() == ChessColor.EMPTY) {
-                    movableSquares.add(new Coords(i, j)); // Move to an empty square
-                }
+    public long allKingMoves(King king, boolean captures) {
+        int color = king.getColor().ordinal();
+        long targets = withoutOwnPieces(Attacks.kingAttacks(king.getSquare()), king, captures);
+        // never step onto a square the other side attacks
+        long safe = 0L;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!attackMap.isAttacked(target, color ^ 1)) {
+                safe |= 1L << target;
             }
         }
-        return movableSquares;
-    }
-
-    public ArrayList<Coords> allRookMoves(Rook rook, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = rook.getX();
-        int y = rook.getY();
-
-        // Directions: left, right, up, down
-        int[] dx = { -ChessArena.getPieceSize(), ChessArena.getPieceSize(), 0, 0 };
-        int[] dy = { 0, 0, -ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-
-        // Traverse each of the 4 directions
-        for (int direction = 0; direction < 4; direction++) {
-            int i = x;
-            int j = y;
-
-            // Move along the line in the current direction until bounds are exceeded or an
-            // obstruction is found
-            while (true) {
-                i += dx[direction];
-                j += dy[direction];
-
-                // Check if we're out of bounds
-                if (i < 0 || i >= ChessArena.getPieceSize() * 8 || j < 0
-                        || j >= ChessArena.getPieceSize() * 8) {
-                    break;
-                }
-
-                // Check if the square contains an opponent's piece (for capture)
-                BoardSquare destinationSquare = squareMatrixRef[j / ChessArena.getPieceSize()][i
-                        / ChessArena.getPieceSize()];
-                if (destinationSquare.getPieceColour() != ChessColor.EMPTY) {
-                    if (captures) {
-                        movableSquares.add(new Coords(i, j));
-                    } else {
-                        if (destinationSquare.getPieceColour() != rook.getColor()) {
-                            movableSquares.add(new Coords(i, j));
-                        }
-                    }
-                    break;
-                } else {
-                    movableSquares.add(new Coords(i, j));
-                }
+        return safe;
+    }
+
+    public long allPawnMoves(Pawn pawn, boolean captures) {
+        int sq = pawn.getSquare();
+        int color = pawn.getColor().ordinal();
+        long targets = Attacks.pawnAttacks(color, sq);
+        if (captures) {
+            return targets;
+        }
+        long movableSquares = targets & position.getColorOccupancy(color ^ 1);
+        // pushes: one square, then two from the starting rank
+        int forward = color == Position.WHITE ? 8 : -8;
+        int startRank = color == Position.WHITE ? 1 : 6;
+        int single = sq + forward;
+        if (single >= 0 && single < 64 && position.getPieceAt(single) == Position.NO_PIECE) {
+            movableSquares |= 1L << single;
+            int twice = single + forward;
+            if (Position.rankOf(sq) == startRank
+                    && position.getPieceAt(twice) == Position.NO_PIECE) {
+                movableSquares |= 1L << twice;
             }
         }
         return movableSquares;
     }
 
-    public ArrayList<Coords> allQueenMoves(Queen queen, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = queen.getX();
-        int y = queen.getY();
-
-        // Directions: left, right, up, down, top-left, top-right, bottom-left,
-        // bottom-right
-        int[] dx = { -ChessArena.getPieceSize(), ChessArena.getPieceSize(), 0, 0,
-            -ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(), -ChessArena.getPieceSize(), ChessArena.getPieceSize() }; //
-        int[] dy = { 0, 0, -ChessArena.getPieceSize(), ChessArena.getPieceSize(),
-            -ChessArena.getPieceSize(),
-            -ChessArena.getPieceSize(), ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-
-        // Traverse each of the 8 directions
-        for (int direction = 0; direction < 8; direction++) {
-            int i = x;
-            int j = y;
-
-            // Move along the line in the current direction until bounds are exceeded or an
-            // obstruction is found
-            while (true) {
-                i += dx[direction];
-                j += dy[direction];
-
-                // Check if we're out of bounds
-                if (i < 0 || i >= ChessArena.getPieceSize() * 8 || j < 0
-                        || j >= ChessArena.getPieceSize() * 8) {
-                    break;
-                }
-
-                BoardSquare destinationSquare = squareMatrixRef[j / ChessArena.getPieceSize()][i
-                        / ChessArena.getPieceSize()];
-                if (destinationSquare.getPieceColour() != ChessColor.EMPTY) {
-                    if (captures) {
-                        movableSquares.add(new Coords(i, j));
-                    } else {
-                        if (destinationSquare.getPieceColour() != queen.getColor()) {
-                            movableSquares.add(new Coords(i, j));
-                        }
-                    }
-                    break;
-                } else {
-                    movableSquares.add(new Coords(i, j));
-                }
-            }
-        }
-        return movableSquares;
-    }
-
-    public ArrayList<Coords> allKingMoves(King king, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = king.getX();
-        int y = king.getY();
-
-        // Directions: up, down, left, right, top-left, top-right, bottom-left,
-        // bottom-right
-        int[] dx = { -ChessArena.getPieceSize(), ChessArena.getPieceSize(), 0, 0,
-            -ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(), -ChessArena.getPieceSize(), ChessArena.getPieceSize() }; //
-        int[] dy = { 0, 0, -ChessArena.getPieceSize(), ChessArena.getPieceSize(),
-            -ChessArena.getPieceSize(),
-            -ChessArena.getPieceSize(), ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-
-        // Traverse each of the 8 possible directions (all adjacent squares)
-        for (int direction = 0; direction < 8; direction++) {
-            int i = x + dx[direction];
-            int j = y + dy[direction];
-
-            // Check if we're out of bounds
-            if (i < 0 || i >= ChessArena.getPieceSize() * 8 || j < 0
-                    || j >= ChessArena.getPieceSize() * 8) {
-                continue;
-            }
-            BoardSquare destinationSquare = squareMatrixRef[j / ChessArena.getPieceSize()][i
-                    / ChessArena.getPieceSize()];
-            switch (king.getColor()) {
-                case WHITE:
-                    if (!destinationSquare.isBlackCapturable()) {
-                        if (captures) {
-                            movableSquares.add(new Coords(i, j));
-                        } else {
-                            if (destinationSquare.getPieceColour() != king.getColor()) {
-                                movableSquares.add(new Coords(i, j));
-                            }
-                        }
-                    }
-                    break;
-                case BLACK:
-                    if (!destinationSquare.isWhiteCapturable()) {
-                        if (captures) {
-                            movableSquares.add(new Coords(i, j));
-                        } else {
-                            if (destinationSquare.getPieceColour() != king.getColor()) {
-                                movableSquares.add(new Coords(i, j));
-                            }
-                        }
-                    }
-                    break;
-                default:
-                    break;
-            }
-            // if (!((destinationSquare.isBlackCapturable() && king.getColor() ==
-            // ChessColor.WHITE)
-            // || (destinationSquare.isWhiteCapturable() && king.getColor() ==
-            // ChessColor.BLACK))) {
-            // if (captures) {
-            // movableSquares.add(new Coords(i, j));
-            // } else {
-            // if (destinationSquare.getPieceColour() != king.getColor() &&
-            // destinationSquare.getPieceColour() !=ChessColor.EMPTY) {
-            // movableSquares.add(new Coords(i, j));
-            // }
-            // }
-            // }
-        }
-        return movableSquares;
-    }
-
-    public ArrayList<Coords> allKnightMoves(Knight knight, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = knight.getX();
-        int y = knight.getY();
-
-        // Directions: all 8 possible "L" shaped moves
-        int[] dx = { -2 * ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize(),
-            -2 * ChessArena.getPieceSize(),
-            2 * ChessArena.getPieceSize(), -1 * ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(),
-            -1 * ChessArena.getPieceSize(), ChessArena.getPieceSize() };
-        int[] dy = { -1 * ChessArena.getPieceSize(), -1 * ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(),
-            ChessArena.getPieceSize(), -2 * ChessArena.getPieceSize(),
-            -2 * ChessArena.getPieceSize(),
-            2 * ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize() };
-
-        for (int direction = 0; direction < 8; direction++) {
-            int i = x + dx[direction];
-            int j = y + dy[direction];
-
-            // Check if we're out of bounds
-            if (i < 0 || i >= ChessArena.getPieceSize() * 8 || j < 0
-                    || j >= ChessArena.getPieceSize() * 8) {
-                continue;
-            }
-            BoardSquare destinationSquare = squareMatrixRef[j / ChessArena.getPieceSize()][i
-                    / ChessArena.getPieceSize()];
-            if (captures) {
-                movableSquares.add(new Coords(i, j));
-            } else {
-                if (destinationSquare.getPieceColour() != knight.getColor()) {
-                    movableSquares.add(new Coords(i, j));
-                }
-            }
-        }
-
-        return movableSquares;
+    public void playSound(Effect soundType) {
+        sounds.playEffect(soundType);
     }
 
-    public ArrayList<Coords> allPawnMoves(Pawn pawn, boolean captures) {
-        ArrayList<Coords> movableSquares = new ArrayList<>();
-        int x = pawn.getX();
-        int y = pawn.getY();
-
-        int forwardStep = pawn.getColor() == ChessColor.WHITE ? -ChessArena.getPieceSize()
-                : ChessArena.getPieceSize();
-
-        // Diagonal directions for capturing
-        int[] dx = { -ChessArena.getPieceSize(), ChessArena.getPieceSize() }; // left and right
-        int[] dy = { forwardStep, forwardStep }; // pawn captures diagonally one square forward
-
-        for (int i = 0; i < 2; i++) {
-            int targetX = x + dx[i];
-            int targetY = y + dy[i];
-
-            // Check if the destination is within bounds
-            if (targetX >= 0 && targetX < ChessArena.getPieceSize() * 8 &&
-                    targetY >= 0 && targetY < ChessArena.getPieceSize() * 8) {
-                BoardSquare destinationSquare = squareMatrixRef[targetY
-                        / ChessArena.getPieceSize()][targetX / ChessArena.getPieceSize()];
-                if (captures) {
-                    movableSquares.add(new Coords(targetX, targetY));
-                } else {
-                    if ((destinationSquare.getPieceColour() == ChessColor.WHITE
-                            && pawn.getColor() == ChessColor.BLACK)
-                            || (destinationSquare.getPieceColour() == ChessColor.BLACK
-                                    && pawn.getColor() == ChessColor.WHITE)) {
-                        movableSquares.add(new Coords(targetX, targetY));
-                    }
-                }
-            }
-        }
-        if (!captures) {
-            for (int i = 0; i < 2; i++) {
-                int targetY = y + (i + 1) * dy[i];
-                if (x >= 0 && x < ChessArena.getPieceSize() * 8 &&
-                        targetY >= 0 && targetY < ChessArena.getPieceSize() * 8) {
-                    BoardSquare destinationSquare = squareMatrixRef[targetY
-                            / ChessArena.getPieceSize()][x / ChessArena.getPieceSize()];
-                    if (destinationSquare.getPieceColour() == ChessColor.EMPTY) {
-                        movableSquares.add(new Coords(x, targetY));
-                    }
-                    if (pawn.isFirstMoveMade()
-                            || (destinationSquare.getPieceColour() != ChessColor.EMPTY)) {
-                        break;
-                    }
-                }
-            }
+    public void resignGame() {
+        if (mode == Mode.WHITE_PLACE || mode == Mode.WHITE_SELECT) {
+            resignGame(ChessColor.WHITE);
+        } else {
+            resignGame(ChessColor.BLACK);
         }
-        return movableSquares;
     }
 
-    public void changeAllCapturable(
-            ArrayList<Coords> capturables, ChessColor color, int zeroForMinusElsePlus
-    ) {
-        for (Coords coord : capturables) {
-            if (zeroForMinusElsePlus != 0) {
-                if (color == ChessColor.WHITE) {
-                    squareMatrixRef[coord.getY() / ChessArena.getPieceSize()][coord.getX()
-                            / ChessArena.getPieceSize()].increaseWhiteCapturable();
-                } else if (color == ChessColor.BLACK) {
-                    squareMatrixRef[coord.getY() / ChessArena.getPieceSize()][coord.getX()
-                            / ChessArena.getPieceSize()].increaseBlackCapturable();
-                }
-            } else {
-                if (color == ChessColor.WHITE) {
-                    squareMatrixRef[coord.getY() / ChessArena.getPieceSize()][coord.getX()
-                            / ChessArena.getPieceSize()].decreaseWhiteCapturable();
-                } else if (color == ChessColor.BLACK) {
-                    squareMatrixRef[coord.getY() / ChessArena.getPieceSize()][coord.getX()
-                            / ChessArena.getPieceSize()].decreaseBlackCapturable();
-                }
+    /**
+     * Ends the game with the given side resigning, whoever is to move.
+     *
+     * @param loser the side that resigns
+     */
+    public void resignGame(ChessColor loser) {
+        if (!gameEnded) {
+            gameEnded = true;
+            gameStatus = Status.RESIGN;
+            winner = loser == ChessColor.WHITE ? ChessColor.BLACK : ChessColor.WHITE;
+            if (caller != null) {
+                caller.updateStatus();
             }
         }
     }
 
-    public void playSound(Effect soundType) {
-        sounds.playEffect(soundType);
-    }
-
-    public void resignGame() {
+    /**
+     * Ends the game on time: the side whose flag has fallen loses.
+     *
+     * @param loser the side that ran out of time
+     */
+    public void flagFall(ChessColor loser) {
         if (!gameEnded) {
             gameEnded = true;
-            gameStatus = Status.RESIGN;
-            if (mode == Mode.WHITE_PLACE || mode == Mode.WHITE_SELECT) {
-                winner = ChessColor.BLACK;
-            } else {
-                winner = ChessColor.WHITE;
-            }
+            gameStatus = Status.FLAG;
+            winner = loser == ChessColor.WHITE ? ChessColor.BLACK : ChessColor.WHITE;
             if (caller != null) {
                 caller.updateStatus();
             }
@@ -1563,6 +860,13 @@ public class ChessLogicMachine {
         this.mode = mode;
     }
 
+    /**
+     * @return the bitboard position the game logic works on
+     */
+    public Position getPosition() {
+        return position;
+    }
+
     public Piece[][] getPieceMatrixRef() {
         return pieceMatrixRef;
     }
@@ -1,7 +1,5 @@
 package org.cis1200.chess;
 
-import java.awt.*;
-
 public class CisPrep implements PieceInterface, Runnable {
     @Override
     public void run() {
@@ -9,23 +7,13 @@ public class CisPrep implements PieceInterface, Runnable {
     }
 
     @Override
-    public int getX() {
+    public int getSquare() {
         return 0;
     }
 
     @Override
-    public int getY() {
-        return 0;
-    }
+    public void setSquare(int square) {
 
-    @Override
-    public int getWidth() {
-        return 0;
-    }
-
-    @Override
-    public int getHeight() {
-        return 0;
     }
 
     @Override
@@ -33,26 +21,6 @@ public class CisPrep implements PieceInterface, Runnable {
         return 0;
     }
 
-    @Override
-    public Coords getPosition() {
-        return null;
-    }
-
-    @Override
-    public void setPosition(Coords destination) {
-
-    }
-
-    @Override
-    public void setWidth(int wid) {
-
-    }
-
-    @Override
-    public void setHeight(int hei) {
-
-    }
-
     @Override
     public boolean validMove(BoardSquare destination) {
         return false;
@@ -67,9 +35,4 @@ public class CisPrep implements PieceInterface, Runnable {
     public ChessColor getColor() {
         return null;
     }
-
-    @Override
-    public void draw(Graphics g) {
-
-    }
 }
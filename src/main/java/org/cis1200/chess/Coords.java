@@ -1,19 +0,0 @@
-package org.cis1200.chess;
-
-public class Coords {
-    private final int x;
-    private final int y;
-
-    public Coords(int x, int y) {
-        this.x = x;
-        this.y = y;
-    }
-
-    public int getX() {
-        return x;
-    }
-
-    public int getY() {
-        return y;
-    }
-}
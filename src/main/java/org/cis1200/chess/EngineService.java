@@ -0,0 +1,123 @@
+package org.cis1200.chess;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * EngineService runs searches away from the thread that asks for them. Each
+ * search is queued on a single worker thread, so the {@link LazySmpSearch}
+ * behind it is never used by two at once, and its progress and result are
+ * handed to a publisher: {@code SwingUtilities::invokeLater} for the GUI, so
+ * callbacks run on the event dispatch thread and may touch Swing directly.
+ *
+ * Every search comes back as an {@link EngineTask}, through which it can be
+ * cancelled. A search checks its limits every thousand nodes or so, so a
+ * cancelled one is gone within milliseconds, and the publisher is never given
+ * anything of it afterwards. {@link #cancelAll} does the same for every
+ * search queued or running, for a game that is reset or has ended.
+ */
+public class EngineService {
+    private final LazySmpSearch engine;
+    private final Executor publisher;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<EngineTask> live = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param publisher runs the callbacks; {@code Runnable::run} runs them on
+     *                  the worker thread itself
+     */
+    public EngineService(LazySmpSearch engine, Executor publisher) {
+        this.engine = engine;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Queues a search of the position. The position is copied at once, so
+     * the caller may go on changing it.
+     *
+     * @param onProgress given each progress report, or null for none
+     * @param onResult   given the result when the search is over, unless it
+     *                   was cancelled; may be null
+     * @return the task, to cancel or wait for the search
+     */
+    public EngineTask search(
+            Position position, SearchLimits limits, Consumer<SearchResult> onProgress,
+            Consumer<SearchResult> onResult
+    ) {
+        Position copy = position.copy();
+        EngineTask task = new EngineTask(limits);
+        live.add(task);
+        worker.execute(() -> run(task, copy, onProgress, onResult));
+        return task;
+    }
+
+    /**
+     * Cancels every search queued or running.
+     */
+    public void cancelAll() {
+        for (EngineTask task : live) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Runs the action through the publisher, as the callbacks are.
+     */
+    public void publish(Runnable action) {
+        publisher.execute(action);
+    }
+
+    public LazySmpSearch getEngine() {
+        return engine;
+    }
+
+    /**
+     * Cancels every search and stops the worker thread.
+     */
+    public void shutdown() {
+        cancelAll();
+        worker.shutdown();
+    }
+
+    private void run(
+            EngineTask task, Position position, Consumer<SearchResult> onProgress,
+            Consumer<SearchResult> onResult
+    ) {
+        try {
+            if (task.isCancelled()) {
+                task.getResult().complete(null);
+                return;
+            }
+            Consumer<SearchResult> progress = onProgress == null ? null
+                    : report -> publish(task, onProgress, report);
+            SearchResult result = engine.search(position, task.getLimits(), progress);
+            task.getResult().complete(result);
+            if (onResult != null) {
+                publish(task, onResult, result);
+            }
+        } catch (RuntimeException e) {
+            task.getResult().completeExceptionally(e);
+            throw e;
+        } finally {
+            live.remove(task);
+        }
+    }
+
+    // The cancellation is checked again on the publisher's thread, so nothing
+    // is published after a cancel made there
+    private void publish(EngineTask task, Consumer<SearchResult> callback, SearchResult result) {
+        publisher.execute(() -> {
+            if (!task.isCancelled()) {
+                callback.accept(result);
+            }
+        });
+    }
+}
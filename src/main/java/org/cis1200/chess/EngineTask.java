@@ -0,0 +1,59 @@
+package org.cis1200.chess;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * EngineTask is the handle of one search handed to an {@link EngineService},
+ * and its cancellation token. Cancelling it stops the search within a
+ * millisecond or so, and guarantees that no progress or result of it is
+ * published afterwards. Stopping it instead ends the search early but still
+ * publishes what was found.
+ */
+public class EngineTask {
+    private final SearchLimits limits;
+    private final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+    private volatile boolean cancelled;
+
+    EngineTask(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Abandons the search. Safe to call from any thread, at any time.
+     */
+    public void cancel() {
+        cancelled = true;
+        limits.stop();
+    }
+
+    /**
+     * Ends the search as soon as it has a move, which is published as usual.
+     */
+    public void stop() {
+        limits.stop();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true once the search has returned, or was cancelled before it
+     *         started
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * @return completed on the worker thread with the search's result, or
+     *         with null if it was cancelled before it started
+     */
+    public CompletableFuture<SearchResult> getResult() {
+        return result;
+    }
+
+    SearchLimits getLimits() {
+        return limits;
+    }
+}
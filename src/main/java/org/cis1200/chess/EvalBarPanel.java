@@ -4,34 +4,64 @@ import javax.swing.*;
 import java.awt.*;
 
 public class EvalBarPanel extends JPanel {
-    private int whiteEval = 39;
-    private int blackEval = 39;
-    private final int maxEval = 39;
-    private final int minEval = -39;
+    // centipawns at which the bar is all white or all black
+    private static final int MAX_EVAL = 1000;
+
+    // centipawns, positive when white stands better; a mate score for a mate
+    private int evaluation = 0;
 
     public EvalBarPanel() {
         setPreferredSize(new Dimension(40, ChessArena.BOARD_HEIGHT));
     }
 
-    public void updateEvalBar(int whiteEval, int blackEval) {
-        this.whiteEval = whiteEval;
-        this.blackEval = blackEval;
-        repaint();
+    /**
+     * @param evaluation the score in centipawns, positive when white stands
+     *                   better, or a {@link Search} mate score
+     */
+    public void updateEvalBar(int evaluation) {
+        if (evaluation != this.evaluation) {
+            this.evaluation = evaluation;
+            repaint();
+        }
+    }
+
+    public int getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * @return the score as shown on the bar: pawns with one decimal, such as
+     *         "+1.5", or the moves to mate, such as "M3" or "-M3"
+     */
+    public static String formatEvaluation(int evaluation) {
+        if (Math.abs(evaluation) >= Search.MATE_BOUND) {
+            int moves = (Search.MATE - Math.abs(evaluation) + 1) / 2;
+            return (evaluation > 0 ? "M" : "-M") + moves;
+        }
+        return String.format("%+.1f", evaluation / 100.0);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        int evalDifference = blackEval - whiteEval;
-
-        // Normalize the value between 0 and the height of the panel
-        int normalizedEval = 3 * Math.max(minEval, Math.min(evalDifference, maxEval)); // play with
-                                                                                       // the int *
-        int evalHeight = (int) ((double) (normalizedEval - minEval) / (maxEval - minEval)
-                * getHeight());
+        // Black fills the bar from the top, half of it when the game is even
+        int clamped = Math.max(-MAX_EVAL, Math.min(evaluation, MAX_EVAL));
+        int evalHeight = (int) ((double) (MAX_EVAL - clamped) / (2 * MAX_EVAL) * getHeight());
 
         g.setColor(Color.BLACK);
         g.fillRect(0, 0, getWidth(), evalHeight);
+
+        // The score is written at the end of the side that stands better
+        g.setFont(g.getFont().deriveFont(Font.BOLD, 10f));
+        String text = formatEvaluation(evaluation);
+        int x = (getWidth() - g.getFontMetrics().stringWidth(text)) / 2;
+        if (evaluation >= 0) {
+            g.setColor(Color.BLACK);
+            g.drawString(text, x, getHeight() - 4);
+        } else {
+            g.setColor(Color.WHITE);
+            g.drawString(text, x, g.getFontMetrics().getAscent() + 2);
+        }
     }
 }
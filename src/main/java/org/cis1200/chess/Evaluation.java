@@ -0,0 +1,524 @@
+package org.cis1200.chess;
+
+/**
+ * Evaluation scores a position statically, in centipawns from the point of
+ * view of the side to move, as the search needs it. Every term has a
+ * midgame and an endgame value, and the two are blended by the game phase,
+ * worked out from the minor and major pieces left: with all of them on the
+ * board the score is the midgame one, with none the endgame one.
+ *
+ * The terms are:
+ * <ul>
+ * <li>material and piece-square tables, the values of the PeSTO tables. These
+ * are summed by {@link Position} itself as pieces are put on and taken off
+ * the board, so reading them costs nothing;</li>
+ * <li>mobility, the squares each minor and major piece can move to that no
+ * enemy pawn guards;</li>
+ * <li>king safety, the pawn shield before a castled king and the weight of
+ * the enemy pieces attacking the squares around it, in the midgame only;</li>
+ * <li>pawn structure: doubled, isolated, backward and passed pawns, looked up
+ * in a {@link PawnHashTable} when the caller has one, and a passed pawn free
+ * to advance.</li>
+ * </ul>
+ *
+ * A position that has an {@link Nnue} network's accumulator attached is
+ * scored by the network instead, in {@link #evaluate(Position, PawnHashTable)}.
+ *
+ * The tables are written the way a board is drawn, rank 8 first, from
+ * white's point of view; black reads them mirrored.
+ *
+ * Where a term is kept as one int it is packed: the midgame value in the low
+ * 16 bits and the endgame value above it, so both are added at once. See
+ * {@link #pack}.
+ */
+public final class Evaluation {
+    // the phase with every minor and major piece on the board
+    public static final int MAX_PHASE = 24;
+
+    // indexed by piece type: king, queen, knight, bishop, rook, pawn, as
+    // the search and move ordering use them
+    private static final int[] VALUE = { 0, 900, 320, 330, 500, 100 };
+
+    // material in the midgame and the endgame
+    private static final int[] MG_VALUE = { 0, 1025, 337, 365, 477, 82 };
+    private static final int[] EG_VALUE = { 0, 936, 281, 297, 512, 94 };
+
+    // how much each piece counts towards the midgame
+    private static final int[] PHASE = { 0, 4, 1, 1, 2, 0, 0 };
+
+    private static final int[] MG_KING_TABLE = {
+        -65,  23,  16, -15, -56, -34,   2,  13,
+         29,  -1, -20,  -7,  -8,  -4, -38, -29,
+         -9,  24,   2, -16, -20,   6,  22, -22,
+        -17, -20, -12, -27, -30, -25, -14, -36,
+        -49,  -1, -27, -39, -46, -44, -33, -51,
+        -14, -14, -22, -46, -44, -30, -15, -27,
+          1,   7,  -8, -64, -43, -16,   9,   8,
+        -15,  36,  12, -54,   8, -28,  24,  14
+    };
+
+    private static final int[] EG_KING_TABLE = {
+        -74, -35, -18, -18, -11,  15,   4, -17,
+        -12,  17,  14,  17,  17,  38,  23,  11,
+         10,  17,  23,  15,  20,  45,  44,  13,
+         -8,  22,  24,  27,  26,  33,  26,   3,
+        -18,  -4,  21,  24,  27,  23,   9, -11,
+        -19,  -3,  11,  21,  23,  16,   7,  -9,
+        -27, -11,   4,  13,  14,   4,  -5, -17,
+        -53, -34, -21, -11, -28, -14, -24, -43
+    };
+
+    private static final int[] MG_QUEEN_TABLE = {
+        -28,   0,  29,  12,  59,  44,  43,  45,
+        -24, -39,  -5,   1, -16,  57,  28,  54,
+        -13, -17,   7,   8,  29,  56,  47,  57,
+        -27, -27, -16, -16,  -1,  17,  -2,   1,
+         -9, -26,  -9, -10,  -2,  -4,   3,  -3,
+        -14,   2, -11,  -2,  -5,   2,  14,   5,
+        -35,  -8,  11,   2,   8,  15,  -3,   1,
+         -1, -18,  -9,  10, -15, -25, -31, -50
+    };
+
+    private static final int[] EG_QUEEN_TABLE = {
+         -9,  22,  22,  27,  27,  19,  10,  20,
+        -17,  20,  32,  41,  58,  25,  30,   0,
+        -20,   6,   9,  49,  47,  35,  19,   9,
+          3,  22,  24,  45,  57,  40,  57,  36,
+        -18,  28,  19,  47,  31,  34,  39,  23,
+        -16, -27,  15,   6,   9,  17,  10,   5,
+        -22, -23, -30, -16, -16, -23, -36, -32,
+        -33, -28, -22, -43,  -5, -32, -20, -41
+    };
+
+    private static final int[] MG_KNIGHT_TABLE = {
+        -167, -89, -34, -49,  61, -97, -15, -107,
+         -73, -41,  72,  36,  23,  62,   7,  -17,
+         -47,  60,  37,  65,  84, 129,  73,   44,
+          -9,  17,  19,  53,  37,  69,  18,   22,
+         -13,   4,  16,  13,  28,  19,  21,   -8,
+         -23,  -9,  12,  10,  19,  17,  25,  -16,
+         -29, -53, -12,  -3,  -1,  18, -14,  -19,
+        -105, -21, -58, -33, -17, -28, -19,  -23
+    };
+
+    private static final int[] EG_KNIGHT_TABLE = {
+        -58, -38, -13, -28, -31, -27, -63, -99,
+        -25,  -8, -25,  -2,  -9, -25, -24, -52,
+        -24, -20,  10,   9,  -1,  -9, -19, -41,
+        -17,   3,  22,  22,  22,  11,   8, -18,
+        -18,  -6,  16,  25,  16,  17,   4, -18,
+        -23,  -3,  -1,  15,  10,  -3, -20, -22,
+        -42, -20, -10,  -5,  -2, -20, -23, -44,
+        -29, -51, -23, -15, -22, -18, -50, -64
+    };
+
+    private static final int[] MG_BISHOP_TABLE = {
+        -29,   4, -82, -37, -25, -42,   7,  -8,
+        -26,  16, -18, -13,  30,  59,  18, -47,
+        -16,  37,  43,  40,  35,  50,  37,  -2,
+         -4,   5,  19,  50,  37,  37,   7,  -2,
+         -6,  13,  13,  26,  34,  12,  10,   4,
+          0,  15,  15,  15,  14,  27,  18,  10,
+          4,  15,  16,   0,   7,  21,  33,   1,
+        -33,  -3, -14, -21, -13, -12, -39, -21
+    };
+
+    private static final int[] EG_BISHOP_TABLE = {
+        -14, -21, -11,  -8,  -7,  -9, -17, -24,
+         -8,  -4,   7, -12,  -3, -13,  -4, -14,
+          2,  -8,   0,  -1,  -2,   6,   0,   4,
+         -3,   9,  12,   9,  14,  10,   3,   2,
+         -6,   3,  13,  19,   7,  10,  -3,  -9,
+        -12,  -3,   8,  10,  13,   3,  -7, -15,
+        -14, -18,  -7,  -1,   4,  -9, -15, -27,
+        -23,  -9, -23,  -5,  -9, -16,  -5, -17
+    };
+
+    private static final int[] MG_ROOK_TABLE = {
+         32,  42,  32,  51,  63,   9,  31,  43,
+         27,  32,  58,  62,  80,  67,  26,  44,
+         -5,  19,  26,  36,  17,  45,  61,  16,
+        -24, -11,   7,  26,  24,  35,  -8, -20,
+        -36, -26, -12,  -1,   9,  -7,   6, -23,
+        -45, -25, -16, -17,   3,   0,  -5, -33,
+        -44, -16, -20,  -9,  -1,  11,  -6, -71,
+        -19, -13,   1,  17,  16,   7, -37, -26
+    };
+
+    private static final int[] EG_ROOK_TABLE = {
+         13,  10,  18,  15,  12,  12,   8,   5,
+         11,  13,  13,  11,  -3,   3,   8,   3,
+          7,   7,   7,   5,   4,  -3,  -5,  -3,
+          4,   3,  13,   1,   2,   1,  -1,   2,
+          3,   5,   8,   4,  -5,  -6,  -8, -11,
+         -4,   0,  -5,  -1,  -7, -12,  -8, -16,
+         -6,  -6,   0,   2,  -9,  -9, -11,  -3,
+         -9,   2,   3,  -1,  -5, -13,   4, -20
+    };
+
+    private static final int[] MG_PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         98, 134,  61,  95,  68, 126,  34, -11,
+         -6,   7,  26,  31,  65,  56,  25, -20,
+        -14,  13,   6,  21,  23,  12,  17, -23,
+        -27,  -2,  -5,  12,  17,   6,  10, -25,
+        -26,  -4,  -4, -10,   3,   3,  33, -12,
+        -35,  -1, -20, -23, -15,  24,  38, -22,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] EG_PAWN_TABLE = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+        178, 173, 158, 134, 147, 132, 165, 187,
+         94, 100,  85,  67,  56,  53,  82,  84,
+         32,  24,  13,   5,  -2,   4,  17,  17,
+         13,   9,  -3,  -7,  -7,  -8,   3,  -1,
+          4,   7,  -6,   1,   0,  -5,  -1,  -8,
+         13,   8,   8,  10,  13,   0,   2,  -7,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[][] MG_TABLES = {
+        MG_KING_TABLE, MG_QUEEN_TABLE, MG_KNIGHT_TABLE, MG_BISHOP_TABLE, MG_ROOK_TABLE,
+        MG_PAWN_TABLE
+    };
+
+    private static final int[][] EG_TABLES = {
+        EG_KING_TABLE, EG_QUEEN_TABLE, EG_KNIGHT_TABLE, EG_BISHOP_TABLE, EG_ROOK_TABLE,
+        EG_PAWN_TABLE
+    };
+
+    // material plus table value of each piece code on each square, negative
+    // for black, so Position adds them up as they are
+    private static final int[][] MG_SQUARE = new int[12][64];
+    private static final int[][] EG_SQUARE = new int[12][64];
+
+    // per square of mobility, counted from a typical number of squares, by
+    // piece type; the king and pawns have none
+    private static final int[] MOBILITY_BASE = { 0, 14, 4, 7, 7, 0 };
+    private static final int[] MG_MOBILITY = { 0, 1, 4, 5, 2, 0 };
+    private static final int[] EG_MOBILITY = { 0, 2, 4, 5, 4, 0 };
+
+    // weight of an attack on the squares around the king, by piece type
+    private static final int[] KING_ATTACK_WEIGHT = { 0, 5, 2, 2, 3, 0 };
+    // the most the king-attack penalty grows to, in centipawns
+    private static final int MAX_KING_DANGER = 500;
+    // for each own pawn on the rank just before the king, and the one after
+    private static final int SHIELD_NEAR = 12;
+    private static final int SHIELD_FAR = 6;
+
+    private static final int DOUBLED = pack(-10, -20);
+    private static final int ISOLATED = pack(-10, -15);
+    private static final int BACKWARD = pack(-8, -10);
+    // by the rank a passed pawn has reached, counted from its own side
+    private static final int[] MG_PASSED = { 0, 5, 10, 15, 25, 40, 60, 0 };
+    private static final int[] EG_PASSED = { 0, 10, 20, 35, 60, 100, 150, 0 };
+    // added when the square before a passed pawn is empty
+    private static final int[] EG_FREE_PASSER = { 0, 5, 5, 10, 15, 25, 40, 0 };
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // the squares before a pawn on its own and the adjacent files, by color
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    // the squares beside a pawn and behind it on the adjacent files, by color
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int type = Position.KING; type <= Position.PAWN; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                // the tables read rank 8 first, so white flips the rank of its squares
+                int white = Position.pieceCode(Position.WHITE, type);
+                int black = Position.pieceCode(Position.BLACK, type);
+                MG_SQUARE[white][sq] = MG_VALUE[type] + MG_TABLES[type][sq ^ 56];
+                EG_SQUARE[white][sq] = EG_VALUE[type] + EG_TABLES[type][sq ^ 56];
+                MG_SQUARE[black][sq] = -MG_VALUE[type] - MG_TABLES[type][sq];
+                EG_SQUARE[black][sq] = -EG_VALUE[type] - EG_TABLES[type][sq];
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Attacks.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0)
+                    | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int file = Position.fileOf(sq);
+            int rank = Position.rankOf(sq);
+            long span = FILES[file] | ADJACENT_FILES[file];
+            long above = rank == 7 ? 0 : -1L << (8 * (rank + 1));
+            long below = (1L << (8 * rank)) - 1;
+            PASSED_SPAN[Position.WHITE][sq] = span & above;
+            PASSED_SPAN[Position.BLACK][sq] = span & below;
+            SUPPORT_SPAN[Position.WHITE][sq] = ADJACENT_FILES[file] & ~above;
+            SUPPORT_SPAN[Position.BLACK][sq] = ADJACENT_FILES[file] & ~below;
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the score of the position in centipawns, positive when the side
+     *         to move stands better
+     */
+    public static int evaluate(Position position) {
+        return evaluate(position, null);
+    }
+
+    /**
+     * Evaluates as {@link #evaluate(Position)} does, taking the pawn terms
+     * from the table when it holds the position's pawns. A position with an
+     * {@link NnueAccumulator} attached is scored by its network instead.
+     *
+     * @param pawns the table to look the pawns up in; null to work them out
+     *              afresh
+     */
+    public static int evaluate(Position position, PawnHashTable pawns) {
+        NnueAccumulator accumulator = position.getAccumulator();
+        if (accumulator != null && NnueAccumulator.canEvaluate(position)) {
+            return accumulator.evaluate(position);
+        }
+        int score = evaluateForWhite(position, pawns);
+        return position.getSideToMove() == Position.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the score of the position in centipawns, positive when white
+     *         stands better
+     */
+    public static int evaluateForWhite(Position position) {
+        return evaluateForWhite(position, null);
+    }
+
+    /**
+     * @param pawns the table to look the pawns up in; null to work them out
+     *              afresh
+     * @return the score of the position in centipawns, positive when white
+     *         stands better
+     */
+    public static int evaluateForWhite(Position position, PawnHashTable pawns) {
+        int structure;
+        long passed;
+        if (pawns != null) {
+            int slot = pawns.lookup(position);
+            structure = pawns.getScore(slot);
+            passed = pawns.getPassed(slot);
+        } else {
+            structure = pawnStructure(position);
+            passed = passedPawns(position);
+        }
+        int terms = structure + freePassers(position, passed)
+                + pieces(position, Position.WHITE) - pieces(position, Position.BLACK);
+        int mg = position.getMidgameScore() + midgameHalf(terms);
+        int eg = position.getEndgameScore() + endgameHalf(terms);
+        int phase = Math.min(position.getPhase(), MAX_PHASE);
+        return (mg * phase + eg * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    /**
+     * Scores doubled, isolated, backward and passed pawns. The score depends
+     * on the pawns alone, so it may be cached by their placement; see
+     * {@link PawnHashTable}.
+     *
+     * @return the packed midgame and endgame score, positive when white's
+     *         pawns are better
+     */
+    public static int pawnStructure(Position position) {
+        long white = position.getPieces(Position.WHITE, Position.PAWN);
+        long black = position.getPieces(Position.BLACK, Position.PAWN);
+        return pawns(Position.WHITE, white, black) - pawns(Position.BLACK, black, white);
+    }
+
+    /**
+     * @return the pawns of either color with no enemy pawn before them on
+     *         their own or an adjacent file
+     */
+    public static long passedPawns(Position position) {
+        long white = position.getPieces(Position.WHITE, Position.PAWN);
+        long black = position.getPieces(Position.BLACK, Position.PAWN);
+        return passed(Position.WHITE, white, black) | passed(Position.BLACK, black, white);
+    }
+
+    /**
+     * @return the material value of a piece type in centipawns
+     */
+    public static int value(int type) {
+        return type < VALUE.length ? VALUE[type] : 0;
+    }
+
+    /**
+     * @return the midgame material and table value of the piece on the
+     *         square, negative for a black piece
+     */
+    public static int midgame(int code, int sq) {
+        return MG_SQUARE[code][sq];
+    }
+
+    /**
+     * @return the endgame material and table value of the piece on the
+     *         square, negative for a black piece
+     */
+    public static int endgame(int code, int sq) {
+        return EG_SQUARE[code][sq];
+    }
+
+    /**
+     * @return how much a piece of the type counts towards the game phase
+     */
+    public static int phase(int type) {
+        return PHASE[type];
+    }
+
+    /**
+     * Packs a midgame and an endgame value into one int. Packed values add
+     * and subtract as pairs, as long as each half stays within a short.
+     */
+    public static int pack(int mg, int eg) {
+        return (eg << 16) + mg;
+    }
+
+    /**
+     * @return the midgame half of a packed value
+     */
+    public static int midgameHalf(int packed) {
+        return (short) packed;
+    }
+
+    /**
+     * @return the endgame half of a packed value
+     */
+    public static int endgameHalf(int packed) {
+        // rounds up, to undo the borrow a negative midgame half takes
+        return (short) ((packed + 0x8000) >> 16);
+    }
+
+    private static int pawns(int color, long own, long enemy) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(own & FILES[file]);
+            if (count > 1) {
+                score += DOUBLED * (count - 1);
+            }
+            if (count > 0 && (own & ADJACENT_FILES[file]) == 0) {
+                score += ISOLATED * count;
+            }
+        }
+        int forward = color == Position.WHITE ? 8 : -8;
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int rank = relativeRank(color, sq);
+            if ((enemy & PASSED_SPAN[color][sq]) == 0) {
+                score += pack(MG_PASSED[rank], EG_PASSED[rank]);
+            } else if ((own & SUPPORT_SPAN[color][sq]) == 0
+                    && (enemy & Attacks.pawnAttacks(color, sq + forward)) != 0) {
+                // no pawn can come up beside it, and it cannot advance safely
+                score += BACKWARD;
+            }
+        }
+        return score;
+    }
+
+    private static long passed(int color, long own, long enemy) {
+        long passed = 0;
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            if ((enemy & PASSED_SPAN[color][sq]) == 0) {
+                passed |= 1L << sq;
+            }
+        }
+        return passed;
+    }
+
+    // A passed pawn whose next square is empty is worth more in the endgame
+    private static int freePassers(Position position, long passed) {
+        long empty = ~position.getOccupied();
+        long white = passed & position.getColorOccupancy(Position.WHITE) & (empty >>> 8);
+        long black = passed & position.getColorOccupancy(Position.BLACK) & (empty << 8);
+        int score = 0;
+        while (white != 0) {
+            int sq = Long.numberOfTrailingZeros(white);
+            white &= white - 1;
+            score += pack(0, EG_FREE_PASSER[relativeRank(Position.WHITE, sq)]);
+        }
+        while (black != 0) {
+            int sq = Long.numberOfTrailingZeros(black);
+            black &= black - 1;
+            score -= pack(0, EG_FREE_PASSER[relativeRank(Position.BLACK, sq)]);
+        }
+        return score;
+    }
+
+    // The rank counted from the color's own side, 0 to 7
+    private static int relativeRank(int color, int sq) {
+        return color == Position.WHITE ? Position.rankOf(sq) : 7 - Position.rankOf(sq);
+    }
+
+    // Mobility and the pieces' threat to the enemy king, then the side's own
+    // king shelter
+    private static int pieces(Position position, int color) {
+        int them = color ^ 1;
+        long occupied = position.getOccupied();
+        long own = position.getColorOccupancy(color);
+        long enemyPawns = position.getPieces(them, Position.PAWN);
+        long guarded = them == Position.WHITE
+                ? ((enemyPawns << 7) & ~Attacks.FILE_H) | ((enemyPawns << 9) & ~Attacks.FILE_A)
+                : ((enemyPawns >>> 9) & ~Attacks.FILE_H) | ((enemyPawns >>> 7) & ~Attacks.FILE_A);
+        long available = ~own & ~guarded;
+        int enemyKing = position.getKingSquare(them);
+        long kingZone = enemyKing == Position.NO_SQUARE ? 0
+                : Attacks.kingAttacks(enemyKing) | (1L << enemyKing);
+
+        int score = 0;
+        int attackers = 0;
+        int attackWeight = 0;
+        for (int type = Position.QUEEN; type <= Position.ROOK; type++) {
+            long pieces = position.getPieces(color, type);
+            while (pieces != 0) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long attacks = Attacks.attacks(type, color, sq, occupied);
+                int squares = Long.bitCount(attacks & available) - MOBILITY_BASE[type];
+                score += pack(MG_MOBILITY[type] * squares, EG_MOBILITY[type] * squares);
+                int hits = Long.bitCount(attacks & kingZone);
+                if (hits > 0) {
+                    attackers++;
+                    attackWeight += KING_ATTACK_WEIGHT[type] * hits;
+                }
+            }
+        }
+        // a lone attacker is seldom dangerous
+        if (attackers >= 2) {
+            int danger = Math.min(attackWeight * attackWeight * 2, MAX_KING_DANGER);
+            score += pack(danger, 0);
+        }
+        return score + pack(shelter(position, color), 0);
+    }
+
+    // Own pawns on the three files around a king still on its first two ranks
+    private static int shelter(Position position, int color) {
+        int king = position.getKingSquare(color);
+        if (king == Position.NO_SQUARE) {
+            return 0;
+        }
+        if (relativeRank(color, king) > 1) {
+            return 0;
+        }
+        int file = Position.fileOf(king);
+        long pawns = position.getPieces(color, Position.PAWN)
+                & (FILES[file] | ADJACENT_FILES[file]);
+        int forward = color == Position.WHITE ? 8 : -8;
+        long near = rankMask(king + forward);
+        long far = rankMask(king + 2 * forward);
+        return SHIELD_NEAR * Long.bitCount(pawns & near)
+                + SHIELD_FAR * Long.bitCount(pawns & far);
+    }
+
+    private static long rankMask(int sq) {
+        return Attacks.RANK_1 << (8 * Position.rankOf(sq));
+    }
+}
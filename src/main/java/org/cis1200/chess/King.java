@@ -4,16 +4,13 @@ public class King extends Piece {
 
     private boolean firstMoveMade = false;
 
-    public King(int xPos, int yPos, int wid, int hei, ChessColor chessColor) {
-        super(
-                xPos, yPos, wid, hei, chessColor, 0,
-                "files/whiteKing.png", "files/blackKing.png", Pieces.KING
-        );
+    public King(int square, ChessColor chessColor) {
+        super(square, chessColor, 0, Pieces.KING);
     }
 
     @Override
-    public void setPosition(Coords destination) {
-        super.setPosition(destination);
+    public void setSquare(int square) {
+        super.setSquare(square);
         firstMoveMade = true;
     }
 
@@ -28,21 +25,12 @@ public class King extends Piece {
         if (destination.isBlackCapturable() && getColor() == ChessColor.WHITE) {
             return false;
         }
-        int targetX = destination.getX();
-        int targetY = destination.getY();
-        int dx = Math.abs(targetX - getX());
-        int dy = Math.abs(targetY - getY());
-        if (!isFirstMoveMade()) {
-            return (dy == 0) && (dx == 2 * ChessArena.getPieceSize())
-                    || ((targetX == this.getX() & targetY == this.getY()) ||
-                            ((dx == 0) && (dy == ChessArena.getPieceSize()))
-                            || ((dy == 0) && (dx == ChessArena.getPieceSize())) ||
-                            ((dx == dy) && (dx == ChessArena.getPieceSize())));
+        int dx = fileDistance(destination);
+        int dy = rankDistance(destination);
+        if (!isFirstMoveMade() && dy == 0 && dx == 2) {
+            return true;
         }
-        return ((targetX == this.getX() & targetY == this.getY()) ||
-                ((dx == 0) && (dy == ChessArena.getPieceSize()))
-                || ((dy == 0) && (dx == ChessArena.getPieceSize())) ||
-                ((dx == dy) && (dx == ChessArena.getPieceSize())));
+        return dx <= 1 && dy <= 1;
     }
 
     public boolean isFirstMoveMade() {
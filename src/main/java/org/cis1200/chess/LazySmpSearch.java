@@ -0,0 +1,213 @@
+package org.cis1200.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * LazySmpSearch searches one root on several threads at once ("Lazy SMP").
+ * The threads do not split the tree between them; each runs its own
+ * {@link Search} of the whole root, and they cooperate only through the
+ * shared {@link TranspositionTable}: whatever one thread stores, the others
+ * find and skip. The helpers vary their iteration depths and move order, so
+ * they fill the table ahead of the main search instead of repeating it.
+ *
+ * The main search runs on the calling thread and alone obeys the limits.
+ * When it returns the helpers are stopped, and the deepest iteration any
+ * thread completed is reported, with the nodes of all threads added up.
+ *
+ * Every thread evaluates with the same {@link Nnue} network, if one is set.
+ * Each thread has a {@link PawnHashTable} of its own, kept between searches
+ * along with the helper threads; call {@link #shutdown} to release the
+ * threads.
+ */
+public class LazySmpSearch {
+    private final TranspositionTable table;
+    private int threads;
+    private ExecutorService helpers;
+    private SearchOptions options = new SearchOptions();
+    private int pawnEntries = PawnHashTable.DEFAULT_ENTRIES;
+    // one per thread, the main search's first
+    private PawnHashTable[] pawnTables = new PawnHashTable[0];
+    private Nnue network = Nnue.getDefault();
+
+    public LazySmpSearch(TranspositionTable table, int threads) {
+        this.table = table;
+        setThreads(threads);
+    }
+
+    /**
+     * Sets the number of threads, the calling one included. Must not be called
+     * while a search is running.
+     */
+    public void setThreads(int threads) {
+        shutdown();
+        this.threads = Math.max(1, threads);
+        resizePawnTables(pawnEntries);
+        if (this.threads > 1) {
+            helpers = Executors.newFixedThreadPool(this.threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the pruning every thread of later searches uses.
+     */
+    public void setOptions(SearchOptions options) {
+        this.options = options;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Sets the network every thread of later searches evaluates with, or null
+     * for the classical evaluation. The default network, if any, is used
+     * unless this is called.
+     */
+    public void setNetwork(Nnue network) {
+        this.network = network;
+    }
+
+    public Nnue getNetwork() {
+        return network;
+    }
+
+    /**
+     * Gives every thread a new pawn hash table of the given number of
+     * entries. Must not be called while a search is running.
+     */
+    public void resizePawnTables(int entries) {
+        pawnEntries = entries;
+        PawnHashTable[] resized = new PawnHashTable[threads];
+        for (int i = 0; i < threads; i++) {
+            resized[i] = new PawnHashTable(entries);
+        }
+        pawnTables = resized;
+    }
+
+    /**
+     * Empties the pawn hash tables and resets their counters.
+     */
+    public void clearPawnTables() {
+        for (PawnHashTable pawns : pawnTables) {
+            pawns.clear();
+        }
+    }
+
+    /**
+     * @return the fraction of pawn hash lookups on every thread that hit,
+     *         since the tables were last cleared or resized
+     */
+    public double getPawnHitRate() {
+        long hits = 0;
+        long lookups = 0;
+        for (PawnHashTable pawns : pawnTables) {
+            hits += pawns.getHits();
+            lookups += pawns.getHits() + pawns.getMisses();
+        }
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Searches the position on every thread until the limits stop the main
+     * search. The position itself is left untouched.
+     *
+     * @return the result of the deepest iteration completed by any thread
+     */
+    public SearchResult search(Position position, SearchLimits limits) {
+        return search(position, limits, null);
+    }
+
+    /**
+     * Searches as {@link #search(Position, SearchLimits)} does, reporting the
+     * main search's progress with the nodes of all threads added up.
+     *
+     * @param progress given each progress report of the main search, on the
+     *                 calling thread; may be null
+     */
+    public SearchResult search(
+            Position position, SearchLimits limits, Consumer<SearchResult> progress
+    ) {
+        Search main = new Search(position, table, 0, pawnTables[0], network);
+        main.setOptions(options);
+        List<Search> searches = new ArrayList<>();
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        SearchLimits helperLimits = new SearchLimits();
+        helperLimits.setDepth(limits.getDepth());
+        for (int i = 1; i < threads; i++) {
+            Search helper = new Search(position, table, i, pawnTables[i], network);
+            helper.setOptions(options);
+            searches.add(helper);
+            futures.add(helpers.submit(() -> helper.search(helperLimits)));
+        }
+
+        if (progress != null) {
+            // the helpers' counts are read while they run, so may lag a little
+            main.setProgressListener(result -> {
+                long nodes = result.getNodes();
+                for (Search helper : searches) {
+                    nodes += helper.getNodes();
+                }
+                progress.accept(new SearchResult(
+                        result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                        result.getMillis(), result.getPv()
+                ));
+            });
+        }
+        SearchResult best = main.search(limits);
+        for (Search helper : searches) {
+            helper.stop();
+        }
+        long nodes = main.getNodes();
+        for (int i = 0; i < futures.size(); i++) {
+            SearchResult result = join(futures.get(i));
+            nodes += searches.get(i).getNodes();
+            if (result.getDepth() > best.getDepth() && result.getBestMove() != Move.NONE) {
+                best = result;
+            }
+        }
+        return new SearchResult(
+                best.getBestMove(), best.getScore(), best.getDepth(), nodes,
+                best.getMillis(), best.getPv()
+        );
+    }
+
+    /**
+     * Stops the helper threads. The object may still be used after
+     * {@link #setThreads}.
+     */
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while joining a helper search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a helper search failed", e.getCause());
+        }
+    }
+}
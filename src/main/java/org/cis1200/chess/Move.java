@@ -0,0 +1,87 @@
+package org.cis1200.chess;
+
+/**
+ * Move packs everything about a chess move into a single int so move lists
+ * can be plain int arrays:
+ *
+ * <pre>
+ * bits  0-5   origin square
+ * bits  6-11  destination square
+ * bits 12-14  type of the moving piece
+ * bits 15-17  type of the captured piece, EMPTY if none
+ * bits 18-20  promotion piece type, EMPTY if none
+ * bits 21-23  DOUBLE_PUSH, EN_PASSANT and CASTLE flags
+ * </pre>
+ *
+ * Piece types are the {@link Position} constants. Zero is never a real move
+ * (origin and destination would be the same square) and is used as "no move".
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int DOUBLE_PUSH = 1 << 21;
+    public static final int EN_PASSANT = 1 << 22;
+    public static final int CASTLE = 1 << 23;
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | (to << 6) | (piece << 12) | (captured << 15) | (promotion << 18) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int piece(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static int captured(int move) {
+        return (move >>> 15) & 7;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 18) & 7;
+    }
+
+    public static boolean isCapture(int move) {
+        return captured(move) != Position.EMPTY;
+    }
+
+    public static boolean isPromotion(int move) {
+        return promotion(move) != Position.EMPTY;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. "e2e4" or "e7e8q"
+     */
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = Position.squareName(from(move)) + Position.squareName(to(move));
+        if (isPromotion(move)) {
+            text += "kqnbrp".charAt(promotion(move));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,389 @@
+package org.cis1200.chess;
+
+/**
+ * MoveGenerator fills a {@link MoveList} with the moves of the side to move.
+ * Generation writes packed ints straight into the caller's list, so it
+ * allocates nothing.
+ *
+ * {@link #generateLegal} emits only legal moves. Before generating it finds
+ * the pieces giving check and the pieces pinned to the king: in double check
+ * only the king may move, in single check every other piece must capture the
+ * checker or block the line, and a pinned piece may only move along the line
+ * through its king. King moves are tested against the board with the king
+ * lifted off, so the king cannot step back along a checking ray. En passant,
+ * which removes two pieces from a rank at once, is the one move checked by
+ * looking at the position it leaves behind.
+ *
+ * {@link #generateCaptures} and {@link #generateQuiets} work the same way
+ * but split the legal moves in two: captures and promotions, which a
+ * quiescence search looks at and a move picker tries early, and everything
+ * else. {@link #isLegal} checks a single move, such as a killer move
+ * remembered from another position, without generating any.
+ *
+ * {@link #generatePseudoLegal} skips the check and pin analysis: its moves
+ * obey how each piece moves but may leave the mover's own king in check.
+ * Castling is only ever generated when the king is not in check and does not
+ * pass over or land on an attacked square.
+ */
+public final class MoveGenerator {
+
+    // which of the legal moves to generate
+    private static final int ALL = 0;
+    private static final int CAPTURES = 1;
+    private static final int QUIETS = 2;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Fills the list with every legal move of the side to move. The list is
+     * empty exactly when the side to move is checkmated or stalemated.
+     */
+    public static void generateLegal(Position position, MoveList list) {
+        generateLegal(position, list, ALL);
+    }
+
+    /**
+     * Fills the list with every legal capture, en-passant capture and
+     * promotion of the side to move.
+     */
+    public static void generateCaptures(Position position, MoveList list) {
+        generateLegal(position, list, CAPTURES);
+    }
+
+    /**
+     * Fills the list with every legal move of the side to move that is
+     * neither a capture nor a promotion, castling included.
+     */
+    public static void generateQuiets(Position position, MoveList list) {
+        generateLegal(position, list, QUIETS);
+    }
+
+    /**
+     * Tells whether a move, packed as the generator would pack it, is legal
+     * in the position. Cheaper than generating every move when only one is to
+     * be checked, and allocates nothing, so the move picker can check the
+     * hash, killer and countermoves at every node.
+     */
+    public static boolean isLegal(Position position, int move) {
+        if (move == Move.NONE) {
+            return false;
+        }
+        int us = position.getSideToMove();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = Move.piece(move);
+        if (position.getPieceAt(from) != Position.pieceCode(us, piece)
+                || (position.getColorOccupancy(us) & (1L << to)) != 0) {
+            return false;
+        }
+        // checked as the generator checks them, without making the move
+        if (Move.isCastle(move)) {
+            int king = us == Position.WHITE ? 4 : 60;
+            boolean kingside = to == king + 2;
+            return move == castle(king, kingside)
+                    && canCastle(position, us, position.getOccupied(), kingside);
+        }
+        if (Move.isEnPassant(move)) {
+            int ep = position.getEnPassantSquare();
+            return ep != Position.NO_SQUARE && to == ep
+                    && move == Move.of(
+                            from, ep, Position.PAWN, Position.PAWN, Position.EMPTY,
+                            Move.EN_PASSANT
+                    )
+                    && (Attacks.pawnAttacks(us, from) & (1L << ep)) != 0
+                    && enPassantKeepsKing(position, from, position.getKingSquare(us));
+        }
+        if (position.getTypeAt(to) != Move.captured(move)) {
+            return false;
+        }
+        long occupied = position.getOccupied();
+        if (piece == Position.PAWN) {
+            int forward = us == Position.WHITE ? 8 : -8;
+            int rank = Position.rankOf(to);
+            if (Move.isPromotion(move) != (rank == 0 || rank == 7)) {
+                return false;
+            }
+            boolean reaches;
+            if (Move.isCapture(move)) {
+                reaches = (Attacks.pawnAttacks(us, from) & (1L << to)) != 0;
+            } else if (Move.isDoublePush(move)) {
+                reaches = to == from + 2 * forward
+                        && Position.rankOf(from) == (us == Position.WHITE ? 1 : 6)
+                        && (occupied & (1L << (from + forward))) == 0;
+            } else {
+                reaches = to == from + forward;
+            }
+            if (!reaches) {
+                return false;
+            }
+        } else if (Move.isPromotion(move) || Move.isDoublePush(move)
+                || (Attacks.attacks(piece, us, from, occupied) & (1L << to)) == 0) {
+            return false;
+        }
+        position.makeMove(move);
+        boolean legal = !position.isInCheck(us);
+        position.unmakeMove();
+        return legal;
+    }
+
+    private static void generateLegal(Position position, MoveList list, int kind) {
+        list.clear();
+        int us = position.getSideToMove();
+        int them = us ^ 1;
+        int king = position.getKingSquare(us);
+        if (king == Position.NO_SQUARE) {
+            generate(position, list, -1L, 0L, king, kind != CAPTURES, kind);
+            return;
+        }
+        long own = position.getColorOccupancy(us);
+        long occupied = position.getOccupied();
+
+        // the king must not be left on a square the other side attacks once
+        // it has moved off its own square
+        long withoutKing = occupied & ~(1L << king);
+        long targets = Attacks.kingAttacks(king) & ~own & kindMask(position, kind);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (position.attackersTo(to, them, withoutKing) == 0) {
+                list.add(Move.of(
+                        king, to, Position.KING, position.getTypeAt(to), Position.EMPTY, 0
+                ));
+            }
+        }
+
+        long checkers = position.attackersTo(king, them, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+        long target = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            target = checkers | Attacks.between(king, checker);
+        }
+        generate(
+                position, list, target, pinnedPieces(position, us, king), king,
+                checkers == 0 && kind != CAPTURES, kind
+        );
+    }
+
+    /**
+     * Fills the list with every move of the side to move that follows the
+     * movement rules of its piece, legal or not.
+     */
+    public static void generatePseudoLegal(Position position, MoveList list) {
+        list.clear();
+        generate(position, list, -1L, 0L, Position.NO_SQUARE, true, ALL);
+    }
+
+    /**
+     * @return the pieces of the given color that stand alone between their
+     *         king and an enemy slider looking at it
+     */
+    public static long pinnedPieces(Position position, int us, int king) {
+        int them = us ^ 1;
+        long own = position.getColorOccupancy(us);
+        long occupied = position.getOccupied();
+        long queens = position.getPieces(them, Position.QUEEN);
+        long snipers = (Attacks.rookAttacks(king, 0L)
+                & (position.getPieces(them, Position.ROOK) | queens))
+                | (Attacks.bishopAttacks(king, 0L)
+                        & (position.getPieces(them, Position.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    // The squares a non-pawn move of the given kind may land on
+    private static long kindMask(Position position, int kind) {
+        if (kind == CAPTURES) {
+            return position.getColorOccupancy(position.getSideToMove() ^ 1);
+        }
+        return kind == QUIETS ? ~position.getOccupied() : -1L;
+    }
+
+    // Generates the moves of the given kind of every piece but the king (and
+    // the king too when king is NO_SQUARE) that land on target. Pinned pieces
+    // are held to the line through the king.
+    private static void generate(
+            Position position, MoveList list, long target, long pinned, int king,
+            boolean castling, int kind
+    ) {
+        int us = position.getSideToMove();
+        long own = position.getColorOccupancy(us);
+        long occupied = position.getOccupied();
+        generatePawnMoves(position, list, target, pinned, king, kind);
+        target &= kindMask(position, kind);
+        int first = king == Position.NO_SQUARE ? Position.KING : Position.QUEEN;
+        for (int type = first; type <= Position.ROOK; type++) {
+            long pieces = position.getPieces(us, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long moves = Attacks.attacks(type, us, from, occupied) & ~own & target;
+                if ((pinned & (1L << from)) != 0) {
+                    moves &= Attacks.line(king, from);
+                }
+                addMoves(position, list, from, type, moves);
+            }
+        }
+        if (castling) {
+            generateCastling(position, list, us, occupied);
+        }
+    }
+
+    // Captures take every promotion and no other push; quiets take every
+    // other push and no capture
+    private static void generatePawnMoves(
+            Position position, MoveList list, long target, long pinned, int king, int kind
+    ) {
+        int us = position.getSideToMove();
+        long enemy = position.getColorOccupancy(us ^ 1);
+        long occupied = position.getOccupied();
+        int forward = us == Position.WHITE ? 8 : -8;
+        int startRank = us == Position.WHITE ? 1 : 6;
+
+        long pawns = position.getPieces(us, Position.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = target;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Attacks.line(king, from);
+            }
+
+            int single = from + forward;
+            boolean promotes = Position.rankOf(single) == 0 || Position.rankOf(single) == 7;
+            if ((occupied & (1L << single)) == 0
+                    && (kind == ALL || (kind == CAPTURES) == promotes)) {
+                if ((allowed & (1L << single)) != 0) {
+                    addPawnMove(list, from, single, Position.EMPTY);
+                }
+                int twice = single + forward;
+                if (kind != CAPTURES && Position.rankOf(from) == startRank
+                        && (occupied & (1L << twice)) == 0
+                        && (allowed & (1L << twice)) != 0) {
+                    list.add(Move.of(
+                            from, twice, Position.PAWN, Position.EMPTY, Position.EMPTY,
+                            Move.DOUBLE_PUSH
+                    ));
+                }
+            }
+
+            if (kind == QUIETS) {
+                continue;
+            }
+            long captures = Attacks.pawnAttacks(us, from) & enemy & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(list, from, to, position.getTypeAt(to));
+            }
+        }
+        if (kind != QUIETS) {
+            generateEnPassant(position, list, king);
+        }
+    }
+
+    // En passant empties two squares of one rank, which can expose the king
+    // along that rank even when neither pawn is pinned on its own, so each
+    // capture is tested on the occupancy it leaves behind
+    private static void generateEnPassant(Position position, MoveList list, int king) {
+        int ep = position.getEnPassantSquare();
+        if (ep == Position.NO_SQUARE) {
+            return;
+        }
+        int us = position.getSideToMove();
+        long capturers = Attacks.pawnAttacks(us ^ 1, ep) & position.getPieces(us, Position.PAWN);
+        while (capturers != 0) {
+            int from = Long.numberOfTrailingZeros(capturers);
+            capturers &= capturers - 1;
+            if (enPassantKeepsKing(position, from, king)) {
+                list.add(Move.of(
+                        from, ep, Position.PAWN, Position.PAWN, Position.EMPTY, Move.EN_PASSANT
+                ));
+            }
+        }
+    }
+
+    // Whether the pawn on from can take en passant without leaving its king
+    // attacked, on the occupancy the capture leaves behind
+    private static boolean enPassantKeepsKing(Position position, int from, int king) {
+        if (king == Position.NO_SQUARE) {
+            return true;
+        }
+        int us = position.getSideToMove();
+        int ep = position.getEnPassantSquare();
+        int victim = ep + (us == Position.WHITE ? -8 : 8);
+        long after = (position.getOccupied() & ~(1L << from) & ~(1L << victim)) | (1L << ep);
+        return (position.attackersTo(king, us ^ 1, after) & ~(1L << victim)) == 0;
+    }
+
+    // Adds a pawn move, expanded into the four promotions on the last rank
+    private static void addPawnMove(MoveList list, int from, int to, int captured) {
+        int rank = Position.rankOf(to);
+        if (rank == 0 || rank == 7) {
+            list.add(Move.of(from, to, Position.PAWN, captured, Position.QUEEN, 0));
+            list.add(Move.of(from, to, Position.PAWN, captured, Position.ROOK, 0));
+            list.add(Move.of(from, to, Position.PAWN, captured, Position.BISHOP, 0));
+            list.add(Move.of(from, to, Position.PAWN, captured, Position.KNIGHT, 0));
+        } else {
+            list.add(Move.of(from, to, Position.PAWN, captured, Position.EMPTY, 0));
+        }
+    }
+
+    private static void addMoves(
+            Position position, MoveList list, int from, int type, long targets
+    ) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            list.add(Move.of(from, to, type, position.getTypeAt(to), Position.EMPTY, 0));
+        }
+    }
+
+    private static void generateCastling(Position position, MoveList list, int us, long occupied) {
+        int king = us == Position.WHITE ? 4 : 60;
+        if (canCastle(position, us, occupied, true)) {
+            list.add(castle(king, true));
+        }
+        if (canCastle(position, us, occupied, false)) {
+            list.add(castle(king, false));
+        }
+    }
+
+    // Whether the side has the right to castle, the squares between king and
+    // rook are empty, and the king neither stands on nor crosses an attacked
+    // square
+    private static boolean canCastle(Position position, int us, long occupied, boolean kingside) {
+        int king = us == Position.WHITE ? 4 : 60;
+        int right;
+        if (kingside) {
+            right = us == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        } else {
+            right = us == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        }
+        int step = kingside ? 1 : -1;
+        int them = us ^ 1;
+        return (position.getCastlingRights() & right) != 0
+                && (occupied & Attacks.between(king, kingside ? king + 3 : king - 4)) == 0
+                && !position.isSquareAttacked(king, them)
+                && !position.isSquareAttacked(king + step, them)
+                && !position.isSquareAttacked(king + 2 * step, them);
+    }
+
+    private static int castle(int king, boolean kingside) {
+        return Move.of(
+                king, kingside ? king + 2 : king - 2, Position.KING, Position.EMPTY,
+                Position.EMPTY, Move.CASTLE
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package org.cis1200.chess;
+
+/**
+ * MoveList is a reusable, fixed-capacity list of packed {@link Move}s. No
+ * legal chess position has more than 218 moves, so a list never needs to
+ * grow; callers keep one list per search ply and clear it instead of
+ * allocating a new one.
+ */
+public class MoveList {
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
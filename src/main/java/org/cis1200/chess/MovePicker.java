@@ -0,0 +1,288 @@
+package org.cis1200.chess;
+
+/**
+ * MovePicker hands the search the moves of one node one at a time, best
+ * guesses first, and generates each group of moves only when the ones before
+ * it have failed to cut the node off. The stages are:
+ * <ol>
+ * <li>the hash move from the transposition table;</li>
+ * <li>captures and promotions that do not lose material by static exchange,
+ * most valuable victim first, then least valuable attacker;</li>
+ * <li>the two killer moves, quiet moves that cut off a sibling node;</li>
+ * <li>the countermove, the quiet move that last refuted the opponent's
+ * previous move;</li>
+ * <li>the remaining quiet moves by butterfly history, how often each
+ * from-to pair has cut off before;</li>
+ * <li>the captures that lose material.</li>
+ * </ol>
+ * The hash, killer and countermoves come from other positions, so each is
+ * checked with {@link MoveGenerator#isLegal} before it is handed out, and
+ * skipped when it turns up again among the generated moves.
+ *
+ * A side in check has few moves, so all of them are generated at once and
+ * ordered in one go. The quiescence search uses the capture stage alone and
+ * drops the losing captures.
+ *
+ * A search keeps one picker per ply. The history table belongs to the search
+ * and is shared by its pickers but never between threads.
+ */
+public class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTERMOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int GENERATE_EVASIONS = 9;
+    private static final int EVASIONS = 10;
+    private static final int GENERATE_QUIESCENCE = 11;
+    private static final int QUIESCENCE = 12;
+    private static final int DONE = 13;
+
+    // evasions: the hash move, then captures, then quiets by history
+    private static final int HASH_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+
+    private final MoveList captures = new MoveList();
+    private final int[] captureScores = new int[MoveList.CAPACITY];
+    private final MoveList quiets = new MoveList();
+    private final int[] quietScores = new int[MoveList.CAPACITY];
+    private final int[] badCaptures = new int[MoveList.CAPACITY];
+    private final int[] exchangeGains = new int[StaticExchange.MAX_CAPTURES];
+    private final int[] history;
+    private final int threadIndex;
+
+    private Position position;
+    private int stage;
+    private int index;
+    private int badCount;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int countermove;
+
+    /**
+     * @param history     butterfly history indexed by {@link #historyIndex}
+     * @param threadIndex above zero for a Lazy SMP helper, whose quiet moves
+     *                    get a small shuffle of their own
+     */
+    public MovePicker(int[] history, int threadIndex) {
+        this.history = history;
+        this.threadIndex = threadIndex;
+    }
+
+    /**
+     * Starts picking the moves of a node of the main search.
+     */
+    public void init(
+            Position position, boolean inCheck, int hashMove, int firstKiller,
+            int secondKiller, int countermove
+    ) {
+        this.position = position;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.countermove = countermove;
+        stage = inCheck ? GENERATE_EVASIONS : HASH;
+    }
+
+    /**
+     * Starts picking the captures and promotions of a quiescence node that is
+     * not in check. Losing captures are left out.
+     */
+    public void initQuiescence(Position position) {
+        this.position = position;
+        hashMove = Move.NONE;
+        firstKiller = Move.NONE;
+        secondKiller = Move.NONE;
+        countermove = Move.NONE;
+        stage = GENERATE_QUIESCENCE;
+    }
+
+    /**
+     * @return the next move to search, or {@link Move#NONE} when there are no
+     *         more
+     */
+    public int next() {
+        switch (stage) {
+            case HASH:
+                stage = GENERATE_CAPTURES;
+                if (MoveGenerator.isLegal(position, hashMove)) {
+                    return hashMove;
+                }
+                return next();
+            case GENERATE_CAPTURES:
+            case GENERATE_QUIESCENCE:
+                MoveGenerator.generateCaptures(position, captures);
+                scoreCaptures();
+                index = 0;
+                badCount = 0;
+                stage = stage == GENERATE_CAPTURES ? GOOD_CAPTURES : QUIESCENCE;
+                return next();
+            case GOOD_CAPTURES:
+            case QUIESCENCE:
+                while (index < captures.size()) {
+                    int move = pick(captures, captureScores, index++);
+                    if (move == hashMove) {
+                        continue;
+                    }
+                    if (StaticExchange.evaluate(position, move, exchangeGains) < 0) {
+                        if (stage == GOOD_CAPTURES) {
+                            badCaptures[badCount++] = move;
+                        }
+                        continue;
+                    }
+                    return move;
+                }
+                if (stage == QUIESCENCE) {
+                    stage = DONE;
+                    return Move.NONE;
+                }
+                stage = FIRST_KILLER;
+                return next();
+            case FIRST_KILLER:
+                stage = SECOND_KILLER;
+                if (isLegalQuiet(firstKiller)) {
+                    return firstKiller;
+                }
+                return next();
+            case SECOND_KILLER:
+                stage = COUNTERMOVE;
+                if (secondKiller != firstKiller && isLegalQuiet(secondKiller)) {
+                    return secondKiller;
+                }
+                return next();
+            case COUNTERMOVE:
+                stage = GENERATE_QUIETS;
+                if (countermove != firstKiller && countermove != secondKiller
+                        && isLegalQuiet(countermove)) {
+                    return countermove;
+                }
+                return next();
+            case GENERATE_QUIETS:
+                MoveGenerator.generateQuiets(position, quiets);
+                scoreQuiets();
+                index = 0;
+                stage = QUIETS;
+                return next();
+            case QUIETS:
+                while (index < quiets.size()) {
+                    int move = pick(quiets, quietScores, index++);
+                    if (move != hashMove && move != firstKiller && move != secondKiller
+                            && move != countermove) {
+                        return move;
+                    }
+                }
+                index = 0;
+                stage = BAD_CAPTURES;
+                return next();
+            case BAD_CAPTURES:
+                if (index < badCount) {
+                    return badCaptures[index++];
+                }
+                stage = DONE;
+                return Move.NONE;
+            case GENERATE_EVASIONS:
+                MoveGenerator.generateLegal(position, quiets);
+                scoreEvasions();
+                index = 0;
+                stage = EVASIONS;
+                return next();
+            case EVASIONS:
+                if (index < quiets.size()) {
+                    return pick(quiets, quietScores, index++);
+                }
+                stage = DONE;
+                return Move.NONE;
+            default:
+                return Move.NONE;
+        }
+    }
+
+    /**
+     * @return true for a move that is neither a capture nor a promotion, the
+     *         only moves killers, countermoves and history deal with
+     */
+    public static boolean isQuiet(int move) {
+        return !Move.isCapture(move) && !Move.isPromotion(move);
+    }
+
+    /**
+     * @return the butterfly history slot of a move of the given side
+     */
+    public static int historyIndex(int color, int move) {
+        return color << 12 | Move.from(move) << 6 | Move.to(move);
+    }
+
+    private boolean isLegalQuiet(int move) {
+        return move != Move.NONE && move != hashMove && isQuiet(move)
+                && MoveGenerator.isLegal(position, move);
+    }
+
+    private static int mvvLva(int move) {
+        int score = Evaluation.value(Move.captured(move)) * 8
+                - Evaluation.value(Move.piece(move)) / 100;
+        if (Move.isPromotion(move)) {
+            score += Evaluation.value(Move.promotion(move));
+        }
+        return score;
+    }
+
+    private void scoreCaptures() {
+        for (int i = 0; i < captures.size(); i++) {
+            captureScores[i] = mvvLva(captures.get(i));
+        }
+    }
+
+    private int quietScore(int move, int side) {
+        int score = history[historyIndex(side, move)];
+        if (threadIndex > 0) {
+            // a fixed shuffle of the quiet moves, different for each helper
+            score += ((move ^ threadIndex * 0x9E3779B1) * 0x85EBCA6B) >>> 26;
+        }
+        return score;
+    }
+
+    private void scoreQuiets() {
+        int side = position.getSideToMove();
+        for (int i = 0; i < quiets.size(); i++) {
+            quietScores[i] = quietScore(quiets.get(i), side);
+        }
+    }
+
+    private void scoreEvasions() {
+        int side = position.getSideToMove();
+        for (int i = 0; i < quiets.size(); i++) {
+            int move = quiets.get(i);
+            if (move == hashMove) {
+                quietScores[i] = HASH_SCORE;
+            } else if (isQuiet(move)) {
+                quietScores[i] = quietScore(move, side);
+            } else {
+                quietScores[i] = CAPTURE_SCORE + mvvLva(move);
+            }
+        }
+    }
+
+    // Swaps the best scored move left in the list into slot i
+    private static int pick(MoveList list, int[] scores, int i) {
+        int best = i;
+        for (int j = i + 1; j < list.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = list.get(best);
+            list.set(best, list.get(i));
+            list.set(i, move);
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+        }
+        return list.get(i);
+    }
+}
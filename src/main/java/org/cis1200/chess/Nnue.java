@@ -0,0 +1,232 @@
+package org.cis1200.chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Nnue is an efficiently updatable neural network that evaluates a position
+ * in place of the hand-written terms of {@link Evaluation}. It is optional:
+ * the engine only uses one when a network file is given, and falls back to
+ * the classical evaluation otherwise.
+ *
+ * The network is small enough to run on any CPU without special support:
+ * <ul>
+ * <li>the input is HalfKP, one feature for every piece other than the kings,
+ * on every square, for every square of the king of the side whose point of
+ * view it is. Each side's view is mirrored so that side plays up the
+ * board;</li>
+ * <li>the first layer turns each side's active features into an accumulator
+ * of {@code hidden} int16 values. Only the weights of the features a move
+ * changes are added or subtracted, see {@link NnueAccumulator};</li>
+ * <li>the output layer reads both accumulators, the side to move's first,
+ * through a clipped ReLU, and gives the score.</li>
+ * </ul>
+ *
+ * The weights are int16, quantised by {@link #QA} in the first layer and
+ * {@link #QB} in the output layer, and the file is little-endian: the magic
+ * number and version as ints, the hidden size as an int, the feature weights
+ * (feature-major), the feature biases, the output weights and the output
+ * bias as an int. The arithmetic is scalar; the Vector API would speed it up
+ * but is still an incubator module on this JDK.
+ *
+ * A network is immutable once loaded, so all search threads share one.
+ */
+public class Nnue {
+    public static final int MAGIC = 0x4A434E4E;
+    public static final int VERSION = 1;
+    // piece kinds other than the kings, each side's
+    public static final int PIECES = 10;
+    public static final int FEATURES = 64 * PIECES * 64;
+    // the first layer clips at QA, the output weights are scaled by QB
+    public static final int QA = 255;
+    public static final int QB = 64;
+    // centipawns per unit of the network's output
+    public static final int SCALE = 400;
+
+    private static Nnue defaultNetwork;
+    private static boolean defaultLoaded;
+
+    private final int hidden;
+    private final short[] featureWeights;
+    private final short[] featureBiases;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    /**
+     * @param featureWeights {@code FEATURES * hidden} weights, those of each
+     *                       feature together
+     * @param featureBiases  {@code hidden} biases
+     * @param outputWeights  {@code 2 * hidden} weights, the side to move's
+     *                       first
+     */
+    public Nnue(
+            int hidden, short[] featureWeights, short[] featureBiases, short[] outputWeights,
+            int outputBias
+    ) {
+        if (hidden <= 0 || featureWeights.length != FEATURES * hidden
+                || featureBiases.length != hidden || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("network layers do not match their sizes");
+        }
+        this.hidden = hidden;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network file.
+     *
+     * @throws IOException if it cannot be read or is not a network file
+     */
+    public static Nnue load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("network file too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the whole file is in
+            }
+            buffer.flip();
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION) {
+                throw new IOException("not a network file: " + file);
+            }
+            int hidden = buffer.getInt();
+            long expected = 2L * (FEATURES * (long) hidden + 3L * hidden) + 4;
+            if (hidden <= 0 || buffer.remaining() != expected) {
+                throw new IOException("network file has the wrong size: " + file);
+            }
+            short[] featureWeights = new short[FEATURES * hidden];
+            short[] featureBiases = new short[hidden];
+            short[] outputWeights = new short[2 * hidden];
+            buffer.asShortBuffer().get(featureWeights);
+            buffer.position(buffer.position() + 2 * featureWeights.length);
+            buffer.asShortBuffer().get(featureBiases);
+            buffer.position(buffer.position() + 2 * featureBiases.length);
+            buffer.asShortBuffer().get(outputWeights);
+            buffer.position(buffer.position() + 2 * outputWeights.length);
+            int outputBias = buffer.getInt();
+            return new Nnue(hidden, featureWeights, featureBiases, outputWeights, outputBias);
+        }
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads.
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(
+                12 + 2 * (featureWeights.length + featureBiases.length + outputWeights.length)
+                        + 4
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden);
+        for (short weight : featureWeights) {
+            buffer.putShort(weight);
+        }
+        for (short bias : featureBiases) {
+            buffer.putShort(bias);
+        }
+        for (short weight : outputWeights) {
+            buffer.putShort(weight);
+        }
+        buffer.putInt(outputBias);
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * @return the network named by the {@code chess.nnue} system property,
+     *         loaded the first time it is asked for, or null if none is named
+     *         or it cannot be loaded
+     */
+    public static synchronized Nnue getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            String file = System.getProperty("chess.nnue", "");
+            if (!file.isEmpty()) {
+                try {
+                    defaultNetwork = load(Paths.get(file));
+                } catch (IOException e) {
+                    System.err.println("Error loading network, using classical evaluation: "
+                            + e.getMessage());
+                }
+            }
+        }
+        return defaultNetwork;
+    }
+
+    /**
+     * @param perspective the color whose view the feature is in
+     * @param king        the square of that color's king
+     * @param code        the piece code, not a king
+     * @param sq          the square of the piece
+     * @return the index of the feature
+     */
+    public static int feature(int perspective, int king, int code, int sq) {
+        // black sees the board upside down, so both sides play up it
+        int flip = perspective == Position.WHITE ? 0 : 56;
+        int own = Position.colorOf(code) == perspective ? 0 : 5;
+        int piece = own + Position.typeOf(code) - Position.QUEEN;
+        return (((king ^ flip) * PIECES + piece) << 6) + (sq ^ flip);
+    }
+
+    public int getHidden() {
+        return hidden;
+    }
+
+    /**
+     * Sets an accumulator to the biases, as for a board with no features.
+     */
+    void reset(short[] accumulator) {
+        System.arraycopy(featureBiases, 0, accumulator, 0, hidden);
+    }
+
+    /**
+     * Adds the weights of a feature to an accumulator.
+     */
+    void add(short[] accumulator, int feature) {
+        int offset = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] += featureWeights[offset + i];
+        }
+    }
+
+    /**
+     * Subtracts the weights of a feature from an accumulator.
+     */
+    void subtract(short[] accumulator, int feature) {
+        int offset = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] -= featureWeights[offset + i];
+        }
+    }
+
+    /**
+     * Runs the output layer.
+     *
+     * @param us   the side to move's accumulator
+     * @param them the other side's accumulator
+     * @return the score in centipawns, positive when the side to move stands
+     *         better
+     */
+    int output(short[] us, short[] them) {
+        long sum = 0;
+        for (int i = 0; i < hidden; i++) {
+            sum += clip(us[i]) * outputWeights[i] + clip(them[i]) * outputWeights[hidden + i];
+        }
+        long score = (sum + outputBias) * SCALE / (QA * QB);
+        int bound = Search.MATE_BOUND - 1;
+        return (int) Math.max(-bound, Math.min(score, bound));
+    }
+
+    private static int clip(short value) {
+        return Math.max(0, Math.min(value, QA));
+    }
+}
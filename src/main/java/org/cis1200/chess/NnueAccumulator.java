@@ -0,0 +1,115 @@
+package org.cis1200.chess;
+
+/**
+ * NnueAccumulator holds the first layer of an {@link Nnue} network for one
+ * position: an accumulator for each side's point of view. Once attached to a
+ * {@link Position} it is told of every piece put on or taken off the board,
+ * so making or taking back a move adds or subtracts the weights of the few
+ * features the move changes, and never sums every piece again.
+ *
+ * The exception is a king move, which changes every feature of its own side.
+ * That side's accumulator is then marked stale and rebuilt from the board
+ * when the position is next evaluated; the other side's goes on being
+ * updated as usual.
+ *
+ * An accumulator belongs to one position and so to one search thread.
+ */
+public class NnueAccumulator {
+    private final Nnue network;
+    private final short[][] values;
+    private final boolean[] stale = { true, true };
+
+    public NnueAccumulator(Nnue network) {
+        this.network = network;
+        values = new short[2][network.getHidden()];
+    }
+
+    public Nnue getNetwork() {
+        return network;
+    }
+
+    /**
+     * Marks both sides stale, for a position the accumulator has not followed.
+     */
+    public void invalidate() {
+        stale[Position.WHITE] = true;
+        stale[Position.BLACK] = true;
+    }
+
+    /**
+     * @return true when the position has both kings, which every feature is
+     *         relative to
+     */
+    public static boolean canEvaluate(Position position) {
+        return position.getKingSquare(Position.WHITE) != Position.NO_SQUARE
+                && position.getKingSquare(Position.BLACK) != Position.NO_SQUARE;
+    }
+
+    /**
+     * Evaluates the position, which must be the one the accumulator is
+     * attached to and have both kings.
+     *
+     * @return the score in centipawns, positive when the side to move stands
+     *         better
+     */
+    public int evaluate(Position position) {
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            if (stale[color]) {
+                refresh(position, color);
+            }
+        }
+        int us = position.getSideToMove();
+        return network.output(values[us], values[us ^ 1]);
+    }
+
+    /**
+     * Rebuilds a side's accumulator from every piece on the board.
+     */
+    public void refresh(Position position, int perspective) {
+        short[] accumulator = values[perspective];
+        network.reset(accumulator);
+        int king = position.getKingSquare(perspective);
+        long pieces = position.getOccupied()
+                & ~position.getPieces(Position.WHITE, Position.KING)
+                & ~position.getPieces(Position.BLACK, Position.KING);
+        while (pieces != 0) {
+            int sq = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            network.add(accumulator, Nnue.feature(perspective, king, position.getPieceAt(sq), sq));
+        }
+        stale[perspective] = false;
+    }
+
+    /**
+     * Called by the position once a piece has been put on a square.
+     */
+    void pieceAdded(Position position, int code, int sq) {
+        update(position, code, sq, true);
+    }
+
+    /**
+     * Called by the position once a piece has been taken off a square.
+     */
+    void pieceRemoved(Position position, int code, int sq) {
+        update(position, code, sq, false);
+    }
+
+    private void update(Position position, int code, int sq, boolean added) {
+        if (Position.typeOf(code) == Position.KING) {
+            stale[Position.colorOf(code)] = true;
+            return;
+        }
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            if (stale[color]) {
+                // rebuilt before it is next read
+                continue;
+            }
+            int feature = Nnue.feature(color, position.getKingSquare(color), code, sq);
+            if (added) {
+                network.add(values[color], feature);
+            } else {
+                network.subtract(values[color], feature);
+            }
+        }
+    }
+}
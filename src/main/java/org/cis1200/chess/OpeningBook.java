@@ -0,0 +1,326 @@
+package org.cis1200.chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * OpeningBook reads an opening book in the Polyglot format: a file of
+ * 16-byte entries, big-endian, sorted by key,
+ *
+ * <pre>
+ * bytes  0-7   key of the position
+ * bytes  8-9   move
+ * bytes 10-11  weight, how often the move is to be chosen
+ * bytes 12-15  learning data, unused
+ * </pre>
+ *
+ * with a move packed as
+ *
+ * <pre>
+ * bits  0-5   destination square
+ * bits  6-11  origin square
+ * bits 12-14  promotion: 0 none, 1 knight, 2 bishop, 3 rook, 4 queen
+ * </pre>
+ *
+ * and castling written as the king taking its own rook, e1h1 for white's
+ * short castle. Squares are numbered as in {@link Position}.
+ *
+ * The file is memory-mapped rather than read, so opening even a book of
+ * gigabytes costs nothing, and the operating system pages in only the
+ * entries a lookup touches. A lookup is a binary search over the mapping
+ * that neither copies nor allocates, and a position's moves are matched
+ * against one list of its legal moves. A mapping holds at most 2 GB, so a
+ * larger book is mapped in several segments.
+ *
+ * Positions are looked up by their Polyglot key, {@link #polyglotKey},
+ * which is built from Polyglot's own random numbers rather than the
+ * engine's, so books made by other programs are read as they are.
+ *
+ * A book can be shared between threads.
+ */
+public class OpeningBook {
+    public static final int ENTRY_BYTES = 16;
+
+    // 2^26 entries, one gigabyte, to a segment
+    private static final int SEGMENT_SHIFT = 26;
+
+    private static final int[] PROMOTIONS = {
+        Position.EMPTY, Position.KNIGHT, Position.BISHOP, Position.ROOK, Position.QUEEN
+    };
+    // Polyglot's piece kinds, indexed by the engine's piece type: pawn 0,
+    // knight 1, bishop 2, rook 3, queen 4, king 5
+    private static final int[] KINDS = { 5, 4, 1, 2, 3, 0 };
+    // in the order of Polyglot's castling numbers
+    private static final int[] CASTLING_RIGHTS = {
+        Position.WHITE_KINGSIDE, Position.WHITE_QUEENSIDE, Position.BLACK_KINGSIDE,
+        Position.BLACK_QUEENSIDE
+    };
+
+    private static OpeningBook defaultBook;
+    private static boolean defaultLoaded;
+
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long size;
+
+    private OpeningBook(ByteBuffer[] segments, int segmentShift, long size) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file.
+     *
+     * @throws IOException if the file cannot be read or is not a whole
+     *                     number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return open(file, SEGMENT_SHIFT);
+    }
+
+    // segmentShift is the log of the entries to a segment, made small by the
+    // tests to cross segments
+    static OpeningBook open(Path file, int segmentShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % ENTRY_BYTES != 0) {
+                throw new IOException("not an opening book: " + file);
+            }
+            long size = bytes / ENTRY_BYTES;
+            long segmentBytes = (long) ENTRY_BYTES << segmentShift;
+            int count = (int) ((bytes + segmentBytes - 1) / segmentBytes);
+            ByteBuffer[] segments = new ByteBuffer[count];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * segmentBytes;
+                // the mapping stays valid once the channel is closed
+                segments[i] = channel.map(
+                        FileChannel.MapMode.READ_ONLY, start, Math.min(segmentBytes, bytes - start)
+                );
+            }
+            return new OpeningBook(segments, segmentShift, size);
+        }
+    }
+
+    /**
+     * @return the book named by the {@code chess.book} system property,
+     *         opened the first time it is asked for, or null if none is named
+     *         or it cannot be opened
+     */
+    public static synchronized OpeningBook getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            String file = System.getProperty("chess.book", "");
+            if (!file.isEmpty()) {
+                try {
+                    defaultBook = open(Paths.get(file));
+                } catch (IOException e) {
+                    System.err.println("Error opening book, playing without: " + e.getMessage());
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public long size() {
+        return size;
+    }
+
+    public long getKey(long entry) {
+        return segment(entry).getLong(offset(entry));
+    }
+
+    /**
+     * @return the move of the entry, packed as Polyglot packs it
+     */
+    public int getMove(long entry) {
+        return segment(entry).getShort(offset(entry) + 8) & 0xFFFF;
+    }
+
+    public int getWeight(long entry) {
+        return segment(entry).getShort(offset(entry) + 10) & 0xFFFF;
+    }
+
+    private ByteBuffer segment(long entry) {
+        return segments[(int) (entry >>> segmentShift)];
+    }
+
+    private int offset(long entry) {
+        return (int) (entry & ((1L << segmentShift) - 1)) * ENTRY_BYTES;
+    }
+
+    /**
+     * Binary searches the book for the first entry of a position. The entries
+     * of the position follow it, up to the first with another key.
+     *
+     * @return the entry, or -1 if the position is not in the book
+     */
+    public long find(long key) {
+        long low = 0;
+        long high = size;
+        // keys are sorted as unsigned numbers
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && getKey(low) == key ? low : -1;
+    }
+
+    /**
+     * Chooses one of the book's moves in the position at random, each with a
+     * chance in proportion to its weight. Moves of weight zero are never
+     * chosen, nor are moves that are not legal in the position.
+     *
+     * @return the move, or {@link Move#NONE} if the book has none
+     */
+    public int choose(Position position, Random random) {
+        return choose(position, random, new MoveList());
+    }
+
+    /**
+     * Chooses a move as {@link #choose(Position, Random)} does, generating
+     * the position's legal moves into a list of the caller's.
+     */
+    public int choose(Position position, Random random, MoveList legal) {
+        long key = polyglotKey(position);
+        long first = find(key);
+        if (first < 0) {
+            return Move.NONE;
+        }
+        MoveGenerator.generateLegal(position, legal);
+        long total = 0;
+        for (long entry = first; entry < size && getKey(entry) == key; entry++) {
+            if (toMove(legal, getMove(entry)) != Move.NONE) {
+                total += getWeight(entry);
+            }
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (long entry = first; entry < size && getKey(entry) == key; entry++) {
+            int move = toMove(legal, getMove(entry));
+            if (move != Move.NONE) {
+                pick -= getWeight(entry);
+                if (pick < 0) {
+                    return move;
+                }
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * @return the position's key as Polyglot computes it. The en-passant file
+     *         counts only when a pawn of the side to move stands beside the
+     *         pawn that has just moved two squares, ready to take it.
+     */
+    public static long polyglotKey(Position position) {
+        long key = 0L;
+        long pieces = position.getOccupied();
+        while (pieces != 0) {
+            int sq = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int code = position.getPieceAt(sq);
+            int kind = 2 * KINDS[Position.typeOf(code)]
+                    + (Position.colorOf(code) == Position.WHITE ? 1 : 0);
+            key ^= PolyglotRandom.VALUES[64 * kind + sq];
+        }
+        for (int i = 0; i < CASTLING_RIGHTS.length; i++) {
+            if ((position.getCastlingRights() & CASTLING_RIGHTS[i]) != 0) {
+                key ^= PolyglotRandom.VALUES[PolyglotRandom.CASTLING + i];
+            }
+        }
+        int us = position.getSideToMove();
+        int ep = position.getEnPassantSquare();
+        if (ep != Position.NO_SQUARE
+                && (Attacks.pawnAttacks(us ^ 1, ep) & position.getPieces(us, Position.PAWN)) != 0) {
+            key ^= PolyglotRandom.VALUES[PolyglotRandom.EN_PASSANT + Position.fileOf(ep)];
+        }
+        if (us == Position.WHITE) {
+            key ^= PolyglotRandom.VALUES[PolyglotRandom.WHITE_TO_MOVE];
+        }
+        return key;
+    }
+
+    /**
+     * Unpacks a Polyglot move by finding it among the legal moves of the
+     * position.
+     *
+     * @return the move, or {@link Move#NONE} if it is not among them
+     */
+    public static int toMove(MoveList legal, int bookMove) {
+        for (int i = 0; i < legal.size(); i++) {
+            if (toBookMove(legal.get(i)) == bookMove) {
+                return legal.get(i);
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Packs a move as Polyglot packs it.
+     */
+    public static int toBookMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastle(move)) {
+            // written as the king taking the rook in the corner
+            to = to > from ? to + 1 : to - 2;
+        }
+        int promotion = 0;
+        while (PROMOTIONS[promotion] != Move.promotion(move)) {
+            promotion++;
+        }
+        return to | (from << 6) | (promotion << 12);
+    }
+
+    /**
+     * Writes a book of the given entries, sorting them by key, and by weight
+     * from the highest within a position.
+     *
+     * @param keys    the positions' keys, from {@link #polyglotKey}
+     * @param moves   the moves, in the engine's packing
+     * @param weights the moves' weights, up to 65535
+     */
+    public static void write(Path file, long[] keys, int[] moves, int[] weights)
+            throws IOException {
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, Long>comparing(
+                i -> keys[i], Long::compareUnsigned
+        ).thenComparing(i -> -weights[i]));
+        ByteBuffer buffer = ByteBuffer.allocate(keys.length * ENTRY_BYTES);
+        for (int i : order) {
+            buffer.putLong(keys[i]);
+            buffer.putShort((short) toBookMove(moves[i]));
+            buffer.putShort((short) weights[i]);
+            buffer.putInt(0);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -4,80 +4,37 @@ public class Pawn extends Piece {
 
     private boolean firstMoveMade = false;
 
-    public Pawn(int xPos, int yPos, int wid, int hei, ChessColor chessColor) {
-        super(
-                xPos, yPos, wid, hei, chessColor, 1,
-                "files/whitePawn.png", "files/blackPawn.png", Pieces.PAWN
-        );
+    public Pawn(int square, ChessColor chessColor) {
+        super(square, chessColor, 1, Pieces.PAWN);
     }
 
     @Override
-    public void setPosition(Coords destination) {
-        super.setPosition(destination);
+    public void setSquare(int square) {
+        super.setSquare(square);
         firstMoveMade = true;
     }
 
     @Override
     public boolean validMove(BoardSquare destination) {
-        int targetX = destination.getX();
-        int targetY = destination.getY();
-        int dx = targetX - getX();
-        int dy = targetY - getY();
-        if (targetX == this.getX() & targetY == this.getY()) {
+        int dx = Position.fileOf(destination.getSquare()) - Position.fileOf(getSquare());
+        int dy = Position.rankOf(destination.getSquare()) - Position.rankOf(getSquare());
+        // ranks gained towards the far side of the board
+        int forward = getColor() == ChessColor.WHITE ? dy : -dy;
+        if (dx == 0 && dy == 0) {
             return true;
         }
 
-        if (destination.getPieceColour().equals(getColor())
-                || (Math.abs(dx) > ChessArena.getPieceSize()) ||
-                (Math.abs(dy) > 3 * ChessArena.getPieceSize())) {
+        if (destination.getPieceColour().equals(getColor()) || Math.abs(dx) > 1) {
             return false;
-        } else {
-            boolean capture = ((destination.getPieceColour() == ChessColor.WHITE)
-                    && (getColor() == ChessColor.BLACK) &&
-                    (Math.abs(dx) == ChessArena.getPieceSize())
-                    && (Math.abs(dy) == ChessArena.getPieceSize())) ||
-                    ((destination.getPieceColour() == ChessColor.BLACK)
-                            && (getColor() == ChessColor.WHITE) &&
-                            (Math.abs(dx) == ChessArena.getPieceSize())
-                            && (Math.abs(dy) == ChessArena.getPieceSize()));
-            if (capture) {
-                if (getColor() == ChessColor.WHITE) {
-                    return (dy == (-1 * ChessArena.getPieceSize()));
-                } else {
-                    return (dy == (ChessArena.getPieceSize()));
-                }
-            } else {
-                if (firstMoveMade) {
-                    if (dx != 0) {
-                        return false;
-                    }
-                    if (destination.getPieceColour().equals(ChessColor.EMPTY)) {
-                        if (getColor() == ChessColor.WHITE) {
-                            return (dy == (-1 * ChessArena.getPieceSize()));
-                        } else {
-                            return (dy == (ChessArena.getPieceSize()));
-                        }
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (dx != 0) {
-                        return false;
-                    }
-                    if (destination.getPieceColour().equals(ChessColor.EMPTY)) {
-                        if (getColor() == ChessColor.WHITE) {
-                            return (dy == (-1 * ChessArena.getPieceSize()))
-                                    || (dy == (-2 * ChessArena.getPieceSize()));
-                        } else {
-                            return (dy == (ChessArena.getPieceSize()))
-                                    || (dy == (2 * ChessArena.getPieceSize()));
-                        }
-                    } else {
-                        return false;
-                    }
-                }
-            }
         }
+        boolean capture = destination.getPieceColour() != ChessColor.EMPTY && Math.abs(dx) == 1;
+        if (capture) {
+            return forward == 1;
+        }
+        if (dx != 0 || !destination.getPieceColour().equals(ChessColor.EMPTY)) {
+            return false;
+        }
+        return forward == 1 || (!firstMoveMade && forward == 2);
     }
 
     public boolean isFirstMoveMade() {
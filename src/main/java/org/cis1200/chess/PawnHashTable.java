@@ -0,0 +1,111 @@
+package org.cis1200.chess;
+
+import java.util.Arrays;
+
+/**
+ * PawnHashTable caches what {@link Evaluation} works out from the pawns
+ * alone: the packed pawn-structure score and the set of passed pawns. Pawns
+ * move far less often than the other pieces, so most positions the search
+ * evaluates share their pawns with one evaluated before, and the table is
+ * indexed by the position's pawn key.
+ *
+ * The entries live in parallel primitive arrays, a power of two long, and a
+ * new entry always replaces the one in its slot. Lookups return the slot,
+ * from which the score and the passed pawns are read, so nothing is
+ * allocated. The table is not safe to share between threads: each search
+ * thread has its own.
+ */
+public class PawnHashTable {
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final long[] passed;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param entries the number of entries, rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[capacity];
+        scores = new int[capacity];
+        passed = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Finds the entry for the position's pawns, evaluating them and storing
+     * the result over whatever held the slot if they are not there.
+     *
+     * @return the slot of the entry, for {@link #getScore} and
+     *         {@link #getPassed}
+     */
+    public int lookup(Position position) {
+        long key = position.getPawnKey();
+        int slot = (int) key & mask;
+        // an empty slot reads as the entry for no pawns at all, which it is
+        if (keys[slot] == key) {
+            hits++;
+            return slot;
+        }
+        misses++;
+        keys[slot] = key;
+        scores[slot] = Evaluation.pawnStructure(position);
+        passed[slot] = Evaluation.passedPawns(position);
+        return slot;
+    }
+
+    /**
+     * @return the packed pawn-structure score held in the slot, positive when
+     *         white's pawns are better
+     */
+    public int getScore(int slot) {
+        return scores[slot];
+    }
+
+    /**
+     * @return the passed pawns of both colors held in the slot
+     */
+    public long getPassed(int slot) {
+        return passed[slot];
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the fraction of lookups since the last clear that found their
+     *         pawns in the table
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Empties the table and resets the counters.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(scores, 0);
+        Arrays.fill(passed, 0L);
+        hits = 0;
+        misses = 0;
+    }
+}
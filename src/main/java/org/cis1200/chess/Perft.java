@@ -0,0 +1,164 @@
+package org.cis1200.chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft counts the leaf nodes of the legal move tree to a fixed depth. The
+ * counts for well known positions are published, so any disagreement points
+ * at a move generation or make/unmake bug; the time it takes is a benchmark
+ * of both.
+ *
+ * A Perft object owns one move list per ply and is not thread safe. The
+ * static {@link #divide} splits the root moves over a fork-join pool, giving
+ * each root move its own copy of the position and its own Perft.
+ *
+ * Run from the command line as
+ * {@code java org.cis1200.chess.Perft <depth> [threads] [fen]}.
+ */
+public class Perft {
+    private final MoveList[] lists;
+
+    public Perft(int maxDepth) {
+        lists = new MoveList[Math.max(maxDepth, 1)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * @return the number of leaf nodes depth plies below the position
+     */
+    public long count(Position position, int depth) {
+        return count(position, depth, 0);
+    }
+
+    private long count(Position position, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList list = lists[ply];
+        MoveGenerator.generateLegal(position, list);
+        // the moves are legal, so the last ply needs only counting
+        if (depth == 1) {
+            return list.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            position.makeMove(list.get(i));
+            nodes += count(position, depth - 1, ply + 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static long perft(Position position, int depth) {
+        return new Perft(depth).count(position, depth);
+    }
+
+    /**
+     * Counts the leaf nodes below each root move, one fork-join task per root
+     * move. The position itself is left untouched.
+     *
+     * @return the count of each root move in coordinate notation, in
+     *         generation order
+     */
+    public static Map<String, Long> divide(Position position, int depth, ForkJoinPool pool) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (depth < 1) {
+            return result;
+        }
+        MoveList roots = new MoveList();
+        MoveGenerator.generateLegal(position, roots);
+        List<RootTask> tasks = new ArrayList<>(roots.size());
+        for (int i = 0; i < roots.size(); i++) {
+            tasks.add(new RootTask(position, roots.get(i), depth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (RootTask task : tasks) {
+            result.put(Move.toUci(task.move), task.join());
+        }
+        return result;
+    }
+
+    public static Map<String, Long> divide(Position position, int depth) {
+        return divide(position, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @return the leaf count of the position, with the root moves counted in
+     *         parallel on the given pool
+     */
+    public static long parallelPerft(Position position, int depth, ForkJoinPool pool) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (long count : divide(position, depth, pool).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    // Counts the subtree below one root move on a private copy of the position
+    private static class RootTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int move;
+        private final int depth;
+
+        RootTask(Position root, int move, int depth) {
+            this.position = root.copy();
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            position.makeMove(move);
+            return new Perft(depth).count(position, depth);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: Perft <depth> [threads] [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        Position position = args.length > 2
+                ? Position.fromFen(String.join(" ", List.of(args).subList(2, args.length)))
+                : Position.startPosition();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Map<String, Long> counts = divide(position, depth, pool);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        long millis = Math.max(elapsed / 1_000_000, 1);
+        System.out.println();
+        System.out.println("Moves: " + counts.size());
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + millis + " ms");
+        System.out.println("NPS: " + nodes * 1000 / millis);
+    }
+}
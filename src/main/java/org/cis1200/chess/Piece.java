@@ -1,72 +1,32 @@
 package org.cis1200.chess;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-
+/**
+ * A piece on the GUI board. Pieces know the square they stand on, a1 = 0 to
+ * h8 = 63, and nothing about pixels; ChessArena decides where and how they
+ * are drawn.
+ */
 abstract class Piece implements PieceInterface {
 
-    private final String whiteImgFile;
-    private final String blackImgFile;
-    private int xPosition;
-    private int yPosition;
-    private int width;
-    private int height;
+    private int square;
     private final Pieces type;
     private final ChessColor chessColor;
     private final int worth;
 
-    private BufferedImage img;
-
-    public Piece(
-            int xPos, int yPos, int wid, int hei, ChessColor chessColor, int worth,
-            String whiteFile,
-            String blackFile, Pieces type
-    ) {
-        width = wid;
-        height = hei;
-        xPosition = xPos;
-        yPosition = yPos;
-        whiteImgFile = whiteFile;
-        blackImgFile = blackFile;
+    public Piece(int square, ChessColor chessColor, int worth, Pieces type) {
+        this.square = square;
         this.chessColor = chessColor;
         this.worth = worth;
         this.type = type;
-        try {
-            if (chessColor.equals(ChessColor.BLACK)) {
-                img = ImageIO.read(new File(blackImgFile));
-            } else {
-                img = ImageIO.read(new File(whiteImgFile));
-            }
-        } catch (IOException ignored) {
-        }
-    }
-
-    @Override
-    public Coords getPosition() {
-        return new Coords(xPosition, yPosition);
-    }
-
-    @Override
-    public int getX() {
-        return xPosition;
-    }
-
-    @Override
-    public int getY() {
-        return yPosition;
     }
 
     @Override
-    public int getWidth() {
-        return width;
+    public int getSquare() {
+        return square;
     }
 
     @Override
-    public int getHeight() {
-        return height;
+    public void setSquare(int square) {
+        this.square = square;
     }
 
     @Override
@@ -79,69 +39,26 @@ abstract class Piece implements PieceInterface {
         return chessColor;
     }
 
-    @Override
-    public void setPosition(Coords destination) {
-        xPosition = destination.getX();
-        yPosition = destination.getY();
-    }
-
-    @Override
-    public void setWidth(int wid) {
-        width = wid;
-    }
-
-    @Override
-    public void setHeight(int hei) {
-        height = hei;
-    }
-
     @Override
     public Pieces getPieceType() {
         return type;
     }
 
-    @Override
-    public void draw(Graphics g) {
-        g.drawImage(img, this.getX(), this.getY(), this.getWidth(), this.getHeight(), null);
-    }
-
-    public String getWhiteImgFile() {
-        return whiteImgFile;
-    }
-
-    public String getBlackImgFile() {
-        return blackImgFile;
-    }
-
-    public int getxPosition() {
-        return xPosition;
-    }
-
-    public void setxPosition(int xPosition) {
-        this.xPosition = xPosition;
-    }
-
-    public int getyPosition() {
-        return yPosition;
-    }
-
-    public void setyPosition(int yPosition) {
-        this.yPosition = yPosition;
-    }
-
     public Pieces getType() {
         return type;
     }
 
-    public BufferedImage getImg() {
-        return img;
+    public ChessColor getChessColor() {
+        return chessColor;
     }
 
-    public void setImg(BufferedImage img) {
-        this.img = img;
+    // Number of files between this piece and the destination
+    protected int fileDistance(BoardSquare destination) {
+        return Math.abs(Position.fileOf(destination.getSquare()) - Position.fileOf(square));
     }
 
-    public ChessColor getChessColor() {
-        return chessColor;
+    // Number of ranks between this piece and the destination
+    protected int rankDistance(BoardSquare destination) {
+        return Math.abs(Position.rankOf(destination.getSquare()) - Position.rankOf(square));
     }
 }
@@ -0,0 +1,187 @@
+package org.cis1200.chess;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ponderer keeps the engine thinking while the opponent does. Once the
+ * engine has moved it guesses the opponent's reply, usually the second move
+ * of its principal variation, and searches the position after that reply
+ * without a time limit, filling the transposition table as it goes.
+ *
+ * When the opponent's move comes in, {@link #reply} compares the position
+ * with the one being pondered:
+ * <ul>
+ * <li>on a ponder hit the ponder search simply goes on, with the time it has
+ * already spent counted against the budget; if that is used up, its answer
+ * is ready at once;</li>
+ * <li>on a miss it is cancelled and a new search of the real position starts,
+ * finding in the table whatever the ponder search shared with it.</li>
+ * </ul>
+ *
+ * The searches run on an {@link EngineService}, and the callbacks given to
+ * {@link #reply} are run by its publisher.
+ */
+public class Ponderer {
+    private final EngineService service;
+
+    private EngineTask pondering;
+    private long ponderKey;
+    private long ponderStart;
+    // the ponder search's result, should it end before the opponent moves
+    private SearchResult ponderResult;
+    // the callbacks of the reply a ponder hit has turned the ponder search into
+    private Consumer<SearchResult> hitProgress;
+    private Consumer<SearchResult> hitResult;
+    private ScheduledFuture<?> hitStop;
+    private EngineTask replying;
+    private int hits;
+    private int misses;
+
+    public Ponderer(EngineService service) {
+        this.service = service;
+    }
+
+    /**
+     * Starts searching, without limits, the position the predicted reply
+     * would lead to. Any search still running is cancelled first.
+     *
+     * @param position  the position with the opponent to move
+     * @param predicted the reply expected; nothing is pondered if it is
+     *                  {@link Move#NONE} or not legal
+     */
+    public synchronized void ponder(Position position, int predicted) {
+        cancel();
+        if (!MoveGenerator.isLegal(position, predicted)) {
+            return;
+        }
+        Position after = position.copy();
+        after.makeMove(predicted);
+        ponderKey = after.getKey();
+        ponderStart = System.nanoTime();
+        pondering = service.search(
+                after, new SearchLimits(), this::ponderProgress, this::ponderFinished
+        );
+    }
+
+    /**
+     * Finds the engine's answer to the opponent's move within the limits. A
+     * ponder search of the same position is kept and given what is left of
+     * the budget; any other search is cancelled.
+     *
+     * @param position   the position after the opponent's move, engine to
+     *                   move
+     * @param limits     the budget for the answer; its soft time, or else its
+     *                   move time, bounds a ponder hit
+     * @param onProgress given progress reports; may be null
+     * @param onResult   given the result once the search is over
+     * @return the task searching the answer
+     */
+    public synchronized EngineTask reply(
+            Position position, SearchLimits limits, Consumer<SearchResult> onProgress,
+            Consumer<SearchResult> onResult
+    ) {
+        if (pondering != null && position.getKey() == ponderKey) {
+            hits++;
+            replying = pondering;
+            pondering = null;
+            long budget = limits.getSoftTime() < Long.MAX_VALUE ? limits.getSoftTime()
+                    : limits.getMoveTime();
+            long left = budget - (System.nanoTime() - ponderStart) / 1_000_000;
+            if (left <= 0) {
+                replying.stop();
+            } else {
+                hitStop = ChessClock.scheduler().schedule(
+                        replying::stop, left, TimeUnit.MILLISECONDS
+                );
+            }
+            if (ponderResult != null) {
+                SearchResult result = ponderResult;
+                ponderResult = null;
+                service.publish(() -> onResult.accept(result));
+            } else {
+                hitProgress = onProgress;
+                hitResult = onResult;
+            }
+            return replying;
+        }
+        if (pondering != null) {
+            misses++;
+        }
+        cancel();
+        replying = service.search(position, limits, onProgress, onResult);
+        return replying;
+    }
+
+    /**
+     * Cancels the ponder search and the reply search, if any. Neither reaches
+     * its callbacks afterwards.
+     */
+    public synchronized void cancel() {
+        if (pondering != null) {
+            pondering.cancel();
+        }
+        if (replying != null) {
+            replying.cancel();
+        }
+        if (hitStop != null) {
+            hitStop.cancel(false);
+        }
+        pondering = null;
+        replying = null;
+        hitStop = null;
+        ponderResult = null;
+        hitProgress = null;
+        hitResult = null;
+    }
+
+    /**
+     * @return the opponent's most likely reply in the position after the
+     *         engine's move: the second move of the principal variation, or
+     *         failing that the move the table holds for the position
+     */
+    public static int predictReply(
+            SearchResult result, Position position, TranspositionTable table
+    ) {
+        if (result.getPv().length >= 2) {
+            return result.getPv()[1];
+        }
+        long entry = table.probe(position.getKey());
+        return entry == TranspositionTable.NO_ENTRY ? Move.NONE
+                : TranspositionTable.move(entry);
+    }
+
+    /**
+     * @return true while a ponder search is running
+     */
+    public synchronized boolean isPondering() {
+        return pondering != null;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    // Before a hit progress goes nowhere; after one, to the reply's callback
+    private synchronized void ponderProgress(SearchResult progress) {
+        if (hitProgress != null) {
+            hitProgress.accept(progress);
+        }
+    }
+
+    private synchronized void ponderFinished(SearchResult result) {
+        if (hitResult != null) {
+            Consumer<SearchResult> callback = hitResult;
+            hitProgress = null;
+            hitResult = null;
+            callback.accept(result);
+        } else if (pondering != null) {
+            ponderResult = result;
+        }
+    }
+}
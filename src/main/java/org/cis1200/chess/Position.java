@@ -0,0 +1,844 @@
+package org.cis1200.chess;
+
+import java.util.Arrays;
+
+/**
+ * Position is a bitboard representation of a chess position. It keeps one
+ * 64-bit set per piece type and color, an occupancy set per color, a
+ * square-indexed mailbox for fast "what is on this square" lookups, and the
+ * remaining game state: side to move, castling rights, en-passant square and
+ * the move clocks.
+ *
+ * Every board edit and every move keeps a {@link Zobrist} key of the position
+ * up to date, and so do the material and piece-square sums and the game
+ * phase that {@link Evaluation} tapers between. The en-passant file only
+ * enters the key when a pawn of the side to move could actually make the
+ * capture, so a double push that offers nothing does not make an otherwise
+ * repeated position look new. With
+ * assertions enabled (-ea), makeMove and unmakeMove recompute the key, and
+ * the key of the pawns alone, from scratch and check them against the
+ * incremental ones.
+ *
+ * Squares are numbered a1 = 0, b1 = 1, ..., h8 = 63. Piece types use the
+ * ordinals of {@link Pieces} and colors the ordinals of {@link ChessColor}, so
+ * the model can be converted to and from the Swing pieces without tables.
+ */
+public class Position {
+
+    // colors, matching ChessColor ordinals
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // piece types, matching Pieces ordinals
+    public static final int KING = 0;
+    public static final int QUEEN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int PAWN = 5;
+    public static final int EMPTY = 6;
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    // castling rights bits
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String START_FEN =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // material worth of each piece type, as in Piece.getWorth()
+    private static final int[] WORTH = { 0, 9, 3, 3, 5, 1, 0 };
+    private static final String PIECE_CHARS = "KQNBRPkqnbrp";
+
+    private static final int UNDO_DEPTH = 512;
+
+    // rights that survive a move touching each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            CASTLING_MASK[sq] = 15;
+        }
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final int[] board = new int[64];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private long key;
+    // the key of the pawns alone, for the pawn hash table
+    private long pawnKey;
+    // material and piece-square sums, white minus black, and the game phase,
+    // kept up to date like the key; see Evaluation
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+    // told of every board edit when an NNUE network is in use
+    private NnueAccumulator accumulator;
+
+    // undo stack, one slot per move made and not yet taken back
+    private int[] undoMoves = new int[UNDO_DEPTH];
+    private int[] undoCastling = new int[UNDO_DEPTH];
+    private int[] undoEnPassant = new int[UNDO_DEPTH];
+    private int[] undoHalfmove = new int[UNDO_DEPTH];
+    private long[] undoKeys = new long[UNDO_DEPTH];
+    private int undoCount;
+
+    /**
+     * Creates an empty board with white to move.
+     */
+    public Position() {
+        for (int sq = 0; sq < 64; sq++) {
+            board[sq] = NO_PIECE;
+        }
+        sideToMove = WHITE;
+        enPassantSquare = NO_SQUARE;
+        fullmoveNumber = 1;
+    }
+
+    public static Position startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    /**
+     * Parses a position in Forsyth-Edwards Notation. The clock fields are
+     * optional.
+     *
+     * @param fen the FEN string
+     * @return the parsed position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        Position position = new Position();
+        int rank = 7;
+        int file = 0;
+        for (char ch : fields[0].toCharArray()) {
+            if (ch == '/') {
+                rank--;
+                file = 0;
+            } else if (Character.isDigit(ch)) {
+                file += ch - '0';
+            } else {
+                int code = PIECE_CHARS.indexOf(ch);
+                if (code < 0 || file > 7 || rank < 0) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                position.putPiece(square(file, rank), code);
+                file++;
+            }
+        }
+        position.sideToMove = fields[1].equals("b") ? BLACK : WHITE;
+        for (char ch : fields[2].toCharArray()) {
+            switch (ch) {
+                case 'K':
+                    position.castlingRights |= WHITE_KINGSIDE;
+                    break;
+                case 'Q':
+                    position.castlingRights |= WHITE_QUEENSIDE;
+                    break;
+                case 'k':
+                    position.castlingRights |= BLACK_KINGSIDE;
+                    break;
+                case 'q':
+                    position.castlingRights |= BLACK_QUEENSIDE;
+                    break;
+                default:
+                    break;
+            }
+        }
+        position.enPassantSquare = fields[3].equals("-") ? NO_SQUARE : parseSquare(fields[3]);
+        if (fields.length > 4) {
+            position.halfmoveClock = Integer.parseInt(fields[4]);
+        }
+        if (fields.length > 5) {
+            position.fullmoveNumber = Integer.parseInt(fields[5]);
+        }
+        position.key = position.computeKey();
+        return position;
+    }
+
+    /**
+     * Builds a position from the Swing board. Row 0 of the matrix is the eighth
+     * rank. Castling rights are granted for every king and rook that is still
+     * on its home square and has not moved yet.
+     *
+     * @param pieceMatrix the 8x8 piece grid used by the GUI
+     * @param sideToMove  WHITE or BLACK
+     * @return a position holding the same pieces
+     */
+    public static Position fromMatrix(Piece[][] pieceMatrix, int sideToMove) {
+        Position position = new Position();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                Piece piece = pieceMatrix[r][c];
+                if (piece.getPieceType() != Pieces.EMPTY) {
+                    position.putPiece(
+                            squareOf(r, c),
+                            pieceCode(piece.getColor().ordinal(), piece.getPieceType().ordinal())
+                    );
+                }
+            }
+        }
+        position.sideToMove = sideToMove;
+        if (unmovedKing(pieceMatrix[7][4], ChessColor.WHITE)) {
+            if (unmovedRook(pieceMatrix[7][7], ChessColor.WHITE)) {
+                position.castlingRights |= WHITE_KINGSIDE;
+            }
+            if (unmovedRook(pieceMatrix[7][0], ChessColor.WHITE)) {
+                position.castlingRights |= WHITE_QUEENSIDE;
+            }
+        }
+        if (unmovedKing(pieceMatrix[0][4], ChessColor.BLACK)) {
+            if (unmovedRook(pieceMatrix[0][7], ChessColor.BLACK)) {
+                position.castlingRights |= BLACK_KINGSIDE;
+            }
+            if (unmovedRook(pieceMatrix[0][0], ChessColor.BLACK)) {
+                position.castlingRights |= BLACK_QUEENSIDE;
+            }
+        }
+        position.key = position.computeKey();
+        return position;
+    }
+
+    private static boolean unmovedKing(Piece piece, ChessColor color) {
+        return piece instanceof King && piece.getColor() == color
+                && !((King) piece).isFirstMoveMade();
+    }
+
+    private static boolean unmovedRook(Piece piece, ChessColor color) {
+        return piece instanceof Rook && piece.getColor() == color
+                && !((Rook) piece).isFirstMoveMade();
+    }
+
+    /**
+     * Copies the board, the state fields and the undo stack, so the copy
+     * knows the game's key history for repetition checks and can take back
+     * the moves made before copying.
+     *
+     * @return an independent copy of this position
+     */
+    public Position copy() {
+        Position other = new Position();
+        System.arraycopy(pieces, 0, other.pieces, 0, pieces.length);
+        System.arraycopy(colors, 0, other.colors, 0, colors.length);
+        System.arraycopy(board, 0, other.board, 0, board.length);
+        other.occupied = occupied;
+        other.sideToMove = sideToMove;
+        other.castlingRights = castlingRights;
+        other.enPassantSquare = enPassantSquare;
+        other.halfmoveClock = halfmoveClock;
+        other.fullmoveNumber = fullmoveNumber;
+        other.key = key;
+        other.pawnKey = pawnKey;
+        other.midgameScore = midgameScore;
+        other.endgameScore = endgameScore;
+        other.phase = phase;
+        other.undoMoves = undoMoves.clone();
+        other.undoCastling = undoCastling.clone();
+        other.undoEnPassant = undoEnPassant.clone();
+        other.undoHalfmove = undoHalfmove.clone();
+        other.undoKeys = undoKeys.clone();
+        other.undoCount = undoCount;
+        return other;
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int code = board[square(file, rank)];
+                if (code == NO_PIECE) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(PIECE_CHARS.charAt(code));
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((castlingRights & BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+        fen.append(' ');
+        fen.append(enPassantSquare == NO_SQUARE ? "-" : squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+
+    // ---------------------------------------------------------------------
+    // square and piece code helpers
+
+    public static int square(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    public static int fileOf(int sq) {
+        return sq & 7;
+    }
+
+    public static int rankOf(int sq) {
+        return sq >>> 3;
+    }
+
+    /**
+     * Square index for a cell of the GUI matrices, where row 0 is the eighth
+     * rank.
+     */
+    public static int squareOf(int row, int col) {
+        return (7 - row) * 8 + col;
+    }
+
+    public static int rowOf(int sq) {
+        return 7 - (sq >>> 3);
+    }
+
+    public static int colOf(int sq) {
+        return sq & 7;
+    }
+
+    public static String squareName(int sq) {
+        return "" + (char) ('a' + fileOf(sq)) + (rankOf(sq) + 1);
+    }
+
+    public static int parseSquare(String name) {
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return square(file, rank);
+    }
+
+    public static int pieceCode(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int typeOf(int code) {
+        return code < 6 ? code : code - 6;
+    }
+
+    public static int colorOf(int code) {
+        return code < 6 ? WHITE : BLACK;
+    }
+
+    public static int worthOf(int type) {
+        return WORTH[type];
+    }
+
+    // ---------------------------------------------------------------------
+    // board edits
+
+    /**
+     * Puts a piece on an empty square.
+     */
+    public void putPiece(int sq, int code) {
+        long bit = 1L << sq;
+        pieces[code] |= bit;
+        colors[colorOf(code)] |= bit;
+        occupied |= bit;
+        board[sq] = code;
+        key ^= Zobrist.piece(code, sq);
+        if (typeOf(code) == PAWN) {
+            pawnKey ^= Zobrist.piece(code, sq);
+        }
+        midgameScore += Evaluation.midgame(code, sq);
+        endgameScore += Evaluation.endgame(code, sq);
+        phase += Evaluation.phase(typeOf(code));
+        if (accumulator != null) {
+            accumulator.pieceAdded(this, code, sq);
+        }
+    }
+
+    /**
+     * Removes whatever piece stands on sq.
+     */
+    public void removePiece(int sq) {
+        int code = board[sq];
+        if (code == NO_PIECE) {
+            return;
+        }
+        long bit = 1L << sq;
+        pieces[code] &= ~bit;
+        colors[colorOf(code)] &= ~bit;
+        occupied &= ~bit;
+        board[sq] = NO_PIECE;
+        key ^= Zobrist.piece(code, sq);
+        if (typeOf(code) == PAWN) {
+            pawnKey ^= Zobrist.piece(code, sq);
+        }
+        midgameScore -= Evaluation.midgame(code, sq);
+        endgameScore -= Evaluation.endgame(code, sq);
+        phase -= Evaluation.phase(typeOf(code));
+        if (accumulator != null) {
+            accumulator.pieceRemoved(this, code, sq);
+        }
+    }
+
+    /**
+     * Builds the packed move for moving whatever stands on from to to, reading
+     * the capture and the special-move flags off the board.
+     *
+     * @param from      origin square
+     * @param to        destination square
+     * @param promotion piece type a pawn reaching the last rank becomes;
+     *                  ignored for every other move
+     * @return the packed move
+     */
+    public int createMove(int from, int to, int promotion) {
+        int type = getTypeAt(from);
+        int captured = getTypeAt(to);
+        int flags = 0;
+        if (type == PAWN) {
+            if (to == enPassantSquare) {
+                captured = PAWN;
+                flags = Move.EN_PASSANT;
+            } else if (Math.abs(to - from) == 16) {
+                flags = Move.DOUBLE_PUSH;
+            }
+            if (rankOf(to) != 0 && rankOf(to) != 7) {
+                promotion = EMPTY;
+            } else if (promotion == EMPTY) {
+                promotion = QUEEN;
+            }
+        } else {
+            promotion = EMPTY;
+        }
+        if (type == KING && Math.abs(to - from) == 2) {
+            flags = Move.CASTLE;
+        }
+        return Move.of(from, to, type, captured, promotion, flags);
+    }
+
+    /**
+     * Plays a move on the board, including the rook hop of a castle, an
+     * en-passant capture and a promotion, and updates every state field. No
+     * legality check is made. The Zobrist key is updated along with the
+     * board. Everything needed to take the move back is pushed on the undo
+     * stack, so a matching {@link #unmakeMove()} restores
+     * the position exactly. Nothing is allocated unless the stack has to grow
+     * past its initial depth.
+     *
+     * @param move a packed {@link Move} for the side to move
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Move.piece(move);
+        int promotion = Move.promotion(move);
+        int us = sideToMove;
+
+        if (undoCount == undoMoves.length) {
+            growUndoStack();
+        }
+        int slot = undoCount++;
+        undoMoves[slot] = move;
+        undoCastling[slot] = castlingRights;
+        undoEnPassant[slot] = enPassantSquare;
+        undoHalfmove[slot] = halfmoveClock;
+        undoKeys[slot] = key;
+        key ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+
+        if (Move.isEnPassant(move)) {
+            removePiece(to + (us == WHITE ? -8 : 8));
+        } else if (Move.isCapture(move)) {
+            removePiece(to);
+        }
+        removePiece(from);
+        putPiece(to, pieceCode(us, promotion != EMPTY ? promotion : type));
+        if (Move.isCastle(move)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            removePiece(rookFrom);
+            putPiece(rookTo, pieceCode(us, ROOK));
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = Move.isDoublePush(move) ? (from + to) / 2 : NO_SQUARE;
+        if (type == PAWN || Move.isCapture(move)) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (us == BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove = us ^ 1;
+        key ^= Zobrist.castling(castlingRights) ^ enPassantKey() ^ Zobrist.blackToMove();
+        assert key == computeKey() : "Zobrist key out of sync after " + Move.toUci(move);
+        assert pawnKey == computePawnKey() : "pawn key out of sync after " + Move.toUci(move);
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}.
+     */
+    public void unmakeMove() {
+        int slot = --undoCount;
+        int move = undoMoves[slot];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = sideToMove ^ 1;
+
+        removePiece(to);
+        putPiece(from, pieceCode(us, Move.piece(move)));
+        if (Move.isCastle(move)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            removePiece(rookTo);
+            putPiece(rookFrom, pieceCode(us, ROOK));
+        }
+        if (Move.isEnPassant(move)) {
+            putPiece(to + (us == WHITE ? -8 : 8), pieceCode(us ^ 1, PAWN));
+        } else if (Move.isCapture(move)) {
+            putPiece(to, pieceCode(us ^ 1, Move.captured(move)));
+        }
+
+        castlingRights = undoCastling[slot];
+        enPassantSquare = undoEnPassant[slot];
+        halfmoveClock = undoHalfmove[slot];
+        if (us == BLACK) {
+            fullmoveNumber--;
+        }
+        sideToMove = us;
+        key = undoKeys[slot];
+        assert key == computeKey() : "Zobrist key out of sync after undoing " + Move.toUci(move);
+        assert pawnKey == computePawnKey()
+                : "pawn key out of sync after undoing " + Move.toUci(move);
+    }
+
+    /**
+     * Passes the turn to the other side without moving, as a null-move search
+     * does. Any en-passant right lapses. The halfmove clock restarts, so no
+     * repetition is ever found across a null move.
+     */
+    public void makeNullMove() {
+        if (undoCount == undoMoves.length) {
+            growUndoStack();
+        }
+        int slot = undoCount++;
+        undoMoves[slot] = Move.NONE;
+        undoCastling[slot] = castlingRights;
+        undoEnPassant[slot] = enPassantSquare;
+        undoHalfmove[slot] = halfmoveClock;
+        undoKeys[slot] = key;
+        key ^= enPassantKey();
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        sideToMove ^= 1;
+        key ^= Zobrist.blackToMove();
+        assert key == computeKey() : "Zobrist key out of sync after a null move";
+    }
+
+    /**
+     * Takes back a null move made with {@link #makeNullMove()}.
+     */
+    public void unmakeNullMove() {
+        int slot = --undoCount;
+        enPassantSquare = undoEnPassant[slot];
+        halfmoveClock = undoHalfmove[slot];
+        sideToMove ^= 1;
+        key = undoKeys[slot];
+    }
+
+    /**
+     * @return the number of moves that can currently be taken back
+     */
+    public int getUndoDepth() {
+        return undoCount;
+    }
+
+    private void growUndoStack() {
+        int size = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, size);
+        undoCastling = Arrays.copyOf(undoCastling, size);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, size);
+        undoHalfmove = Arrays.copyOf(undoHalfmove, size);
+        undoKeys = Arrays.copyOf(undoKeys, size);
+    }
+
+    /**
+     * Counts how often the current position occurred earlier in the game.
+     * Only positions with the same side to move since the last capture or
+     * pawn move can match, so the scan walks back two plies at a time and
+     * stops at the halfmove clock; the cost stays bounded by the reversible
+     * moves played, not by the length of the game.
+     *
+     * @return the number of earlier occurrences of the current position
+     */
+    public int countRepetitions() {
+        int count = 0;
+        int oldest = Math.max(undoCount - halfmoveClock, 0);
+        for (int slot = undoCount - 2; slot >= oldest; slot -= 2) {
+            if (undoKeys[slot] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if the current position has now occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        return countRepetitions() >= 2;
+    }
+
+    /**
+     * @return true if fifty moves by each side have passed without a capture
+     *         or a pawn move
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Computes the Zobrist key from scratch. The incremental key returned by
+     * {@link #getKey()} must always equal this.
+     */
+    public long computeKey() {
+        long result = 0L;
+        long squares = occupied;
+        while (squares != 0) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            result ^= Zobrist.piece(board[sq], sq);
+        }
+        result ^= Zobrist.castling(castlingRights) ^ enPassantKey();
+        if (sideToMove == BLACK) {
+            result ^= Zobrist.blackToMove();
+        }
+        return result;
+    }
+
+    /**
+     * Computes the pawn key from scratch: the Zobrist numbers of the pawns
+     * alone, with nothing for the other pieces or the state fields.
+     */
+    public long computePawnKey() {
+        long result = 0L;
+        for (int color = WHITE; color <= BLACK; color++) {
+            int code = pieceCode(color, PAWN);
+            long pawns = pieces[code];
+            while (pawns != 0) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                result ^= Zobrist.piece(code, sq);
+            }
+        }
+        return result;
+    }
+
+    // Key of the en-passant square, or 0 if no pawn of the side to move
+    // stands next to the pawn that just moved
+    private long enPassantKey() {
+        if (enPassantSquare == NO_SQUARE || (Attacks.pawnAttacks(sideToMove ^ 1, enPassantSquare)
+                & pieces[pieceCode(sideToMove, PAWN)]) == 0) {
+            return 0L;
+        }
+        return Zobrist.enPassant(enPassantSquare);
+    }
+
+    // ---------------------------------------------------------------------
+    // queries
+
+    public int getPieceAt(int sq) {
+        return board[sq];
+    }
+
+    public int getTypeAt(int sq) {
+        int code = board[sq];
+        return code == NO_PIECE ? EMPTY : typeOf(code);
+    }
+
+    public long getPieces(int color, int type) {
+        return pieces[pieceCode(color, type)];
+    }
+
+    public long getColorOccupancy(int color) {
+        return colors[color];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int sideToMove) {
+        key ^= enPassantKey();
+        if (this.sideToMove != sideToMove) {
+            key ^= Zobrist.blackToMove();
+        }
+        this.sideToMove = sideToMove;
+        key ^= enPassantKey();
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the Zobrist key of the position
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return the key of the pawns alone, equal for any two positions with
+     *         the same pawns on the same squares
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return the midgame material and piece-square score, white minus black
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square score, white minus black
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase, from zero with only kings and pawns left to
+     *         {@link Evaluation#MAX_PHASE} with every piece on the board, or
+     *         more after promotions
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Attaches an accumulator that follows every later board edit, or
+     * detaches it with null. A copy of the position has none.
+     */
+    public void setAccumulator(NnueAccumulator accumulator) {
+        this.accumulator = accumulator;
+        if (accumulator != null) {
+            accumulator.invalidate();
+        }
+    }
+
+    public NnueAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    public int getKingSquare(int color) {
+        long king = pieces[pieceCode(color, KING)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Sum of the material worth of every piece of the given color.
+     */
+    public int getMaterial(int color) {
+        int total = 0;
+        for (int type = QUEEN; type <= PAWN; type++) {
+            total += WORTH[type] * Long.bitCount(pieces[pieceCode(color, type)]);
+        }
+        return total;
+    }
+
+    /**
+     * Squares attacked by the piece standing on sq, or an empty set if the
+     * square is empty.
+     */
+    public long attacksFrom(int sq) {
+        int code = board[sq];
+        if (code == NO_PIECE) {
+            return 0L;
+        }
+        return Attacks.attacks(typeOf(code), colorOf(code), sq, occupied);
+    }
+
+    /**
+     * Every piece of the given color that attacks sq.
+     */
+    public long attackersTo(int sq, int byColor, long occ) {
+        long them = colors[byColor];
+        long queens = pieces[pieceCode(byColor, QUEEN)];
+        return ((Attacks.pawnAttacks(byColor ^ 1, sq) & pieces[pieceCode(byColor, PAWN)])
+                | (Attacks.knightAttacks(sq) & pieces[pieceCode(byColor, KNIGHT)])
+                | (Attacks.kingAttacks(sq) & pieces[pieceCode(byColor, KING)])
+                | (Attacks.bishopAttacks(sq, occ)
+                        & (pieces[pieceCode(byColor, BISHOP)] | queens))
+                | (Attacks.rookAttacks(sq, occ) & (pieces[pieceCode(byColor, ROOK)] | queens)))
+                & them;
+    }
+
+    public boolean isSquareAttacked(int sq, int byColor) {
+        return attackersTo(sq, byColor, occupied) != 0;
+    }
+
+    public boolean isInCheck(int color) {
+        int king = getKingSquare(color);
+        return king != NO_SQUARE && isSquareAttacked(king, color ^ 1);
+    }
+}
@@ -4,16 +4,13 @@ public class Rook extends Piece {
 
     private boolean firstMoveMade = false;
 
-    public Rook(int xPos, int yPos, int wid, int hei, ChessColor chessColor) {
-        super(
-                xPos, yPos, wid, hei, chessColor, 5,
-                "files/whiteRook.png", "files/blackRook.png", Pieces.ROOK
-        );
+    public Rook(int square, ChessColor chessColor) {
+        super(square, chessColor, 5, Pieces.ROOK);
     }
 
     @Override
-    public void setPosition(Coords destination) {
-        super.setPosition(destination);
+    public void setSquare(int square) {
+        super.setSquare(square);
         firstMoveMade = true;
     }
 
@@ -22,11 +19,7 @@ public class Rook extends Piece {
         if (destination.getPieceColour() == getColor()) {
             return false;
         }
-        int targetX = destination.getX();
-        int targetY = destination.getY();
-        int dx = Math.abs(targetX - getX());
-        int dy = Math.abs(targetY - getY());
-        return ((targetX == this.getX() & targetY == this.getY()) || ((dx == 0) || (dy == 0)));
+        return (fileDistance(destination) == 0) || (rankDistance(destination) == 0);
     }
 
     public boolean isFirstMoveMade() {
@@ -39,6 +39,7 @@ public class RunChess implements Runnable {
         status_panel.add(turn);
         status_panel.add(Box.createRigidArea(new Dimension(ChessArena.BOARD_WIDTH / 16, 0)));
         final JLabel error = new JLabel("No Error!");
+        final JLabel clock = new JLabel("No clock");
 
 
         final JButton instructions = new JButton("Instructions");
@@ -58,10 +59,14 @@ public class RunChess implements Runnable {
                             "3. Click on a valid square to move the piece.\n" +
                             "4. To resign, click the 'Resign' button.\n" +
                             "5. To request a draw, click the 'Draw' button.\n" +
-                            "6. 'Change Mode' for AI mode not implemented yet.\n" +
+                            "6. 'Change Mode' to play black's moves by computer.\n" +
                             "7. No drag functionality as of yet. Should be fine clicking squares." +
                             " \n" +
-                            "8. Click 'Reset' to restart the game.\n\n" +
+                            "8. Click 'Reset' to restart the game.\n" +
+                            "9. Each side has 10 minutes plus 5 seconds a move; the clock " +
+                            "starts after white's first move. Run with -Dchess.clock=5+3 " +
+                            "for another time control, or -Dchess.clock=none to play " +
+                            "without one.\n\n" +
                             "Enjoy the game!",
                     "Game Instructions",
                     JOptionPane.INFORMATION_MESSAGE
@@ -73,7 +78,7 @@ public class RunChess implements Runnable {
         frame.add(evalBarPanel, BorderLayout.EAST);
 
         // Main playing area
-        final ChessArena chessArena = new ChessArena(status, turn, error, evalBarPanel);
+        final ChessArena chessArena = new ChessArena(status, turn, error, clock, evalBarPanel);
         frame.add(chessArena, BorderLayout.CENTER);
 
         // Reset button
@@ -120,6 +125,8 @@ public class RunChess implements Runnable {
         status_panel.add(mode);
         status_panel.add(Box.createRigidArea(new Dimension(ChessArena.BOARD_WIDTH / 16, 0)));
         status_panel.add(error);
+        status_panel.add(Box.createRigidArea(new Dimension(ChessArena.BOARD_WIDTH / 16, 0)));
+        status_panel.add(clock);
 
         // Put the frame on the screen
         frame.pack();
@@ -0,0 +1,639 @@
+package org.cis1200.chess;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Search picks a move by negamax alpha-beta search under iterative
+ * deepening. Each iteration searches one ply deeper than the last and starts
+ * with the previous principal variation, so the best line so far is looked
+ * at first and cuts the rest of the tree short. When a limit from
+ * {@link SearchLimits} runs out mid-iteration the unfinished iteration is
+ * thrown away and the last completed one is reported. A search on a clock
+ * starts no new iteration after its soft time, which {@link TimeAllocator}
+ * stretches while the best move keeps changing or the score falls.
+ *
+ * Where the full-width search runs out of depth a quiescence search takes
+ * over. It plays on only captures and promotions, pruning the ones
+ * {@link StaticExchange} shows to lose material, until the side to move
+ * would rather stand pat on the static evaluation. Scores are thereby taken
+ * from quiet positions, not from the middle of an exchange.
+ *
+ * Every node is looked up in a {@link TranspositionTable} first. A stored
+ * bound that settles the node ends it at once. Otherwise a {@link MovePicker}
+ * hands out the moves, starting with the stored best move. Quiet moves that
+ * cut a node off are remembered as killers and countermoves and raise their
+ * butterfly history, which orders the quiet moves of later nodes.
+ *
+ * The tree is cut down further by selective pruning, each part of which
+ * {@link SearchOptions} can switch off: null-move pruning, checked by a
+ * search without null moves when the side to move has little but pawns left;
+ * late move reductions, which search the later quiet moves of a node less
+ * deeply by a precomputed table; futility and reverse futility pruning near
+ * the horizon; and aspiration windows around the previous score at the root.
+ * Moves after the first are searched with a null window and searched again
+ * only if they beat alpha.
+ *
+ * A Search works on its own copy of the position, with one move picker and
+ * one row of the principal variation table per ply, set up once rather than
+ * per node. The killer, countermove and history tables are plain int arrays
+ * of the Search, so every thread has its own. It is not thread safe, except
+ * for {@link #stop}; the table it uses may be shared. {@link LazySmpSearch}
+ * runs several Searches over one table, telling them apart by their thread
+ * index: helpers, whose index is above zero, skip some iteration depths and
+ * shuffle their quiet moves so that they do not all walk the same tree in
+ * the same order.
+ */
+public class Search {
+    public static final int MAX_PLY = 64;
+    public static final int MATE = 32000;
+    public static final int INFINITY = MATE + 1;
+    // any score beyond this is a forced mate
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // the clock is read once every this many nodes, plus one
+    private static final int CHECK_MASK = 1023;
+    // progress is reported after every iteration, and at least this often
+    private static final long PROGRESS_INTERVAL = 500_000_000L;
+    // butterfly history entries stay within plus and minus this
+    private static final int HISTORY_MAX = 1 << 14;
+
+    private static final int ASPIRATION_DEPTH = 5;
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int REVERSE_FUTILITY_DEPTH = 6;
+    private static final int REVERSE_FUTILITY_MARGIN = 90;
+    private static final int NULL_MOVE_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    // null-move cuts are verified when the side has no more than a rook
+    private static final int VERIFY_MATERIAL = 500;
+    // indexed by remaining depth; futility pruning stops at its length
+    private static final int[] FUTILITY_MARGIN = { 0, 200, 300, 500 };
+    private static final int LMR_DEPTH = 3;
+    // REDUCTIONS[depth][move number] is the late move reduction in plies
+    private static final int[][] REDUCTIONS = new int[MAX_PLY][MAX_PLY];
+
+    static {
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            for (int move = 1; move < MAX_PLY; move++) {
+                REDUCTIONS[depth][move] = (int) (0.75 + Math.log(depth) * Math.log(move) / 2.25);
+            }
+        }
+    }
+
+    // Helper i skips the depths d for which (d + SKIP_PHASE[i]) / SKIP_SIZE[i]
+    // is odd, so the helpers spread over the next few iterations
+    private static final int[] SKIP_SIZE = {
+        1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4
+    };
+    private static final int[] SKIP_PHASE = {
+        0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7
+    };
+
+    private final Position position;
+    private final TranspositionTable table;
+    private final int threadIndex;
+    private PawnHashTable pawnTable;
+    private SearchOptions options = new SearchOptions();
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    // two quiet moves per ply that cut off a node there
+    private final int[][] killers = new int[MAX_PLY][2];
+    // indexed by piece code * 64 + destination of the move answered
+    private final int[] countermoves = new int[12 * 64];
+    // indexed by MovePicker.historyIndex
+    private final int[] history = new int[2 * 64 * 64];
+    private final int[][] quietsTried = new int[MAX_PLY][MoveList.CAPACITY];
+    // the move played at each ply of the current line
+    private final int[] moveStack = new int[MAX_PLY];
+    // pvTable[ply] holds the best line found from ply onwards
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[] lastPv = new int[MAX_PLY];
+    private int lastPvLength;
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private SearchLimits limits;
+    private long startNanos;
+    private Consumer<SearchResult> progressListener;
+    private long lastProgress;
+    private SearchResult lastResult;
+    // set once an iteration has completed and a stop may cut the next short
+    private boolean canStop;
+    private volatile boolean stopped;
+
+    public Search(Position position) {
+        this(position, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    public Search(Position position, TranspositionTable table) {
+        this(position, table, 0);
+    }
+
+    /**
+     * @param threadIndex zero for the main search, above zero for a helper
+     *                    sharing the table with it
+     */
+    public Search(Position position, TranspositionTable table, int threadIndex) {
+        this(position, table, threadIndex, new PawnHashTable(), Nnue.getDefault());
+    }
+
+    /**
+     * @param pawnTable the pawn hash table the evaluation uses, as given to
+     *                  {@link #setPawnTable}
+     * @param network   the network to evaluate with, as given to
+     *                  {@link #setNetwork}
+     */
+    public Search(
+            Position position, TranspositionTable table, int threadIndex,
+            PawnHashTable pawnTable, Nnue network
+    ) {
+        this.position = position.copy();
+        this.table = table;
+        this.threadIndex = threadIndex;
+        this.pawnTable = pawnTable;
+        for (int i = 0; i < MAX_PLY; i++) {
+            pickers[i] = new MovePicker(history, threadIndex);
+        }
+        setNetwork(network);
+    }
+
+    /**
+     * Searches until one of the limits runs out or {@link #stop} is called.
+     * The first iteration always completes, so a legal move is returned
+     * whenever there is one.
+     *
+     * @return the result of the deepest completed iteration
+     */
+    public SearchResult search(SearchLimits limits) {
+        long start = System.nanoTime();
+        long budget = limits.getMoveTime();
+        deadline = budget >= Long.MAX_VALUE / 2_000_000 ? Long.MAX_VALUE
+                : start + budget * 1_000_000;
+        nodeLimit = limits.getNodes();
+        this.limits = limits;
+        startNanos = start;
+        lastProgress = start;
+        long softTime = limits.getSoftTime();
+        double instability = 0;
+        int scoreDrop = 0;
+        nodes = 0;
+        lastPvLength = 0;
+        canStop = false;
+        for (int[] slots : killers) {
+            Arrays.fill(slots, Move.NONE);
+        }
+        if (threadIndex == 0) {
+            table.newSearch();
+        }
+
+        SearchResult result = new SearchResult(Move.NONE, 0, 0, 0, 0, new int[0]);
+        lastResult = result;
+        for (int depth = 1; depth <= limits.getDepth(); depth++) {
+            if (skipDepth(depth)) {
+                continue;
+            }
+            int score = searchRoot(depth, result.getScore());
+            if (stopped && canStop) {
+                break;
+            }
+            canStop = true;
+            // a best move that keeps changing, or a falling score, asks for
+            // more time
+            if (depth > 1) {
+                boolean changed = pvLength[0] > 0 && pvTable[0][0] != result.getBestMove();
+                instability = instability / 2 + (changed ? 1 : 0);
+                scoreDrop = result.getScore() - score;
+            }
+            lastPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, lastPv, 0, lastPvLength);
+            int[] pv = new int[lastPvLength];
+            System.arraycopy(lastPv, 0, pv, 0, lastPvLength);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            result = new SearchResult(
+                    lastPvLength > 0 ? lastPv[0] : Move.NONE, score, depth, nodes, millis, pv
+            );
+            lastResult = result;
+            if (progressListener != null) {
+                lastProgress = System.nanoTime();
+                progressListener.accept(result);
+            }
+            // nothing left to search, or a mate that a deeper search cannot
+            // shorten
+            if (lastPvLength == 0 || Math.abs(score) >= MATE - depth) {
+                break;
+            }
+            // the next iteration would most likely not finish in time
+            if (budget < Long.MAX_VALUE && millis * 2 > budget) {
+                break;
+            }
+            if (softTime < Long.MAX_VALUE
+                    && millis >= TimeAllocator.stretchSoftTime(softTime, instability, scoreDrop)) {
+                break;
+            }
+            if (stopped || limits.isStopped()) {
+                break;
+            }
+        }
+        stopped = false;
+        return result;
+    }
+
+    /**
+     * Makes a running search return as soon as possible. A stop that comes
+     * before the search has started makes it return after its first
+     * iteration. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Sets what is given the result of every completed iteration, and in a
+     * long iteration the last one again with the nodes and time brought up to
+     * date every half second. It is called on the searching thread.
+     */
+    public void setProgressListener(Consumer<SearchResult> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Sets the pawn hash table the evaluation uses, so it can outlive this
+     * search. It must not be used by another thread at the same time.
+     */
+    public void setPawnTable(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Evaluates with the network, or with the classical evaluation if it is
+     * null. Unless a network is given to the constructor or set here, the
+     * default network, if any, is used.
+     */
+    public void setNetwork(Nnue network) {
+        position.setAccumulator(network == null ? null : new NnueAccumulator(network));
+    }
+
+    public void setOptions(SearchOptions options) {
+        this.options = options;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public int getThreadIndex() {
+        return threadIndex;
+    }
+
+    private boolean skipDepth(int depth) {
+        if (threadIndex == 0 || depth == 1) {
+            return false;
+        }
+        int i = (threadIndex - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Searches the root in a window around the previous iteration's score,
+    // widening the window on the side the score falls out of until it lands
+    // inside
+    private int searchRoot(int depth, int previous) {
+        if (!options.isAspiration() || depth < ASPIRATION_DEPTH
+                || Math.abs(previous) >= MATE_BOUND) {
+            return negamax(depth, 0, -INFINITY, INFINITY, false);
+        }
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previous - delta, -INFINITY);
+        int beta = Math.min(previous + delta, INFINITY);
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta, false);
+            if (stopped && canStop) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, boolean nullAllowed) {
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_MASK) == 0) {
+            checkLimits();
+        }
+        if (stopped && canStop) {
+            return 0;
+        }
+        if (ply > 0 && (position.countRepetitions() > 0 || position.isFiftyMoveDraw())) {
+            return 0;
+        }
+        if (ply == MAX_PLY - 1) {
+            return Evaluation.evaluate(position, pawnTable);
+        }
+
+        long key = position.getKey();
+        long entry = table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                // an exact score would cut the principal variation short, so
+                // it only ends nodes searched with a null window
+                if (bound == TranspositionTable.EXACT ? beta - alpha == 1
+                        : bound == TranspositionTable.LOWER ? score >= beta : score <= alpha) {
+                    return score;
+                }
+            }
+        }
+        // the root falls back on the last iteration's move should the table
+        // have lost it
+        if (ply == 0 && hashMove == Move.NONE && lastPvLength > 0) {
+            hashMove = lastPv[0];
+        }
+
+        int us = position.getSideToMove();
+        boolean inCheck = position.isInCheck(us);
+        boolean pvNode = beta - alpha > 1;
+        boolean mateBounds = Math.abs(alpha) >= MATE_BOUND || Math.abs(beta) >= MATE_BOUND;
+        int staticEval = inCheck ? -INFINITY : Evaluation.evaluate(position, pawnTable);
+
+        // reverse futility: so far above beta that no quiet move near the
+        // horizon will bring the score back down
+        if (options.isReverseFutility() && !pvNode && !inCheck && !mateBounds
+                && depth <= REVERSE_FUTILITY_DEPTH
+                && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+            return staticEval;
+        }
+
+        // null move: if passing still fails high, a real move will too,
+        // except in zugzwang, which pawn endings are full of
+        if (options.isNullMove() && nullAllowed && !pvNode && !inCheck && !mateBounds
+                && depth >= NULL_MOVE_DEPTH && staticEval >= beta) {
+            int pieces = nonPawnMaterial(us);
+            if (pieces > 0) {
+                int reduced = depth - 1 - (NULL_MOVE_REDUCTION + depth / 6);
+                moveStack[ply] = Move.NONE;
+                position.makeNullMove();
+                int score = -negamax(reduced, ply + 1, -beta, -beta + 1, false);
+                position.unmakeNullMove();
+                if (stopped && canStop) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    // with only a piece or so left zugzwang is still likely,
+                    // so a search without null moves has to confirm the cut
+                    if (pieces > VERIFY_MATERIAL
+                            || negamax(reduced, ply, beta - 1, beta, false) >= beta) {
+                        return score >= MATE_BOUND ? beta : score;
+                    }
+                }
+            }
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.init(
+                position, inCheck, hashMove, killers[ply][0], killers[ply][1],
+                countermoveFor(ply)
+        );
+        boolean futile = options.isFutility() && !pvNode && !inCheck && !mateBounds
+                && depth < FUTILITY_MARGIN.length
+                && staticEval + FUTILITY_MARGIN[depth] <= alpha;
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int searched = 0;
+        int quietCount = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            searched++;
+            boolean quiet = MovePicker.isQuiet(move);
+            moveStack[ply] = move;
+            position.makeMove(move);
+            boolean givesCheck = position.isInCheck(us ^ 1);
+
+            // futility: a quiet move this close to the horizon cannot lift a
+            // score this far below alpha, unless it gives check
+            if (futile && quiet && searched > 1 && !givesCheck) {
+                position.unmakeMove();
+                best = Math.max(best, staticEval + FUTILITY_MARGIN[depth]);
+                quietsTried[ply][quietCount++] = move;
+                continue;
+            }
+
+            int newDepth = depth - 1;
+            int score;
+            if (searched == 1) {
+                score = -negamax(newDepth, ply + 1, -beta, -alpha, true);
+            } else {
+                // late quiet moves are searched less deeply first, and with a
+                // null window; only a move that beats alpha gets the full
+                // depth and then, in a PV node, the full window
+                int reduction = 0;
+                if (options.isLateMoveReductions() && quiet && !inCheck && !givesCheck
+                        && depth >= LMR_DEPTH) {
+                    reduction = REDUCTIONS[Math.min(depth, MAX_PLY - 1)]
+                            [Math.min(searched, MAX_PLY - 1)];
+                    if (pvNode) {
+                        reduction--;
+                    }
+                    reduction = Math.max(0, Math.min(reduction, newDepth - 1));
+                }
+                score = -negamax(newDepth - reduction, ply + 1, -alpha - 1, -alpha, true);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(newDepth, ply + 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(newDepth, ply + 1, -beta, -alpha, true);
+                }
+            }
+            position.unmakeMove();
+            if (stopped && canStop) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    pvTable[ply][0] = move;
+                    System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+                    pvLength[ply] = pvLength[ply + 1] + 1;
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            rewardQuiet(move, ply, depth, quietsTried[ply], quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+        if (searched == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        // a fail-low node has no move it knows to be best
+        table.store(
+                key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove,
+                scoreToTable(best, ply), depth, bound
+        );
+        return best;
+    }
+
+    // The material of the side's pieces other than pawns and the king
+    private int nonPawnMaterial(int color) {
+        int total = 0;
+        for (int type = Position.QUEEN; type <= Position.ROOK; type++) {
+            total += Evaluation.value(type) * Long.bitCount(position.getPieces(color, type));
+        }
+        return total;
+    }
+
+    // Searches captures and promotions until the position is quiet. A side
+    // that is not in check may stand pat on the static evaluation instead of
+    // capturing; one in check must answer it, so all its moves are searched.
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_MASK) == 0) {
+            checkLimits();
+        }
+        if (stopped && canStop) {
+            return 0;
+        }
+        if (ply == MAX_PLY - 1) {
+            return Evaluation.evaluate(position, pawnTable);
+        }
+        boolean inCheck = position.isInCheck(position.getSideToMove());
+        int best = -INFINITY;
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(position, true, Move.NONE, Move.NONE, Move.NONE, Move.NONE);
+        } else {
+            best = Evaluation.evaluate(position, pawnTable);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            picker.initQuiescence(position);
+        }
+
+        int searched = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            searched++;
+            moveStack[ply] = move;
+            position.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (stopped && canStop) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    pvTable[ply][0] = move;
+                    System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+                    pvLength[ply] = pvLength[ply + 1] + 1;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (inCheck && searched == 0) {
+            return -MATE + ply;
+        }
+        return best;
+    }
+
+    // The quiet move that last refuted the opponent's previous move
+    private int countermoveFor(int ply) {
+        // nothing answers the root or a null move
+        if (ply == 0 || moveStack[ply - 1] == Move.NONE) {
+            return Move.NONE;
+        }
+        return countermoves[countermoveIndex(moveStack[ply - 1])];
+    }
+
+    // The opponent's move is identified by its piece and destination
+    private int countermoveIndex(int previous) {
+        int them = position.getSideToMove() ^ 1;
+        return Position.pieceCode(them, Move.piece(previous)) * 64 + Move.to(previous);
+    }
+
+    // A quiet move cut the node off: make it a killer and a countermove, and
+    // move its history up by the square of the depth and the history of the
+    // quiet moves tried before it down by as much
+    private void rewardQuiet(int move, int ply, int depth, int[] tried, int count) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (ply > 0 && moveStack[ply - 1] != Move.NONE) {
+            countermoves[countermoveIndex(moveStack[ply - 1])] = move;
+        }
+        int us = position.getSideToMove();
+        int bonus = Math.min(depth * depth, HISTORY_MAX / 4);
+        updateHistory(MovePicker.historyIndex(us, move), bonus);
+        for (int i = 0; i < count; i++) {
+            updateHistory(MovePicker.historyIndex(us, tried[i]), -bonus);
+        }
+    }
+
+    // Moves an entry towards HISTORY_MAX or -HISTORY_MAX, slowing down as it
+    // gets there, so entries stay bounded and recent results count most
+    private void updateHistory(int index, int bonus) {
+        history[index] += bonus - history[index] * Math.abs(bonus) / HISTORY_MAX;
+    }
+
+    // Mate scores count plies from the root; the table stores them counted
+    // from the node instead, so they stay right wherever the node is reached
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private void checkLimits() {
+        long now = System.nanoTime();
+        if (nodes >= nodeLimit || now >= deadline || limits.isStopped()) {
+            stopped = true;
+        }
+        if (progressListener != null && canStop && now - lastProgress >= PROGRESS_INTERVAL) {
+            lastProgress = now;
+            progressListener.accept(new SearchResult(
+                    lastResult.getBestMove(), lastResult.getScore(), lastResult.getDepth(), nodes,
+                    (now - startNanos) / 1_000_000, lastResult.getPv()
+            ));
+        }
+    }
+}
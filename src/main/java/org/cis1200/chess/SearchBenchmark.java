@@ -0,0 +1,223 @@
+package org.cis1200.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SearchBenchmark searches a fixed suite of positions to a fixed depth and
+ * reports the time and nodes it took. Run with more than one thread count it
+ * shows how the Lazy SMP search scales: the time to reach the depth, and the
+ * nodes searched per second, each compared with one thread. The table is
+ * cleared before every position so runs do not help each other.
+ *
+ * Run from the command line as
+ * {@code java org.cis1200.chess.SearchBenchmark [depth] [max threads] [hash MB]}.
+ * The thread counts tried are the powers of two up to the maximum, and the
+ * maximum itself.
+ *
+ * {@code java org.cis1200.chess.SearchBenchmark pruning [depth]} instead
+ * measures the selective pruning of {@link SearchOptions} on one thread: the
+ * suite is searched full width, with everything on, and with everything on
+ * but one technique at a time. Each run reports its nodes and time, and on
+ * how many positions it picked the same move as the full-width search.
+ *
+ * {@code java org.cis1200.chess.SearchBenchmark pawns [depth]} searches the
+ * suite on one thread with pawn hash tables of several sizes, and reports the
+ * time and the share of pawn lookups that hit, to size the table by.
+ */
+public class SearchBenchmark {
+
+    static final String[] SUITE = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+        "r1bq1rk1/pp2bppp/2n2n2/3p4/3P4/2NBPN2/PP3PPP/R2QK2R w KQ - 0 9",
+    };
+
+    /**
+     * Time and nodes of one pass over the suite.
+     */
+    public static class Run {
+        private final int threads;
+        private final long nanos;
+        private final long nodes;
+        private final int[] bestMoves;
+
+        Run(int threads, long nanos, long nodes, int[] bestMoves) {
+            this.threads = threads;
+            this.nanos = nanos;
+            this.nodes = nodes;
+            this.bestMoves = bestMoves;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public long getMillis() {
+            return Math.max(nanos / 1_000_000, 1);
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getNps() {
+            return nodes * 1000 / getMillis();
+        }
+
+        /**
+         * @return on how many positions of the suite both runs chose the same
+         *         move
+         */
+        public int agreement(Run other) {
+            int same = 0;
+            for (int i = 0; i < bestMoves.length; i++) {
+                if (bestMoves[i] == other.bestMoves[i]) {
+                    same++;
+                }
+            }
+            return same;
+        }
+    }
+
+    /**
+     * Searches every position of the suite to the given depth.
+     */
+    public static Run run(LazySmpSearch search, int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        long nanos = 0;
+        long nodes = 0;
+        int[] bestMoves = new int[SUITE.length];
+        for (int i = 0; i < SUITE.length; i++) {
+            search.getTable().clear();
+            Position position = Position.fromFen(SUITE[i]);
+            long start = System.nanoTime();
+            SearchResult result = search.search(position, limits);
+            nanos += System.nanoTime() - start;
+            nodes += result.getNodes();
+            bestMoves[i] = result.getBestMove();
+        }
+        return new Run(search.getThreads(), nanos, nodes, bestMoves);
+    }
+
+    /**
+     * Searches the suite to the given depth on one thread under each pruning
+     * configuration and prints how each compares with the full-width search.
+     */
+    public static void comparePruning(int depth) {
+        String[] names = {
+            "full width", "all on", "no null move", "no LMR", "no futility",
+            "no reverse fut.", "no aspiration"
+        };
+        SearchOptions[] configs = new SearchOptions[names.length];
+        configs[0] = SearchOptions.fullWidth();
+        for (int i = 1; i < configs.length; i++) {
+            configs[i] = new SearchOptions();
+        }
+        configs[2].setNullMove(false);
+        configs[3].setLateMoveReductions(false);
+        configs[4].setFutility(false);
+        configs[5].setReverseFutility(false);
+        configs[6].setAspiration(false);
+
+        LazySmpSearch search = new LazySmpSearch(
+                new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB), 1
+        );
+        run(search, Math.max(1, depth - 2));
+
+        System.out.printf("%d positions to depth %d%n", SUITE.length, depth);
+        System.out.printf(
+                "%-16s %10s %14s %10s %10s%n", "Options", "Time ms", "Nodes", "Nodes %",
+                "Same move"
+        );
+        Run full = null;
+        for (int i = 0; i < configs.length; i++) {
+            search.setOptions(configs[i]);
+            Run run = run(search, depth);
+            if (full == null) {
+                full = run;
+            }
+            System.out.printf(
+                    "%-16s %10d %14d %10.1f %7d/%d%n",
+                    names[i], run.getMillis(), run.getNodes(),
+                    100.0 * run.getNodes() / full.getNodes(), run.agreement(full), SUITE.length
+            );
+        }
+        search.shutdown();
+    }
+
+    /**
+     * Searches the suite to the given depth on one thread with pawn hash
+     * tables of growing size and prints the time and hit rate of each.
+     */
+    public static void comparePawnTables(int depth) {
+        int[] sizes = { 1, 1 << 8, 1 << 10, 1 << 12, 1 << 14, 1 << 16 };
+        LazySmpSearch search = new LazySmpSearch(
+                new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB), 1
+        );
+        run(search, Math.max(1, depth - 2));
+
+        System.out.printf("%d positions to depth %d%n", SUITE.length, depth);
+        System.out.printf("%10s %10s %14s %10s%n", "Entries", "Time ms", "Nodes", "Hit %");
+        for (int size : sizes) {
+            search.resizePawnTables(size);
+            Run run = run(search, depth);
+            System.out.printf(
+                    "%10d %10d %14d %10.1f%n",
+                    size, run.getMillis(), run.getNodes(), 100 * search.getPawnHitRate()
+            );
+        }
+        search.shutdown();
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("pruning")) {
+            comparePruning(args.length > 1 ? Integer.parseInt(args[1]) : 6);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("pawns")) {
+            comparePawnTables(args.length > 1 ? Integer.parseInt(args[1]) : 6);
+            return;
+        }
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2])
+                : TranspositionTable.DEFAULT_SIZE_MB;
+
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(hashMb), 1);
+        // one untimed pass so the JIT has compiled the search before timing
+        run(search, Math.max(1, depth - 2));
+
+        System.out.printf("%d positions to depth %d%n", SUITE.length, depth);
+        System.out.printf(
+                "%8s %10s %14s %12s %10s %10s%n",
+                "Threads", "Time ms", "Nodes", "NPS", "Speedup", "NPS x"
+        );
+        Run single = null;
+        for (int threads : counts) {
+            search.setThreads(threads);
+            Run run = run(search, depth);
+            if (single == null) {
+                single = run;
+            }
+            System.out.printf(
+                    "%8d %10d %14d %12d %10.2f %10.2f%n",
+                    threads, run.getMillis(), run.getNodes(), run.getNps(),
+                    (double) single.getMillis() / run.getMillis(),
+                    (double) run.getNps() / single.getNps()
+            );
+        }
+        search.shutdown();
+    }
+}
@@ -0,0 +1,73 @@
+package org.cis1200.chess;
+
+/**
+ * SearchLimits tells a {@link Search} when to stop: after a given depth,
+ * after a given number of nodes or after a given time, whichever comes
+ * first. Every limit is unbounded until it is set.
+ *
+ * The move time is a hard limit that stops the search mid-iteration. A
+ * search on a clock also has a soft time, set by {@link TimeAllocator}, after
+ * which it only finishes the iteration it is in.
+ *
+ * A search can also be stopped from another thread through {@link #stop} on
+ * the limits it was given. Since every search has limits of its own, a stop
+ * meant for one search can never end the next.
+ */
+public class SearchLimits {
+    private int depth = Search.MAX_PLY - 1;
+    private long nodes = Long.MAX_VALUE;
+    private long moveTime = Long.MAX_VALUE;
+    private long softTime = Long.MAX_VALUE;
+    private volatile boolean stopped;
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, Search.MAX_PLY - 1));
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return the time budget in milliseconds
+     */
+    public long getMoveTime() {
+        return moveTime;
+    }
+
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * @return the time in milliseconds after which no new iteration starts
+     */
+    public long getSoftTime() {
+        return softTime;
+    }
+
+    public void setSoftTime(long softTime) {
+        this.softTime = softTime;
+    }
+
+    /**
+     * Makes the search running under these limits return as soon as it has
+     * completed its first iteration. Safe to call from any thread, before the
+     * search starts or while it runs.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+}
@@ -0,0 +1,68 @@
+package org.cis1200.chess;
+
+/**
+ * SearchOptions switches the selective parts of a {@link Search} on and off,
+ * so the effect of each on nodes searched and moves chosen can be measured
+ * (see {@link SearchBenchmark}). Everything is on by default; with
+ * everything off the search is full width down to the quiescence search.
+ */
+public class SearchOptions {
+    private boolean nullMove = true;
+    private boolean lateMoveReductions = true;
+    private boolean futility = true;
+    private boolean reverseFutility = true;
+    private boolean aspiration = true;
+
+    /**
+     * @return options with every selective technique switched off
+     */
+    public static SearchOptions fullWidth() {
+        SearchOptions options = new SearchOptions();
+        options.setNullMove(false);
+        options.setLateMoveReductions(false);
+        options.setFutility(false);
+        options.setReverseFutility(false);
+        options.setAspiration(false);
+        return options;
+    }
+
+    public boolean isNullMove() {
+        return nullMove;
+    }
+
+    public void setNullMove(boolean nullMove) {
+        this.nullMove = nullMove;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isFutility() {
+        return futility;
+    }
+
+    public void setFutility(boolean futility) {
+        this.futility = futility;
+    }
+
+    public boolean isReverseFutility() {
+        return reverseFutility;
+    }
+
+    public void setReverseFutility(boolean reverseFutility) {
+        this.reverseFutility = reverseFutility;
+    }
+
+    public boolean isAspiration() {
+        return aspiration;
+    }
+
+    public void setAspiration(boolean aspiration) {
+        this.aspiration = aspiration;
+    }
+}
@@ -0,0 +1,79 @@
+package org.cis1200.chess;
+
+/**
+ * SearchResult is what a {@link Search} reports after its last completed
+ * iteration: the move to play, its score, the principal variation that
+ * follows from it and what it cost to find.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+    private final int[] pv;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long millis, int[] pv) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.pv = pv.clone();
+    }
+
+    /**
+     * @return the move to play, or {@link Move#NONE} when there is none
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score in centipawns from the side to move's point of view
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return nodes searched per second
+     */
+    public long getNps() {
+        return nodes * 1000 / Math.max(millis, 1);
+    }
+
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * @return the principal variation in coordinate notation
+     */
+    public String pvString() {
+        StringBuilder builder = new StringBuilder();
+        for (int move : pv) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(Move.toUci(move));
+        }
+        return builder.toString();
+    }
+}
@@ -35,12 +35,17 @@ public class SoundEffects {
             castleClip = AudioSystem.getClip();
             castleClip.open(audioStream4);
 
-        } catch (LineUnavailableException | UnsupportedAudioFileException | IOException e) {
+        } catch (LineUnavailableException | UnsupportedAudioFileException | IOException
+                | IllegalArgumentException e) {
             System.err.println("Error playing sound: " + e.getMessage());
         }
     }
 
     public void playEffect(Effect effectType) {
+        if (moveClip == null || checkClip == null || checkmateClip == null || castleClip == null) {
+            // no audio device available (e.g. headless runs)
+            return;
+        }
         switch (effectType) {
             case MOVE:
                 moveClip.setFramePosition(0);
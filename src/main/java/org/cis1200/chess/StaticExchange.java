@@ -0,0 +1,107 @@
+package org.cis1200.chess;
+
+/**
+ * StaticExchange works out what a capture wins or loses once both sides have
+ * recaptured on its square for as long as it pays them, without making any
+ * move. Each side recaptures with its least valuable attacker, and may stop
+ * whenever going on would cost it. Pieces are taken off a copy of the
+ * occupancy as they capture, so sliders lined up behind them join in.
+ *
+ * Pins are ignored, and so are checks other than against a king that would
+ * capture onto a defended square.
+ */
+public final class StaticExchange {
+
+    /**
+     * The length of the buffer {@link #evaluate(Position, int, int[])} works
+     * in: one entry for every piece that could capture on the square.
+     */
+    public static final int MAX_CAPTURES = 32;
+
+    // high enough that capturing a king outweighs any exchange
+    private static final int KING_VALUE = 20000;
+    // least valuable first
+    private static final int[] CAPTURE_ORDER = {
+        Position.PAWN, Position.KNIGHT, Position.BISHOP, Position.ROOK, Position.QUEEN,
+        Position.KING
+    };
+
+    private StaticExchange() {
+    }
+
+    /**
+     * @return the material the side to move gains by the move, in centipawns,
+     *         when both sides then recapture for as long as it pays; zero
+     *         for a quiet move nobody can take back
+     */
+    public static int evaluate(Position position, int move) {
+        return evaluate(position, move, new int[MAX_CAPTURES]);
+    }
+
+    /**
+     * Works out the exchange as {@link #evaluate(Position, int)} does, in a
+     * buffer of the caller's, so that the search allocates nothing per
+     * capture.
+     *
+     * @param gain a buffer of at least {@link #MAX_CAPTURES} entries, which
+     *             is overwritten
+     */
+    public static int evaluate(Position position, int move, int[] gain) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int depth = 0;
+
+        long occupied = position.getOccupied() & ~(1L << from);
+        gain[0] = value(Move.captured(move));
+        int onSquare = Move.piece(move);
+        if (Move.isPromotion(move)) {
+            onSquare = Move.promotion(move);
+            gain[0] += value(onSquare) - value(Position.PAWN);
+        }
+        if (Move.isEnPassant(move)) {
+            occupied &= ~(1L << (to + (position.getSideToMove() == Position.WHITE ? -8 : 8)));
+        }
+
+        int side = position.getSideToMove() ^ 1;
+        long attackers = (position.attackersTo(to, Position.WHITE, occupied)
+                | position.attackersTo(to, Position.BLACK, occupied)) & occupied;
+        while (true) {
+            long own = attackers & position.getColorOccupancy(side);
+            if (own == 0) {
+                break;
+            }
+            int type = Position.EMPTY;
+            long attacker = 0L;
+            for (int candidate : CAPTURE_ORDER) {
+                attacker = own & position.getPieces(side, candidate);
+                if (attacker != 0) {
+                    type = candidate;
+                    break;
+                }
+            }
+            depth++;
+            // the score of this side if it captures and nothing more follows
+            gain[depth] = value(onSquare) - gain[depth - 1];
+            // neither side can do better by going on
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                break;
+            }
+            occupied &= ~Long.lowestOneBit(attacker);
+            attackers = (position.attackersTo(to, Position.WHITE, occupied)
+                    | position.attackersTo(to, Position.BLACK, occupied)) & occupied;
+            onSquare = type;
+            side ^= 1;
+        }
+        // each side picks the better of stopping or capturing, from the last
+        // capture back to the first
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    private static int value(int type) {
+        return type == Position.KING ? KING_VALUE : Evaluation.value(type);
+    }
+}
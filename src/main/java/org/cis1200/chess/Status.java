@@ -1,5 +1,5 @@
 package org.cis1200.chess;
 
 public enum Status {
-    NORMAL, CHECK, CHECKMATE, STALEMATE, DRAW, FLAG, RESIGN;
+    NORMAL, CHECK, CHECKMATE, STALEMATE, DRAW, REPETITION, FIFTY_MOVES, FLAG, RESIGN;
 }
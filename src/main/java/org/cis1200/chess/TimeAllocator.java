@@ -0,0 +1,85 @@
+package org.cis1200.chess;
+
+/**
+ * TimeAllocator decides how long the engine may think about a move on a
+ * clock. It sets two limits in {@link SearchLimits}:
+ * <ul>
+ * <li>the soft time, after which no new iteration is started. It is an even
+ * share of the time left over the moves the game is still expected to last,
+ * plus most of the increment or delay;</li>
+ * <li>the hard time, after which a running iteration is abandoned. It is a
+ * few times the soft time, but never more than a fraction of the time left,
+ * so one difficult move cannot lose the game on time.</li>
+ * </ul>
+ * While a search runs, the soft time is stretched by
+ * {@link #stretchSoftTime} when the position proves unstable: the best move
+ * keeps changing between iterations, or the score has just dropped.
+ */
+public final class TimeAllocator {
+    // millis kept back for the GUI and for playing the move
+    private static final long OVERHEAD = 50;
+    // moves a game is assumed to last, and the fewest still to come
+    private static final int GAME_LENGTH = 50;
+    private static final int MIN_MOVES_TO_GO = 20;
+    // the hard time is at most this many soft times, and this share of the clock
+    private static final int HARD_FACTOR = 4;
+    private static final int HARD_SHARE = 3;
+    // the soft time is stretched at most this many times over
+    private static final double MAX_STRETCH = 3.0;
+
+    private TimeAllocator() {
+    }
+
+    /**
+     * @param remaining  millis left on the mover's clock
+     * @param increment  millis added after each move
+     * @param delay      millis of each turn not charged to the clock
+     * @param moveNumber the full move number of the game
+     * @return limits with the soft and hard times set
+     */
+    public static SearchLimits allocate(
+            long remaining, long increment, long delay, int moveNumber
+    ) {
+        return allocate(remaining, increment, delay, moveNumber, 0);
+    }
+
+    /**
+     * Allocates time as {@link #allocate(long, long, long, int)} does, but for
+     * a time control with a fixed number of moves to the next time control.
+     *
+     * @param movesToGo the moves left until the clock is topped up, or zero if
+     *                  the rest of the game must be played on this time
+     */
+    public static SearchLimits allocate(
+            long remaining, long increment, long delay, int moveNumber, int movesToGo
+    ) {
+        long usable = Math.max(1, remaining - OVERHEAD);
+        if (movesToGo <= 0) {
+            movesToGo = Math.max(MIN_MOVES_TO_GO, GAME_LENGTH - moveNumber / 2);
+        }
+        long soft = usable / movesToGo + (increment + delay) * 3 / 4;
+        long hard = Math.min(soft * HARD_FACTOR, usable / HARD_SHARE + delay);
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(Math.max(1, hard));
+        limits.setSoftTime(Math.max(1, Math.min(soft, hard)));
+        return limits;
+    }
+
+    /**
+     * @param softTime    the soft time in millis
+     * @param instability how often the best move has changed of late, each
+     *                    earlier change counting half as much as the next
+     * @param scoreDrop   how many centipawns the score fell in the last
+     *                    iteration
+     * @return the soft time, stretched for an unstable position
+     */
+    public static long stretchSoftTime(long softTime, double instability, int scoreDrop) {
+        double factor = 1.0 + instability / 2;
+        if (scoreDrop >= 50) {
+            factor += 0.5;
+        } else if (scoreDrop >= 20) {
+            factor += 0.25;
+        }
+        return (long) (softTime * Math.min(factor, MAX_STRETCH));
+    }
+}
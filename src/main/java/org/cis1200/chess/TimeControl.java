@@ -0,0 +1,81 @@
+package org.cis1200.chess;
+
+/**
+ * TimeControl describes how much time each side gets: a base time for the
+ * whole game, an increment added to a side's clock after each of its moves,
+ * and a delay, the part of each turn that is not charged to the clock at
+ * all. Either of the last two may be zero.
+ *
+ * It is written as minutes plus seconds: "5+3" is five minutes with a three
+ * second increment, "5d3" five minutes with a three second delay, "10" ten
+ * minutes and nothing else.
+ */
+public class TimeControl {
+    private final long baseMillis;
+    private final long incrementMillis;
+    private final long delayMillis;
+
+    public TimeControl(long baseMillis, long incrementMillis, long delayMillis) {
+        if (baseMillis <= 0 || incrementMillis < 0 || delayMillis < 0) {
+            throw new IllegalArgumentException("invalid time control");
+        }
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Reads a time control written as "minutes", "minutes+increment" or
+     * "minutes" followed by 'd' and the delay, increment and delay in
+     * seconds.
+     *
+     * @return the time control, or null for "none" or an empty string
+     * @throws IllegalArgumentException if the text is none of these
+     */
+    public static TimeControl parse(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || trimmed.equalsIgnoreCase("none")) {
+            return null;
+        }
+        int split = Math.max(trimmed.indexOf('+'), trimmed.indexOf('d'));
+        try {
+            double minutes = Double.parseDouble(split < 0 ? trimmed : trimmed.substring(0, split));
+            long extra = split < 0 ? 0
+                    : Math.round(Double.parseDouble(trimmed.substring(split + 1)) * 1000);
+            long base = Math.round(minutes * 60_000);
+            if (split >= 0 && trimmed.charAt(split) == 'd') {
+                return new TimeControl(base, 0, extra);
+            }
+            return new TimeControl(base, extra, 0);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid time control: " + text, e);
+        }
+    }
+
+    public long getBaseMillis() {
+        return baseMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    @Override
+    public String toString() {
+        String text = format(baseMillis, 60_000);
+        if (delayMillis > 0) {
+            return text + "d" + format(delayMillis, 1000);
+        }
+        return incrementMillis > 0 ? text + "+" + format(incrementMillis, 1000) : text;
+    }
+
+    // Whole units without a decimal point
+    private static String format(long millis, long unit) {
+        return millis % unit == 0 ? Long.toString(millis / unit)
+                : Double.toString((double) millis / unit);
+    }
+}
@@ -0,0 +1,198 @@
+package org.cis1200.chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TranspositionTable remembers what the search has learned about positions
+ * it has already visited, indexed by their Zobrist key. It is a flat
+ * {@code long[]} holding two longs per entry, sized in megabytes and rounded
+ * down to a power of two entries.
+ *
+ * An entry packs the best move, the score, the depth, the bound type and the
+ * search generation into one data word, and stores the key XOR-ed with that
+ * data word next to it. Reads and writes take no lock: a probe recomputes
+ * {@code key ^ data} and only accepts the entry when it gives back the key
+ * it asked for. A write torn by another thread leaves a pair that fails that
+ * test, so it reads as a miss instead of as a corrupt entry. Any number of
+ * search threads may share one table.
+ *
+ * Data word layout:
+ * <pre>
+ *  bits  0-23  best move
+ *  bits 24-39  score, signed
+ *  bits 40-47  depth
+ *  bits 48-49  bound
+ *  bits 50-57  generation
+ * </pre>
+ */
+public class TranspositionTable {
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    public static final int EXACT = 1;
+    // the score is at least the stored one: the node failed high
+    public static final int LOWER = 2;
+    // the score is at most the stored one: the node failed low
+    public static final int UPPER = 3;
+
+    // a real entry always has a bound, so its data word is never zero
+    public static final long NO_ENTRY = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+    // slots looked at to estimate how full the table is
+    private static final int FILL_SAMPLE = 1000;
+
+    private long[] table;
+    private int mask;
+    private int generation;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Reallocates the table at the given size, dropping everything in it.
+     * Must not be called while a search is using the table.
+     */
+    public void resize(int sizeMb) {
+        long entries = Math.max(1L, (long) sizeMb) * 1024 * 1024 / ENTRY_BYTES;
+        // the largest power of two that fits, within what an array can index
+        int capacity = (int) Math.min(Long.highestOneBit(entries), 1L << 29);
+        table = new long[capacity * 2];
+        mask = capacity - 1;
+        generation = 0;
+        resetStatistics();
+    }
+
+    /**
+     * Empties the table, as at the start of a new game.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+        resetStatistics();
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier searches are
+     * replaced before those of the current one.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * @return the data word stored for the key, or {@link #NO_ENTRY}
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        long check = table[index];
+        probes.increment();
+        if (data != NO_ENTRY && (check ^ data) == key) {
+            hits.increment();
+            return data;
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores a search result. An entry of another position is replaced only
+     * if it comes from an earlier search or was searched less deeply; an
+     * entry of the same position keeps its best move when none is given.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long oldData = table[index + 1];
+        long oldKey = table[index] ^ oldData;
+        if (oldData != NO_ENTRY) {
+            if (oldKey == key) {
+                if (move == Move.NONE) {
+                    move = move(oldData);
+                }
+            } else if (generation(oldData) == generation && depth(oldData) > depth) {
+                return;
+            }
+        }
+        long data = (move & 0xFFFFFFL)
+                | (score & 0xFFFFL) << 24
+                | (long) (depth & 0xFF) << 40
+                | (long) bound << 48
+                | (long) generation << 50;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 24);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 48) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 50) & 0xFF;
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Estimates how full the table is from a sample of its first entries,
+     * counting only entries written by the current search.
+     *
+     * @return the fill rate in permille, as UCI reports "hashfull"
+     */
+    public int getFillPermille() {
+        int sample = Math.min(FILL_SAMPLE, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * 2 + 1];
+            if (data != NO_ENTRY && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * @return the fraction of probes since the last clear that found their
+     *         position
+     */
+    public double getHitRate() {
+        long total = probes.sum();
+        return total == 0 ? 0.0 : (double) hits.sum() / total;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    private void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
@@ -0,0 +1,492 @@
+package org.cis1200.chess;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UciEngine plays the engine through the Universal Chess Interface, so that
+ * tournament tools and other GUIs can run it without the Swing board. It
+ * reads commands from standard input and answers on standard output, one
+ * line at a time, flushing every line as soon as it is written.
+ *
+ * The commands understood are {@code uci}, {@code isready},
+ * {@code ucinewgame}, {@code setoption} (Hash in megabytes, Threads,
+ * EvalFile, an {@link Nnue} network file to evaluate with, and BookFile, an
+ * {@link OpeningBook} to play from while it has moves),
+ * {@code position startpos|fen ... [moves ...]}, {@code go} with
+ * {@code depth}, {@code nodes}, {@code movetime}, {@code wtime},
+ * {@code btime}, {@code winc}, {@code binc}, {@code movestogo},
+ * {@code infinite} and {@code ponder}, and {@code stop}, {@code ponderhit}
+ * and {@code quit}. Anything else is ignored, as the protocol asks.
+ *
+ * Searches run on an {@link EngineService} worker, so {@code stop} and
+ * {@code isready} are answered while a search runs. Every progress report is
+ * sent as an {@code info} line with the nodes per second. While pondering or
+ * searching with {@code infinite}, the best move is held back until
+ * {@code stop} or {@code ponderhit}, even if the search ends by itself.
+ *
+ * Run from the command line as {@code java org.cis1200.chess.UciEngine}.
+ */
+public class UciEngine {
+    public static final String NAME = "Jeffrey Chess";
+    public static final String AUTHOR = "Jeffrey Oduman";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final PrintStream out;
+    private final TranspositionTable table = new TranspositionTable(
+            TranspositionTable.DEFAULT_SIZE_MB
+    );
+    private final LazySmpSearch engine = new LazySmpSearch(table, 1);
+    private final EngineService service = new EngineService(engine, Runnable::run);
+
+    private final Random random = new Random();
+    private final MoveList bookMoves = new MoveList();
+
+    private Position position = Position.startPosition();
+    private OpeningBook book;
+    private EngineTask task;
+    // counts the searches started, so a result can be matched to its search
+    private long searches;
+    // while pondering, the limits the search gets on a ponder hit
+    private SearchLimits ponderLimits;
+    private ScheduledFuture<?> ponderStop;
+    // the best move is not sent until stop or ponderhit
+    private boolean holdBestMove;
+    private SearchResult heldResult;
+
+    /**
+     * @param out where the answers go; should flush every line
+     */
+    public UciEngine(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(
+                new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8
+        );
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(System.in, StandardCharsets.UTF_8)
+        );
+        new UciEngine(out).run(in);
+    }
+
+    /**
+     * Handles commands until {@code quit} or the end of the input.
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) {
+                break;
+            }
+        }
+        stopSearch();
+        service.shutdown();
+        engine.shutdown();
+    }
+
+    /**
+     * Handles one command line.
+     *
+     * @return false once the command was {@code quit}
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send(
+                        "option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB
+                                + " min 1 max " + MAX_HASH_MB
+                );
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name EvalFile type string default <empty>");
+                send("option name BookFile type string default <empty>");
+                send("option name Ponder type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                table.clear();
+                position = Position.startPosition();
+                break;
+            case "position":
+                setPosition(tokens);
+                break;
+            case "go":
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "quit":
+                return false;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * @return the position the next {@code go} searches
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public LazySmpSearch getEngine() {
+        return engine;
+    }
+
+    // setoption name <name> value <value>; names may hold spaces
+    private void setOption(String[] tokens) {
+        StringBuilder name = new StringBuilder();
+        String value = null;
+        for (int i = 2; i < tokens.length; i++) {
+            if (tokens[i].equals("value")) {
+                // a file name may hold spaces too
+                value = String.join(" ", Arrays.copyOfRange(tokens, i + 1, tokens.length));
+                break;
+            }
+            name.append(name.length() > 0 ? " " : "").append(tokens[i]);
+        }
+        if (value == null) {
+            return;
+        }
+        try {
+            switch (name.toString().toLowerCase()) {
+                case "hash":
+                    stopSearch();
+                    table.resize(clamp(Integer.parseInt(value), 1, MAX_HASH_MB));
+                    break;
+                case "threads":
+                    stopSearch();
+                    engine.setThreads(clamp(Integer.parseInt(value), 1, MAX_THREADS));
+                    break;
+                case "evalfile":
+                    stopSearch();
+                    setNetwork(value);
+                    break;
+                case "bookfile":
+                    setBook(value);
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid value " + value + " for " + name);
+        }
+    }
+
+    // Loads the network, or goes back to the classical evaluation without one
+    private void setNetwork(String file) {
+        if (file.isEmpty() || file.equals("<empty>")) {
+            engine.setNetwork(null);
+            send("info string classical evaluation");
+            return;
+        }
+        try {
+            Nnue network = Nnue.load(Paths.get(file));
+            engine.setNetwork(network);
+            send("info string network " + file + " loaded, " + network.getHidden() + " hidden");
+        } catch (IOException | InvalidPathException e) {
+            engine.setNetwork(null);
+            send("info string " + e.getMessage() + ", classical evaluation");
+        }
+    }
+
+    // Opens the book, or plays without one
+    private void setBook(String file) {
+        book = null;
+        if (file.isEmpty() || file.equals("<empty>")) {
+            return;
+        }
+        try {
+            book = OpeningBook.open(Paths.get(file));
+            send("info string book " + file + " opened, " + book.size() + " entries");
+        } catch (IOException | InvalidPathException e) {
+            send("info string " + e.getMessage() + ", no book");
+        }
+    }
+
+    // position startpos|fen <six fields> [moves <move>...]
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        Position next;
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            next = Position.startPosition();
+            i = 2;
+        } else if (tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(fen.length() > 0 ? " " : "").append(tokens[i]);
+            }
+            try {
+                next = Position.fromFen(fen.toString());
+            } catch (RuntimeException e) {
+                send("info string invalid fen " + fen);
+                return;
+            }
+        } else {
+            return;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = parseMove(next, tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + tokens[i]);
+                    break;
+                }
+                next.makeMove(move);
+            }
+        }
+        position = next;
+    }
+
+    /**
+     * @return the legal move written in coordinate notation, or
+     *         {@link Move#NONE}
+     */
+    public static int parseMove(Position position, String text) {
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toUci(moves.get(i)).equals(text)) {
+                return moves.get(i);
+            }
+        }
+        return Move.NONE;
+    }
+
+    private void go(String[] tokens) {
+        stopSearch();
+        SearchLimits limits = new SearchLimits();
+        long[] time = new long[2];
+        long[] increment = new long[2];
+        boolean clock = false;
+        boolean infinite = false;
+        boolean ponder = false;
+        int movesToGo = 0;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+                switch (tokens[i]) {
+                    case "depth":
+                        limits.setDepth(Integer.parseInt(value));
+                        i++;
+                        break;
+                    case "nodes":
+                        limits.setNodes(Long.parseLong(value));
+                        i++;
+                        break;
+                    case "movetime":
+                        limits.setMoveTime(Long.parseLong(value));
+                        i++;
+                        break;
+                    case "wtime":
+                    case "btime":
+                        time[tokens[i].charAt(0) == 'w' ? 0 : 1] = Long.parseLong(value);
+                        clock = true;
+                        i++;
+                        break;
+                    case "winc":
+                    case "binc":
+                        increment[tokens[i].charAt(0) == 'w' ? 0 : 1] = Long.parseLong(value);
+                        i++;
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(value);
+                        i++;
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    case "ponder":
+                        ponder = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid go command");
+            return;
+        }
+
+        int bookMove = book == null || infinite || ponder ? Move.NONE
+                : book.choose(position, random, bookMoves);
+        if (bookMove != Move.NONE) {
+            send("bestmove " + Move.toUci(bookMove));
+            return;
+        }
+
+        SearchLimits timed = limits;
+        if (clock && !infinite) {
+            int us = position.getSideToMove();
+            timed = TimeAllocator.allocate(
+                    time[us], increment[us], 0, position.getFullmoveNumber(), movesToGo
+            );
+            timed.setDepth(limits.getDepth());
+            timed.setNodes(limits.getNodes());
+            // movetime still caps the search alongside the clock
+            timed.setMoveTime(Math.min(timed.getMoveTime(), limits.getMoveTime()));
+        }
+        SearchLimits searched = timed;
+        synchronized (this) {
+            holdBestMove = infinite || ponder;
+            heldResult = null;
+            ponderLimits = null;
+            if (ponder) {
+                // think without a clock until ponderhit says the move was played
+                searched = new SearchLimits();
+                searched.setDepth(limits.getDepth());
+                searched.setNodes(limits.getNodes());
+                ponderLimits = timed;
+            }
+            // numbered before it is queued, since it may be over before
+            // search returns; finished compares the numbers under this lock
+            long search = ++searches;
+            task = service.search(
+                    position, searched, this::sendInfo, result -> finished(search, result)
+            );
+        }
+    }
+
+    private synchronized void ponderHit() {
+        if (task == null || ponderLimits == null) {
+            return;
+        }
+        SearchLimits limits = ponderLimits;
+        ponderLimits = null;
+        holdBestMove = false;
+        if (heldResult != null) {
+            sendBestMove(heldResult);
+            heldResult = null;
+            task = null;
+            return;
+        }
+        long budget = limits.getSoftTime() < Long.MAX_VALUE ? limits.getSoftTime()
+                : limits.getMoveTime();
+        if (budget < Long.MAX_VALUE) {
+            EngineTask hit = task;
+            ponderStop = ChessClock.scheduler().schedule(
+                    hit::stop, budget, TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    // Ends the search, waiting for it, so its best move is sent before any
+    // later command is handled
+    private void stopSearch() {
+        EngineTask running;
+        synchronized (this) {
+            running = task;
+            holdBestMove = false;
+            ponderLimits = null;
+            if (ponderStop != null) {
+                ponderStop.cancel(false);
+                ponderStop = null;
+            }
+            if (running == null) {
+                return;
+            }
+            if (heldResult != null) {
+                sendBestMove(heldResult);
+                heldResult = null;
+                task = null;
+                return;
+            }
+        }
+        running.stop();
+        SearchResult result = running.getResult().join();
+        synchronized (this) {
+            // unless finished got there first
+            if (task == running) {
+                task = null;
+                if (result != null) {
+                    sendBestMove(result);
+                }
+            }
+        }
+    }
+
+    // Sends the best move of the latest search, unless it has been sent
+    // already or the search has been replaced
+    private synchronized void finished(long search, SearchResult result) {
+        if (search != searches || task == null) {
+            return;
+        }
+        if (holdBestMove) {
+            heldResult = result;
+            return;
+        }
+        sendBestMove(result);
+        task = null;
+    }
+
+    private void sendBestMove(SearchResult result) {
+        int[] pv = result.getPv();
+        String line = "bestmove " + Move.toUci(result.getBestMove());
+        if (pv.length >= 2) {
+            line += " ponder " + Move.toUci(pv[1]);
+        }
+        send(line);
+    }
+
+    private void sendInfo(SearchResult progress) {
+        StringBuilder line = new StringBuilder("info depth ").append(progress.getDepth());
+        int score = progress.getScore();
+        if (progress.isMate()) {
+            int moves = score > 0 ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2;
+            line.append(" score mate ").append(moves);
+        } else {
+            line.append(" score cp ").append(score);
+        }
+        line.append(" nodes ").append(progress.getNodes())
+                .append(" nps ").append(progress.getNps())
+                .append(" time ").append(progress.getMillis())
+                .append(" hashfull ").append(table.getFillPermille());
+        if (progress.getPv().length > 0) {
+            line.append(" pv ").append(progress.pvString());
+        }
+        send(line.toString());
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+}
@@ -0,0 +1,64 @@
+package org.cis1200.chess;
+
+/**
+ * Zobrist holds the random numbers that make up a position's 64-bit hash
+ * key. The key of a position is the XOR of one number for every piece on
+ * every square, one for the castling rights, one for the en-passant file
+ * and one when black is to move. Because XOR is its own inverse, a move
+ * changes the key by XOR-ing out what it removes and XOR-ing in what it
+ * adds, so {@link Position} keeps its key up to date as it plays moves.
+ *
+ * The numbers come from a fixed seed, so keys are identical across runs.
+ */
+public final class Zobrist {
+
+    // indexed by piece code * 64 + square
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    // indexed by the full castling rights mask
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = nextRandom();
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = nextRandom();
+        }
+        CASTLING[0] = 0L;
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = nextRandom();
+        }
+        BLACK_TO_MOVE = nextRandom();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int code, int sq) {
+        return PIECE_SQUARE[code * 64 + sq];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int sq) {
+        return EN_PASSANT_FILE[Position.fileOf(sq)];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    // xorshift64*, as in Attacks
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
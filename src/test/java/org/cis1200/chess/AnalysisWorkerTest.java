@@ -0,0 +1,88 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisWorkerTest {
+    // white mates with Ra8, and black with Ra1
+    private static final String WHITE_MATES = "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1";
+    private static final String BLACK_MATES = "r5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1";
+
+    private final List<Integer> scores = new CopyOnWriteArrayList<>();
+    private final List<Long> times = new CopyOnWriteArrayList<>();
+    private AnalysisWorker worker;
+
+    @AfterEach
+    public void tearDown() {
+        worker.shutdown();
+    }
+
+    private void start(int updatesPerSecond) {
+        worker = new AnalysisWorker(
+                new LazySmpSearch(new TranspositionTable(4), 1), Runnable::run, score -> {
+                    scores.add(score);
+                    times.add(System.nanoTime());
+                }, updatesPerSecond
+        );
+    }
+
+    private static void awaitScore(List<Integer> scores, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!scores.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(scores.contains(expected), scores.toString());
+    }
+
+    @Test
+    public void testScoresAreFromWhitesPointOfView() throws Exception {
+        start(20);
+        assertTrue(worker.analyze(Position.fromFen(WHITE_MATES)));
+        awaitScore(scores, Search.MATE - 1);
+
+        worker.analyze(Position.fromFen(BLACK_MATES));
+        awaitScore(scores, -(Search.MATE - 1));
+    }
+
+    @Test
+    public void testSamePositionGoesOn() {
+        start(20);
+        assertTrue(worker.analyze(Position.startPosition()));
+        assertFalse(worker.analyze(Position.startPosition()));
+        assertTrue(worker.isAnalyzing());
+        worker.stop();
+        assertTrue(worker.analyze(Position.startPosition()));
+    }
+
+    @Test
+    public void testNewPositionDropsOldReports() throws Exception {
+        start(50);
+        worker.analyze(Position.fromFen(WHITE_MATES));
+        awaitScore(scores, Search.MATE - 1);
+        worker.analyze(Position.fromFen(BLACK_MATES));
+        // anything of the first analysis in flight has been dropped by now
+        Thread.sleep(50);
+        int seen = scores.size();
+        awaitScore(scores, -(Search.MATE - 1));
+        for (int score : scores.subList(seen, scores.size())) {
+            assertTrue(score < 0, scores.toString());
+        }
+    }
+
+    @Test
+    public void testUpdatesAreThrottled() throws Exception {
+        start(5);
+        worker.analyze(Position.startPosition());
+        Thread.sleep(2000);
+        assertFalse(scores.isEmpty());
+        // at most five a second, however often the search reported
+        assertTrue(scores.size() <= 11, scores.toString());
+        for (int i = 1; i < times.size(); i++) {
+            assertTrue(times.get(i) - times.get(i - 1) >= 190_000_000L);
+        }
+    }
+}
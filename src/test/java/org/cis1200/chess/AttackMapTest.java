@@ -0,0 +1,63 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackMapTest {
+
+    // Plays a move on the position and updates the map with the squares it
+    // touched, the same way ChessLogicMachine does
+    private static void play(Position position, AttackMap map, String from, String to) {
+        int fromSq = Position.parseSquare(from);
+        int toSq = Position.parseSquare(to);
+        long before = position.getOccupied();
+        position.makeMove(position.createMove(fromSq, toSq, Position.EMPTY));
+        long changed = (before ^ position.getOccupied()) | (1L << fromSq) | (1L << toSq);
+        map.update(position, changed);
+        assertTrue(map.matches(position), "attack map out of sync after " + from + to);
+    }
+
+    @Test
+    public void testStartingCounts() {
+        Position position = Position.startPosition();
+        AttackMap map = new AttackMap(position);
+
+        // f3 is covered by the g2 and e2 pawns and the g1 knight
+        assertEquals(3, map.getAttackCount(Position.WHITE, Position.parseSquare("f3")));
+        assertEquals(0, map.getAttackCount(Position.BLACK, Position.parseSquare("f3")));
+        // e2 is defended by king, queen, bishop and knight
+        assertEquals(4, map.getAttackCount(Position.WHITE, Position.parseSquare("e2")));
+        assertFalse(map.isAttacked(Position.parseSquare("e4"), Position.WHITE));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRebuild() {
+        Position position = Position.startPosition();
+        AttackMap map = new AttackMap(position);
+
+        play(position, map, "e2", "e4");
+        play(position, map, "d7", "d5");
+        play(position, map, "e4", "d5"); // capture opens the e-file diagonal
+        play(position, map, "d8", "d5"); // queen recaptures along the file
+        play(position, map, "g1", "f3");
+        play(position, map, "c8", "g4");
+        play(position, map, "f1", "e2");
+        play(position, map, "b8", "c6");
+        play(position, map, "e1", "g1"); // castles, rook hops to f1
+        play(position, map, "e8", "c8"); // long castle
+
+        assertEquals(Position.parseSquare("g1"), position.getKingSquare(Position.WHITE));
+        assertEquals(Position.ROOK, position.getTypeAt(Position.parseSquare("d8")));
+    }
+
+    @Test
+    public void testEnPassantUpdate() {
+        Position position = Position.fromFen("4k3/8/8/3pP3/8/8/8/4K2R w K d6 0 1");
+        AttackMap map = new AttackMap(position);
+
+        play(position, map, "e5", "d6");
+
+        assertEquals(Position.EMPTY, position.getTypeAt(Position.parseSquare("d5")));
+    }
+}
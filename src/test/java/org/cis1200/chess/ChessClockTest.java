@@ -0,0 +1,134 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessClockTest {
+    private ScheduledExecutorService scheduler;
+    // simulated time in nanoseconds
+    private long now;
+
+    private ChessClock clock(String control) {
+        return new ChessClock(TimeControl.parse(control), scheduler, () -> now);
+    }
+
+    private void advance(long millis) {
+        now += millis * 1_000_000;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testParse() {
+        TimeControl blitz = TimeControl.parse("5+3");
+        assertEquals(300_000, blitz.getBaseMillis());
+        assertEquals(3000, blitz.getIncrementMillis());
+        assertEquals(0, blitz.getDelayMillis());
+        TimeControl delay = TimeControl.parse("1.5d2");
+        assertEquals(90_000, delay.getBaseMillis());
+        assertEquals(2000, delay.getDelayMillis());
+        assertEquals("1.5d2", delay.toString());
+        assertNull(TimeControl.parse("none"));
+        assertThrows(IllegalArgumentException.class, () -> TimeControl.parse("fast"));
+    }
+
+    @Test
+    public void testFirstMoveIsFree() {
+        ChessClock clock = clock("1+2");
+        advance(5000);
+        clock.press(Position.WHITE);
+        assertEquals(60_000, clock.getRemaining(Position.WHITE));
+        assertEquals(Position.BLACK, clock.getRunning());
+    }
+
+    @Test
+    public void testIncrement() {
+        ChessClock clock = clock("1+2");
+        clock.press(Position.WHITE);
+        advance(5000);
+        assertEquals(55_000, clock.getRemaining(Position.BLACK));
+        clock.press(Position.BLACK);
+        assertEquals(57_000, clock.getRemaining(Position.BLACK));
+        assertEquals(Position.WHITE, clock.getRunning());
+    }
+
+    @Test
+    public void testDelayIsNotCharged() {
+        ChessClock clock = clock("1d3");
+        clock.press(Position.WHITE);
+        advance(2000);
+        clock.press(Position.BLACK);
+        assertEquals(60_000, clock.getRemaining(Position.BLACK));
+        advance(5000);
+        assertEquals(58_000, clock.getRemaining(Position.WHITE));
+    }
+
+    @Test
+    public void testFlagFall() {
+        ChessClock clock = clock("1");
+        AtomicInteger loser = new AtomicInteger(ChessClock.NONE);
+        clock.setFlagListener(loser::set);
+        clock.press(Position.WHITE);
+        advance(59_000);
+        clock.checkFlag();
+        assertEquals(ChessClock.NONE, loser.get());
+        advance(1000);
+        clock.checkFlag();
+        assertEquals(Position.BLACK, loser.get());
+        assertEquals(Position.BLACK, clock.getFlagged());
+        assertEquals(0, clock.getRemaining(Position.BLACK));
+        // a move after the flag has fallen changes nothing
+        clock.press(Position.BLACK);
+        assertEquals(ChessClock.NONE, clock.getRunning());
+    }
+
+    @Test
+    public void testSchedulerDropsFlag() throws InterruptedException {
+        ChessClock clock = new ChessClock(
+                new TimeControl(50, 0, 0), scheduler, System::nanoTime
+        );
+        AtomicInteger loser = new AtomicInteger(ChessClock.NONE);
+        clock.setFlagListener(loser::set);
+        clock.press(Position.BLACK);
+        Thread.sleep(500);
+        assertEquals(Position.WHITE, loser.get());
+    }
+
+    @Test
+    public void testStop() {
+        ChessClock clock = clock("1");
+        clock.press(Position.WHITE);
+        advance(1000);
+        clock.stop();
+        advance(100_000);
+        clock.checkFlag();
+        assertEquals(ChessClock.NONE, clock.getFlagged());
+        assertEquals(59_000, clock.getRemaining(Position.BLACK));
+    }
+
+    @Test
+    public void testAllocation() {
+        SearchLimits limits = TimeAllocator.allocate(60_000, 0, 0, 1);
+        assertTrue(limits.getSoftTime() < limits.getMoveTime());
+        assertTrue(limits.getMoveTime() < 60_000 / 2);
+        // an increment is mostly spent on the move it is given for
+        assertTrue(TimeAllocator.allocate(60_000, 2000, 0, 1).getSoftTime() > 2000);
+        // short of time the hard limit stays well within the clock
+        assertTrue(TimeAllocator.allocate(300, 2000, 0, 40).getMoveTime() < 300);
+        assertTrue(TimeAllocator.stretchSoftTime(1000, 1.5, 60) > 1000);
+        assertEquals(1000, TimeAllocator.stretchSoftTime(1000, 0, 0));
+    }
+}
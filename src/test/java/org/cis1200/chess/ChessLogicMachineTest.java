@@ -2,10 +2,6 @@ package org.cis1200.chess;
 
 import org.junit.jupiter.api.*;
 
-import java.util.ArrayList;
-import java.util.NoSuchElementException;
-
-import static org.cis1200.chess.ChessArena.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ChessLogicMachineTest {
@@ -16,54 +12,59 @@ public class ChessLogicMachineTest {
     private King blackKing;
     private ChessArena caller;
 
+    // Clicks the square in the given column and row of the board, row 0
+    // being the eighth rank as on screen
+    private void click(int col, int row) {
+        chess.handleClick(Position.squareOf(row, col));
+    }
+
     @BeforeEach
     public void setUp() {
-        int size = getPieceSize();
         squareMatrix = new BoardSquare[8][8];
         pieceMatrix = new Piece[8][8];
 
-        pieceMatrix[0][0] = new Rook(0, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][1] = new Knight(size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][2] = new Bishop(2 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][3] = new Queen(3 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][4] = blackKing = new King(4 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][5] = new Bishop(5 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][6] = new Knight(6 * size, 0, size, size, ChessColor.BLACK);
-        pieceMatrix[0][7] = new Rook(7 * size, 0, size, size, ChessColor.BLACK);
-
-        pieceMatrix[7][0] = new Rook(0, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][1] = new Knight(size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][2] = new Bishop(2 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][3] = new Queen(3 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][4] = whiteKing = new King(4 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][5] = new Bishop(5 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][6] = new Knight(6 * size, 7 * size, size, size, ChessColor.WHITE);
-        pieceMatrix[7][7] = new Rook(7 * size, 7 * size, size, size, ChessColor.WHITE);
+        pieceMatrix[0][0] = new Rook(Position.squareOf(0, 0), ChessColor.BLACK);
+        pieceMatrix[0][1] = new Knight(Position.squareOf(0, 1), ChessColor.BLACK);
+        pieceMatrix[0][2] = new Bishop(Position.squareOf(0, 2), ChessColor.BLACK);
+        pieceMatrix[0][3] = new Queen(Position.squareOf(0, 3), ChessColor.BLACK);
+        pieceMatrix[0][4] = blackKing = new King(Position.squareOf(0, 4), ChessColor.BLACK);
+        pieceMatrix[0][5] = new Bishop(Position.squareOf(0, 5), ChessColor.BLACK);
+        pieceMatrix[0][6] = new Knight(Position.squareOf(0, 6), ChessColor.BLACK);
+        pieceMatrix[0][7] = new Rook(Position.squareOf(0, 7), ChessColor.BLACK);
+
+        pieceMatrix[7][0] = new Rook(Position.squareOf(7, 0), ChessColor.WHITE);
+        pieceMatrix[7][1] = new Knight(Position.squareOf(7, 1), ChessColor.WHITE);
+        pieceMatrix[7][2] = new Bishop(Position.squareOf(7, 2), ChessColor.WHITE);
+        pieceMatrix[7][3] = new Queen(Position.squareOf(7, 3), ChessColor.WHITE);
+        pieceMatrix[7][4] = whiteKing = new King(Position.squareOf(7, 4), ChessColor.WHITE);
+        pieceMatrix[7][5] = new Bishop(Position.squareOf(7, 5), ChessColor.WHITE);
+        pieceMatrix[7][6] = new Knight(Position.squareOf(7, 6), ChessColor.WHITE);
+        pieceMatrix[7][7] = new Rook(Position.squareOf(7, 7), ChessColor.WHITE);
 
         for (int j = 0; j < 8; j++) {
-            pieceMatrix[1][j] = new Pawn(j * size, size, size, size, ChessColor.BLACK);
+            pieceMatrix[1][j] = new Pawn(Position.squareOf(1, j), ChessColor.BLACK);
         }
         for (int j = 0; j < 8; j++) {
-            pieceMatrix[6][j] = new Pawn(j * size, 6 * size, size, size, ChessColor.WHITE);
+            pieceMatrix[6][j] = new Pawn(Position.squareOf(6, j), ChessColor.WHITE);
         }
         for (int r = 2; r < 6; r++) {
             for (int c = 0; c < 8; c++) {
-                pieceMatrix[r][c] = new Dummy(c * size, r * size);
+                pieceMatrix[r][c] = new Dummy(Position.squareOf(r, c));
             }
         }
 
-        squareMatrix[0][0] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][1] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][2] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][3] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][4] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][5] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[0][6] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][0] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][1] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][2] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][3] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
-        squareMatrix[7][4] = new BoardSquare(0, 0, 0, 0, ChessColor.BLACK);
+        squareMatrix[0][0] = new BoardSquare(Position.squareOf(0, 0), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][1] = new BoardSquare(Position.squareOf(0, 1), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][2] = new BoardSquare(Position.squareOf(0, 2), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][3] = new BoardSquare(Position.squareOf(0, 3), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][4] = new BoardSquare(Position.squareOf(0, 4), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][5] = new BoardSquare(Position.squareOf(0, 5), 0, 0, ChessColor.BLACK);
+        squareMatrix[0][6] = new BoardSquare(Position.squareOf(0, 6), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][0] = new BoardSquare(Position.squareOf(7, 0), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][1] = new BoardSquare(Position.squareOf(7, 1), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][2] = new BoardSquare(Position.squareOf(7, 2), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][3] = new BoardSquare(Position.squareOf(7, 3), 0, 0, ChessColor.BLACK);
+        squareMatrix[7][4] = new BoardSquare(Position.squareOf(7, 4), 0, 0, ChessColor.BLACK);
 
         // Initialize all squares based on initial piece positions
         for (int r = 0; r < 8; r++) {
@@ -85,8 +86,7 @@ public class ChessLogicMachineTest {
 
                 // Assign the square in the matrix with capturable counts set to 0
                 squareMatrix[r][c] = new BoardSquare(
-                        c * size, r * size,
-                        0, 0, pieceColor
+                        Position.squareOf(r, c), 0, 0, pieceColor
                 );
             }
         }
@@ -99,13 +99,11 @@ public class ChessLogicMachineTest {
         // Test that the kings are correctly placed
         assertEquals(Pieces.KING, whiteKing.getPieceType());
         assertEquals(ChessColor.WHITE, whiteKing.getColor());
-        assertEquals(4, whiteKing.getX() / ChessArena.getPieceSize());
-        assertEquals(7, whiteKing.getY() / ChessArena.getPieceSize());
+        assertEquals(Position.parseSquare("e1"), whiteKing.getSquare());
 
         assertEquals(Pieces.KING, blackKing.getPieceType());
         assertEquals(ChessColor.BLACK, blackKing.getColor());
-        assertEquals(4, blackKing.getX() / ChessArena.getPieceSize());
-        assertEquals(0, blackKing.getY() / ChessArena.getPieceSize());
+        assertEquals(Position.parseSquare("e8"), blackKing.getSquare());
 
         // Test that all squares are initialized correctly
         for (int r = 0; r < 8; r++) {
@@ -120,19 +118,47 @@ public class ChessLogicMachineTest {
     @Test
     public void testValidMove() {
         // Simulate moving a white pawn forward one square
-        chess.handleClick(0, 6 * ChessArena.getPieceSize()); // Select white pawn at (0,6)
-        chess.handleClick(0, 5 * ChessArena.getPieceSize()); // Move to (0,5)
+        click(0, 6); // Select white pawn at (0,6)
+        click(0, 5); // Move to (0,5)
 
         assertEquals(Pieces.PAWN, pieceMatrix[5][0].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][0].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[6][0].getPieceType());
     }
 
+    @Test
+    public void testEngineMoveUpdatesBoard() {
+        click(4, 6); // e2
+        click(4, 4); // e4
+        Position position = chess.getPosition();
+        chess.playMove(position.createMove(
+                Position.parseSquare("e7"), Position.parseSquare("e5"), Position.EMPTY
+        ));
+
+        assertEquals(Pieces.PAWN, pieceMatrix[3][4].getPieceType());
+        assertEquals(ChessColor.BLACK, pieceMatrix[3][4].getColor());
+        assertEquals(Pieces.EMPTY, pieceMatrix[1][4].getPieceType());
+        assertEquals(Mode.WHITE_SELECT, chess.getMode());
+    }
+
+    @Test
+    public void testFlagFall() {
+        click(4, 6); // e2
+        click(4, 4); // e4
+        chess.flagFall(ChessColor.BLACK);
+
+        assertTrue(chess.isGameEnded());
+        assertEquals(Status.FLAG, chess.getGameStatus());
+        assertEquals("Time up! Black loses on time!", chess.getStatusMessage());
+        click(4, 1); // e7
+        assertEquals("Game already ended!", chess.getErrorMessage());
+    }
+
     @Test
     public void testInvalidMove() {
         // Attempt an invalid move for a white pawn (move backward)
-        chess.handleClick(0, 6 * ChessArena.getPieceSize()); // Select white pawn at (0,6)
-        chess.handleClick(0, 3 * ChessArena.getPieceSize()); // Attempt to move up 3 steps
+        click(0, 6); // Select white pawn at (0,6)
+        click(0, 3); // Attempt to move up 3 steps
 
         assertEquals("Invalid move!", chess.getErrorMessage());
         assertEquals(Pieces.PAWN, pieceMatrix[6][0].getPieceType());
@@ -141,11 +167,8 @@ public class ChessLogicMachineTest {
 
     @Test
     public void testWhitePawnValidMove() {
-        chess.handleClick(ChessArena.getPieceSize(), 6 * ChessArena.getPieceSize()); // Select white
-                                                                                     // pawn at
-                                                                                     // (1,6)
-        chess.handleClick(ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                     // (1,5)
+        click(1, 6); // Select white pawn at (1,6)
+        click(1, 5); // Move to (1,5)
 
         assertEquals(Pieces.PAWN, pieceMatrix[5][1].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][1].getColor());
@@ -154,14 +177,12 @@ public class ChessLogicMachineTest {
 
     @Test
     public void testWhiteRookValidMove() {
-        chess.handleClick(0, 6 * ChessArena.getPieceSize()); // Select white pawn at (0,6)
-        chess.handleClick(0, 5 * ChessArena.getPieceSize()); // Move to (0,5)
-        chess.handleClick(ChessArena.getPieceSize(), ChessArena.getPieceSize()); // Select black
-                                                                                 // pawn at (1,1)
-        chess.handleClick(ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize()); // Move to
-                                                                                     // (1,2)
-        chess.handleClick(0, 7 * ChessArena.getPieceSize()); // Select white rook at (0,7)
-        chess.handleClick(0, 6 * ChessArena.getPieceSize()); // Move vertically to (0,6)
+        click(0, 6); // Select white pawn at (0,6)
+        click(0, 5); // Move to (0,5)
+        click(1, 1); // Select black pawn at (1,1)
+        click(1, 2); // Move to (1,2)
+        click(0, 7); // Select white rook at (0,7)
+        click(0, 6); // Move vertically to (0,6)
 
         assertEquals(Pieces.ROOK, pieceMatrix[6][0].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[6][0].getColor());
@@ -170,13 +191,8 @@ public class ChessLogicMachineTest {
 
     @Test
     public void testWhiteKnightValidMove() {
-        chess.handleClick(ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select white
-                                                                                     // knight at
-                                                                                     // (1,7)
-        chess.handleClick(2 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move in
-                                                                                         // an
-                                                                                         // L-shape
-                                                                                         // to (2,5)
+        click(1, 7); // Select white knight at (1,7)
+        click(2, 5); // Move in an L-shape to (2,5)
 
         assertEquals(Pieces.KNIGHT, pieceMatrix[5][2].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][2].getColor());
@@ -188,100 +204,75 @@ public class ChessLogicMachineTest {
         assertEquals("White's turn!", chess.getTurn());
 
         // Perform a move
-        chess.handleClick(0, 6 * ChessArena.getPieceSize()); // Select white pawn
-        chess.handleClick(0, 5 * ChessArena.getPieceSize()); // Move to (0,5)
+        click(0, 6); // Select white pawn
+        click(0, 5); // Move to (0,5)
 
         assertEquals("Black's turn!", chess.getTurn());
     }
 
     @Test
     public void testAllWhiteKnightMovesNotYetMoved() {
-        ArrayList<Coords> expectedMovesWhiteKnight = new ArrayList<>();
-        // Add expected moves for the knight at b1
-        expectedMovesWhiteKnight.add(new Coords(0, 5 * ChessArena.getPieceSize()));
-        expectedMovesWhiteKnight.add(new Coords(2 * ChessArena.getPieceSize(),
-                5 * ChessArena.getPieceSize()));
+        // Expected moves for the knight at b1: a3 and c3
+        long expectedMovesWhiteKnight = (1L << Position.parseSquare("a3"))
+                | (1L << Position.parseSquare("c3"));
 
-        ArrayList<Coords> actualMovesWhiteKnight = chess.allKnightMoves((Knight)
+        long actualMovesWhiteKnight = chess.allKnightMoves((Knight)
                 pieceMatrix[7][1], false);
-        assertEquals(expectedMovesWhiteKnight.size(), actualMovesWhiteKnight.size());
-        for (int i = 0; i < expectedMovesWhiteKnight.size(); i++) {
-            assertEquals(expectedMovesWhiteKnight.get(i).getX(),
-                    actualMovesWhiteKnight.get(i).getX());
-            assertEquals(expectedMovesWhiteKnight.get(i).getY(),
-                    actualMovesWhiteKnight.get(i).getY());
-        }
+        assertEquals(expectedMovesWhiteKnight, actualMovesWhiteKnight);
     }
 
     @Test
     public void testAllWhiteBishopMovesNotYetMoved() {
-        ArrayList<Coords> expectedMovesWhiteBishop = new ArrayList<>();
         // No valid moves for bishop at c1 due to blocking pawns
-        ArrayList<Coords> actualMovesWhiteBishop = chess.allBishopMoves((Bishop)
+        long actualMovesWhiteBishop = chess.allBishopMoves((Bishop)
                 pieceMatrix[7][2], false);
-        assertEquals(expectedMovesWhiteBishop.size(), actualMovesWhiteBishop.size());
+        assertEquals(0L, actualMovesWhiteBishop);
     }
 
     @Test
     public void testAllWhiteQueenMovesNotYetMoved() {
         // No valid moves for queen at d1 due to blocking pawns
-        ArrayList<Coords> actualMovesWhiteQueen = chess.allQueenMoves((Queen)
+        long actualMovesWhiteQueen = chess.allQueenMoves((Queen)
                 pieceMatrix[7][3], false);
-        assertEquals(0, actualMovesWhiteQueen.size());
+        assertEquals(0L, actualMovesWhiteQueen);
     }
 
     @Test
     public void testAllWhiteKingMovesNotYetMoved() {
         // No valid moves for king at e1 due to blocking pawns
-        ArrayList<Coords> actualMovesWhiteKing = chess.allKingMoves((King)
+        long actualMovesWhiteKing = chess.allKingMoves((King)
                 pieceMatrix[7][4], false);
-        assertEquals(0, actualMovesWhiteKing.size());
+        assertEquals(0L, actualMovesWhiteKing);
     }
 
     @Test
     public void testWhiteCastlesRight() {
-        chess.handleClick(6 * ChessArena.getPieceSize(), 6 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // pawn at
-                                                                                         // (6,6)
-        chess.handleClick(6 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (6,5)
+        click(6, 6); // Select white pawn at (6,6)
+        click(6, 5); // Move to (6,5)
 
         // 2. Black pawn moves forward
-        chess.handleClick(getPieceSize(), getPieceSize()); // Select black pawn at (1,1)
-        chess.handleClick(getPieceSize(), 3 * ChessArena.getPieceSize()); // Move to (1, 3)
+        click(1, 1); // Select black pawn at (1,1)
+        click(1, 3); // Move to (1, 3)
 
         // 3. White knight moves
-        chess.handleClick(6 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // knight
-                                                                                         // at (6,7)
-        chess.handleClick(5 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (5,5)
+        click(6, 7); // Select white knight at (6,7)
+        click(5, 5); // Move to (5,5)
 
         // 4. Black knight moves
-        chess.handleClick(ChessArena.getPieceSize(), 0); // Select black knight at (1,0)
-        chess.handleClick(2 * ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (2,2)
+        click(1, 0); // Select black knight at (1,0)
+        click(2, 2); // Move to (2,2)
 
         // 5. White bishop moves
-        chess.handleClick(5 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // bishop
-                                                                                         // at (5,7)
-        chess.handleClick(7 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (7,5)
+        click(5, 7); // Select white bishop at (5,7)
+        click(7, 5); // Move to (7,5)
 
         // 6. Black bishop moves
-        chess.handleClick(2 * ChessArena.getPieceSize(), 0); // Select black bishop at (2,0)
-        chess.handleClick(0, 2 * ChessArena.getPieceSize()); // Move to (0,2)
+        click(2, 0); // Select black bishop at (2,0)
+        click(0, 2); // Move to (0,2)
 
         // 7. King castles
-        chess.handleClick(4 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // king
-        chess.handleClick(6 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (6,7)
+        click(4, 7); // Select white king
+        click(6, 7); // Move to (6,7)
 
         assertEquals(Pieces.ROOK, pieceMatrix[7][5].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[7][5].getColor());
@@ -295,85 +286,64 @@ public class ChessLogicMachineTest {
     @Test
     public void testSequentialGamePlayNoChecks() {
         // 1. White pawn moves forward
-        chess.handleClick(6 * ChessArena.getPieceSize(), 6 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // pawn at
-                                                                                         // (6,6)
-        chess.handleClick(6 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (6,5)
+        click(6, 6); // Select white pawn at (6,6)
+        click(6, 5); // Move to (6,5)
 
         assertEquals(Pieces.PAWN, pieceMatrix[5][6].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][6].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[6][6].getPieceType());
 
         // 2. Black pawn moves forward
-        chess.handleClick(getPieceSize(), getPieceSize()); // Select black pawn at (1,1)
-        chess.handleClick(getPieceSize(), 3 * ChessArena.getPieceSize()); // Move to (1, 3)
+        click(1, 1); // Select black pawn at (1,1)
+        click(1, 3); // Move to (1, 3)
 
         assertEquals(Pieces.PAWN, pieceMatrix[3][1].getPieceType());
         assertEquals(ChessColor.BLACK, pieceMatrix[3][1].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[1][1].getPieceType());
 
         // 3. White knight moves
-        chess.handleClick(6 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // knight
-                                                                                         // at (6,7)
-        chess.handleClick(5 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (5,5)
+        click(6, 7); // Select white knight at (6,7)
+        click(5, 5); // Move to (5,5)
 
         assertEquals(Pieces.KNIGHT, pieceMatrix[5][5].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][5].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[7][6].getPieceType());
 
         // 4. Black knight moves
-        chess.handleClick(ChessArena.getPieceSize(), 0); // Select black knight at (1,0)
-        chess.handleClick(2 * ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (2,2)
+        click(1, 0); // Select black knight at (1,0)
+        click(2, 2); // Move to (2,2)
 
         assertEquals(Pieces.KNIGHT, pieceMatrix[2][2].getPieceType());
         assertEquals(ChessColor.BLACK, pieceMatrix[2][2].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[0][1].getPieceType());
 
         // 5. White bishop moves
-        chess.handleClick(5 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // bishop
-                                                                                         // at (5,7)
-        chess.handleClick(7 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (7,5)
+        click(5, 7); // Select white bishop at (5,7)
+        click(7, 5); // Move to (7,5)
 
         assertEquals(Pieces.BISHOP, pieceMatrix[5][7].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[5][7].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[7][5].getPieceType());
 
         // 6. Black bishop moves
-        chess.handleClick(2 * ChessArena.getPieceSize(), 0); // Select
-                                                                                         // black
-                                                                                         // bishop
-                                                                                         // at (2,0)
-        chess.handleClick(0, 2 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (0,2)
+        click(2, 0); // Select black bishop at (2,0)
+        click(0, 2); // Move to (0,2)
 
         assertEquals(Pieces.BISHOP, pieceMatrix[2][0].getPieceType());
         assertEquals(ChessColor.BLACK, pieceMatrix[2][0].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[0][2].getPieceType());
 
         // 7. White rook moves
-        chess.handleClick(7 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Select
-                                                                                         // white
-                                                                                         // rook at
-                                                                                         // (7,7)
-        chess.handleClick(6 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize()); // Move to
-                                                                                         // (6,7)
+        click(7, 7); // Select white rook at (7,7)
+        click(6, 7); // Move to (6,7)
 
         assertEquals(Pieces.ROOK, pieceMatrix[7][6].getPieceType());
         assertEquals(ChessColor.WHITE, pieceMatrix[7][6].getColor());
         assertEquals(Pieces.EMPTY, pieceMatrix[7][7].getPieceType());
 
         // 8. Black pawn moves
-        chess.handleClick(5 * getPieceSize(), getPieceSize()); // Select black pawn at (5,1)
-        chess.handleClick(5 * getPieceSize(), 3 * getPieceSize()); // Move to (5,3)
+        click(5, 1); // Select black pawn at (5,1)
+        click(5, 3); // Move to (5,3)
 
         assertEquals(Pieces.PAWN, pieceMatrix[3][5].getPieceType());
         assertEquals(ChessColor.BLACK, pieceMatrix[3][5].getColor());
@@ -382,48 +352,48 @@ public class ChessLogicMachineTest {
 
     @Test
     public void testWhiteCastlesLeft() {
-        chess.handleClick(ChessArena.getPieceSize(), 6 * ChessArena.getPieceSize());
-        chess.handleClick(ChessArena.getPieceSize(), 4 * ChessArena.getPieceSize());
+        click(1, 6);
+        click(1, 4);
 
         // Move black pawn forward to maintain valid sequence
-        chess.handleClick(4 * ChessArena.getPieceSize(), ChessArena.getPieceSize());
-        chess.handleClick(4 * ChessArena.getPieceSize(), 3 * ChessArena.getPieceSize());
+        click(4, 1);
+        click(4, 3);
 
         // Move white knight out of the way
-        chess.handleClick(ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
-        chess.handleClick(2 * ChessArena.getPieceSize(), 5 * ChessArena.getPieceSize());
+        click(1, 7);
+        click(2, 5);
 
         // Move black pawn forward to continue valid sequence
-        chess.handleClick(5 * ChessArena.getPieceSize(), ChessArena.getPieceSize());
-        chess.handleClick(5 * ChessArena.getPieceSize(), 3 * ChessArena.getPieceSize());
+        click(5, 1);
+        click(5, 3);
 
         // Move white bishop out of the way
-        chess.handleClick(2 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
-        chess.handleClick(0, 5 * ChessArena.getPieceSize());
+        click(2, 7);
+        click(0, 5);
 
         // Move black knight to continue valid sequence
-        chess.handleClick(ChessArena.getPieceSize(), 0);
-        chess.handleClick(2 * ChessArena.getPieceSize(), 2 * ChessArena.getPieceSize());
+        click(1, 0);
+        click(2, 2);
 
         // Move white queen
-        chess.handleClick(3 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
-        chess.handleClick(ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
+        click(3, 7);
+        click(1, 7);
 
         // Move black pawn forward to maintain valid sequence
-        chess.handleClick(7 * ChessArena.getPieceSize(), ChessArena.getPieceSize());
-        chess.handleClick(7 * ChessArena.getPieceSize(), 3 * ChessArena.getPieceSize());
+        click(7, 1);
+        click(7, 3);
 
         // Move white queen
-        chess.handleClick(ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
-        chess.handleClick(ChessArena.getPieceSize(), 6 * ChessArena.getPieceSize());
+        click(1, 7);
+        click(1, 6);
 
         // Move black pawn forward to maintain valid sequence
-        chess.handleClick(6 * ChessArena.getPieceSize(), ChessArena.getPieceSize());
-        chess.handleClick(6 * ChessArena.getPieceSize(), 3 * ChessArena.getPieceSize());
+        click(6, 1);
+        click(6, 3);
 
         // Perform white queen-side castling
-        chess.handleClick(4 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
-        chess.handleClick(2 * ChessArena.getPieceSize(), 7 * ChessArena.getPieceSize());
+        click(4, 7);
+        click(2, 7);
 
         // Assertions
         assertEquals(Pieces.KING, pieceMatrix[7][2].getPieceType());
@@ -437,24 +407,24 @@ public class ChessLogicMachineTest {
     @Test
     public void testFoolsMate() {
         // 1. Move white pawn from f2 to f3
-        chess.handleClick(5 * getPieceSize(), 6 * getPieceSize());
-        chess.handleClick(5 * getPieceSize(), 5 * getPieceSize());
+        click(5, 6);
+        click(5, 5);
 
         // 2. Move black pawn from e7 to e5
-        chess.handleClick(4 * getPieceSize(), getPieceSize());
-        chess.handleClick(4 * getPieceSize(), 3 * getPieceSize());
+        click(4, 1);
+        click(4, 3);
 
         // 3. Move white pawn from g2 to g4
-        chess.handleClick(6 * getPieceSize(), 6 * getPieceSize());
-        chess.handleClick(6 * getPieceSize(), 4 * getPieceSize());
+        click(6, 6);
+        click(6, 4);
 
         // 4. Move black queen from d8 to h4 (checkmate)
-        chess.handleClick(3 * getPieceSize(), 0);
-        chess.handleClick(7 * getPieceSize(), 4 * getPieceSize());
+        click(3, 0);
+        click(7, 4);
 
         //random click to trigger checkmate check
-        chess.handleClick(7 * getPieceSize(), 7 * getPieceSize());
-        chess.handleClick(7 * getPieceSize(), 6 * getPieceSize());
+        click(7, 7);
+        click(7, 6);
 
         // Verify checkmate
 //        assertEquals("Checkmate! winner is black.", chess.getStatusMessage());
@@ -466,21 +436,20 @@ public class ChessLogicMachineTest {
         // Clear the board
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
-                pieceMatrix[r][c] = new Dummy(c * getPieceSize(), r * getPieceSize());
+                pieceMatrix[r][c] = new Dummy(Position.squareOf(r, c));
             }
         }
 
         // Set up kings and a rook for checkmate
         pieceMatrix[7][0] = whiteKing; // White king on a8
-        pieceMatrix[5][0] = new Rook(0, 5 * getPieceSize(), getPieceSize(), getPieceSize(),
-                ChessColor.WHITE); // White rook on a6
+        pieceMatrix[5][0] = new Rook(Position.squareOf(5, 0), ChessColor.WHITE); // White rook on a6
         pieceMatrix[0][7] = blackKing; // Black king on h1
 
         chess.runCaptureSequence(); // Update board state
 
         // Simulate moves to reach checkmate
-        chess.handleClick(0, 5 * getPieceSize()); // Select white rook
-        chess.handleClick(0, 1 * getPieceSize()); // Move rook to a2 (checkmate)
+        click(0, 5); // Select white rook
+        click(0, 1); // Move rook to a2 (checkmate)
 
         // Verify the game ends with checkmate
         assertEquals("Checkmate! Winner is white.", chess.getStatusMessage());
@@ -489,28 +458,25 @@ public class ChessLogicMachineTest {
 
     @Test
     public void testAllPawnMovesNotYetMoved() {
-        ArrayList<Coords> expectedMovesWhitePawn = new ArrayList<>();
-        expectedMovesWhitePawn.add(squareMatrix[5][0]);
-        expectedMovesWhitePawn.add(squareMatrix[4][0]);
-        ArrayList<Coords> actualMovesWhitePawn = chess.allPawnMoves((Pawn)pieceMatrix[6][0], false);
-        assertEquals(expectedMovesWhitePawn.get(0).getX(), actualMovesWhitePawn.get(0).getX());
-        assertEquals(expectedMovesWhitePawn.get(1).getY(), actualMovesWhitePawn.get(1).getY());
+        // The pawn on a2 may advance one or two squares
+        long expectedMovesWhitePawn = (1L << Position.parseSquare("a3"))
+                | (1L << Position.parseSquare("a4"));
+        long actualMovesWhitePawn = chess.allPawnMoves((Pawn) pieceMatrix[6][0], false);
+        assertEquals(expectedMovesWhitePawn, actualMovesWhitePawn);
     }
 
     @Test
     public void testAllWhiteRookMovesNotYetMoved() {
-        ArrayList<Coords> expectedMovesWhiteRook = new ArrayList<>();
-
-        ArrayList<Coords> actualMovesWhiteRook = chess.allRookMoves((Rook)
+        long actualMovesWhiteRook = chess.allRookMoves((Rook)
                 pieceMatrix[7][0], false);
-        assertEquals(0, actualMovesWhiteRook.size());
+        assertEquals(0L, actualMovesWhiteRook);
     }
 
     @Test
     public void testAllBlackQueenMovesNotYetMoved() {
-        ArrayList<Coords> actualMovesWhiteRook = chess.allRookMoves((Rook)
+        long actualMovesWhiteRook = chess.allRookMoves((Rook)
                 pieceMatrix[7][0], false);
-        assertEquals(0, actualMovesWhiteRook.size());
+        assertEquals(0L, actualMovesWhiteRook);
     }
 
 
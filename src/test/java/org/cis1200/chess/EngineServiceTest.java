@@ -0,0 +1,95 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineServiceTest {
+    private EngineService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new EngineService(
+                new LazySmpSearch(new TranspositionTable(4), 1), Runnable::run
+        );
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testProgressAndResult() throws Exception {
+        List<SearchResult> progress = new CopyOnWriteArrayList<>();
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(5);
+        service.search(Position.startPosition(), limits, progress::add, result::complete);
+
+        SearchResult last = result.get(5, TimeUnit.SECONDS);
+        assertEquals(5, last.getDepth());
+        // a report for every iteration, the last the same as the result
+        assertTrue(progress.size() >= 5);
+        assertEquals(1, progress.get(0).getDepth());
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i).getDepth() >= progress.get(i - 1).getDepth());
+        }
+        assertEquals(last.getBestMove(), progress.get(progress.size() - 1).getBestMove());
+        assertTrue(last.getNps() > 0);
+    }
+
+    @Test
+    public void testCancelAbortsWithinMilliseconds() throws Exception {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        CountDownLatch deep = new CountDownLatch(1);
+        EngineTask task = service.search(
+                Position.startPosition(), new SearchLimits(), progress -> {
+                    if (progress.getDepth() >= 4) {
+                        deep.countDown();
+                    }
+                }, result::complete
+        );
+        // well into the search, past the first iteration
+        assertTrue(deep.await(10, TimeUnit.SECONDS));
+        assertFalse(task.isDone());
+        long start = System.nanoTime();
+        task.cancel();
+        task.getResult().get(1, TimeUnit.SECONDS);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 50, "took " + millis + " ms");
+        assertTrue(task.isCancelled());
+        assertFalse(result.isDone());
+    }
+
+    @Test
+    public void testCancelAllClearsQueue() throws Exception {
+        EngineTask running = service.search(
+                Position.startPosition(), new SearchLimits(), null, null
+        );
+        EngineTask queued = service.search(
+                Position.startPosition(), new SearchLimits(), null, null
+        );
+        service.cancelAll();
+        running.getResult().get(5, TimeUnit.SECONDS);
+        // the queued search never starts
+        assertNull(queued.getResult().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopKeepsResult() throws Exception {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        EngineTask task = service.search(
+                Position.startPosition(), new SearchLimits(), null, result::complete
+        );
+        Thread.sleep(100);
+        task.stop();
+        assertNotEquals(Move.NONE, result.get(5, TimeUnit.SECONDS).getBestMove());
+    }
+}
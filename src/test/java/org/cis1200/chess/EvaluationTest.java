@@ -0,0 +1,85 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    // The same position with the colors swapped and the board flipped
+    private static final String KIWIPETE_MIRRORED =
+            "r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1";
+
+    private static void assertAccumulatorsMatch(Position position) {
+        Position fresh = Position.fromFen(position.toFen());
+        assertEquals(fresh.getMidgameScore(), position.getMidgameScore());
+        assertEquals(fresh.getEndgameScore(), position.getEndgameScore());
+        assertEquals(fresh.getPhase(), position.getPhase());
+    }
+
+    @Test
+    public void testStartPositionIsEven() {
+        Position start = Position.startPosition();
+        assertEquals(0, Evaluation.evaluate(start));
+        assertEquals(Evaluation.MAX_PHASE, start.getPhase());
+    }
+
+    @Test
+    public void testMirroredPositionScoresTheSame() {
+        Position position = Position.fromFen(KIWIPETE);
+        Position mirrored = Position.fromFen(KIWIPETE_MIRRORED);
+        assertEquals(Evaluation.evaluate(position), Evaluation.evaluate(mirrored));
+        assertEquals(
+                Evaluation.evaluateForWhite(position), -Evaluation.evaluateForWhite(mirrored)
+        );
+    }
+
+    @Test
+    public void testAccumulatorsFollowMakeAndUnmake() {
+        Position position = Position.fromFen(KIWIPETE);
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            assertAccumulatorsMatch(position);
+            MoveList replies = new MoveList();
+            MoveGenerator.generateLegal(position, replies);
+            for (int j = 0; j < replies.size(); j++) {
+                position.makeMove(replies.get(j));
+                assertAccumulatorsMatch(position);
+                position.unmakeMove();
+            }
+            position.unmakeMove();
+        }
+        assertAccumulatorsMatch(position);
+    }
+
+    @Test
+    public void testPackedValues() {
+        int packed = Evaluation.pack(-35, 120) + Evaluation.pack(10, -200);
+        assertEquals(-25, Evaluation.midgameHalf(packed));
+        assertEquals(-80, Evaluation.endgameHalf(packed));
+    }
+
+    @Test
+    public void testPawnStructure() {
+        // an isolated, doubled pair against three connected pawns
+        Position weak = Position.fromFen("4k3/5ppp/8/8/8/2P5/2P5/4K3 w - - 0 1");
+        assertTrue(Evaluation.midgameHalf(Evaluation.pawnStructure(weak)) < 0);
+        // a passed pawn counts for most in the endgame
+        Position passed = Position.fromFen("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1");
+        int score = Evaluation.pawnStructure(passed);
+        assertTrue(Evaluation.endgameHalf(score) > Evaluation.midgameHalf(score));
+        assertTrue(Evaluation.midgameHalf(score) > 0);
+    }
+
+    @Test
+    public void testEndgameKingWantsTheCentre() {
+        Position central = Position.fromFen("8/8/8/4k3/8/8/8/R3K3 b - - 0 1");
+        Position corner = Position.fromFen("7k/8/8/8/8/8/8/R3K3 b - - 0 1");
+        assertTrue(Evaluation.evaluate(central) > Evaluation.evaluate(corner));
+    }
+}
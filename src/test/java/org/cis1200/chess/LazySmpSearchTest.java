@@ -0,0 +1,49 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazySmpSearchTest {
+
+    @Test
+    public void testHelpersAgreeOnMate() {
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(4), 4);
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(5);
+        SearchResult result = search.search(
+                Position.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1"), limits
+        );
+        search.shutdown();
+        assertEquals("a1a8", Move.toUci(result.getBestMove()));
+        assertEquals(Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testReportsDeepestIterationWithinTime() {
+        LazySmpSearch search = new LazySmpSearch(new TranspositionTable(4), 3);
+        Position position = Position.startPosition();
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(200);
+        long start = System.currentTimeMillis();
+        SearchResult result = search.search(position, limits);
+        long elapsed = System.currentTimeMillis() - start;
+        search.shutdown();
+
+        assertNotEquals(Move.NONE, result.getBestMove());
+        assertTrue(result.getDepth() >= 3);
+        assertEquals(result.getBestMove(), result.getPv()[0]);
+        // the helpers are stopped with the main search
+        assertTrue(elapsed < 1000, "took " + elapsed + " ms");
+        assertEquals(Position.START_FEN, position.toFen());
+    }
+
+    @Test
+    public void testStopBeforeStartStillReturnsMove() {
+        Search search = new Search(Position.startPosition());
+        search.stop();
+        SearchResult result = search.search(new SearchLimits());
+        assertEquals(1, result.getDepth());
+        assertNotEquals(Move.NONE, result.getBestMove());
+    }
+}
@@ -0,0 +1,215 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveGeneratorTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private static int legalCount(String fen) {
+        MoveList list = new MoveList();
+        MoveGenerator.generateLegal(Position.fromFen(fen), list);
+        return list.size();
+    }
+
+    private static boolean hasMove(String fen, String uci) {
+        MoveList list = new MoveList();
+        MoveGenerator.generateLegal(Position.fromFen(fen), list);
+        for (int i = 0; i < list.size(); i++) {
+            if (Move.toUci(list.get(i)).equals(uci)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks the tree and checks at every node that the legal generator
+    // produces exactly the pseudo-legal moves that keep the king safe
+    private static void compareWithTrial(Position position, int depth) {
+        MoveList legal = new MoveList();
+        MoveList pseudo = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        MoveGenerator.generatePseudoLegal(position, pseudo);
+        int us = position.getSideToMove();
+        int kept = 0;
+        for (int i = 0; i < pseudo.size(); i++) {
+            int move = pseudo.get(i);
+            position.makeMove(move);
+            boolean safe = !position.isInCheck(us);
+            position.unmakeMove();
+            if (safe) {
+                kept++;
+                assertTrue(legal.contains(move), position.toFen() + " " + Move.toUci(move));
+            }
+        }
+        assertEquals(kept, legal.size(), position.toFen());
+        if (depth > 1) {
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                compareWithTrial(position, depth - 1);
+                position.unmakeMove();
+            }
+        }
+    }
+
+    // Walks the tree and checks at every node that the capture generator
+    // produces exactly the legal captures and promotions
+    private static void compareCaptures(Position position, int depth) {
+        MoveList legal = new MoveList();
+        MoveList captures = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        MoveGenerator.generateCaptures(position, captures);
+        int expected = 0;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                expected++;
+                assertTrue(captures.contains(move), position.toFen() + " " + Move.toUci(move));
+            }
+        }
+        assertEquals(expected, captures.size(), position.toFen());
+        if (depth > 1) {
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                compareCaptures(position, depth - 1);
+                position.unmakeMove();
+            }
+        }
+    }
+
+    // Checks at every node that isLegal agrees with the legal generator on
+    // every pseudo-legal move and on the moves of the parent node, and that
+    // captures and quiets together are the legal moves
+    private static void compareIsLegal(Position position, MoveList parent, int depth) {
+        MoveList legal = new MoveList();
+        MoveList pseudo = new MoveList();
+        MoveList quiets = new MoveList();
+        MoveList captures = new MoveList();
+        MoveGenerator.generateLegal(position, legal);
+        MoveGenerator.generatePseudoLegal(position, pseudo);
+        MoveGenerator.generateQuiets(position, quiets);
+        MoveGenerator.generateCaptures(position, captures);
+        assertEquals(legal.size(), quiets.size() + captures.size(), position.toFen());
+        for (int i = 0; i < pseudo.size(); i++) {
+            int move = pseudo.get(i);
+            assertEquals(legal.contains(move), MoveGenerator.isLegal(position, move),
+                    position.toFen() + " " + Move.toUci(move));
+        }
+        for (int i = 0; i < parent.size(); i++) {
+            int move = parent.get(i);
+            assertEquals(legal.contains(move), MoveGenerator.isLegal(position, move),
+                    position.toFen() + " " + Move.toUci(move));
+        }
+        if (depth > 1) {
+            for (int i = 0; i < legal.size(); i++) {
+                position.makeMove(legal.get(i));
+                compareIsLegal(position, legal, depth - 1);
+                position.unmakeMove();
+            }
+        }
+    }
+
+    @Test
+    public void testLegalMoveCounts() {
+        assertEquals(20, legalCount(Position.START_FEN));
+        assertEquals(48, legalCount(KIWIPETE));
+        assertEquals(14, legalCount(ENDGAME));
+    }
+
+    @Test
+    public void testLegalMatchesTrialAndError() {
+        compareWithTrial(Position.fromFen(KIWIPETE), 3);
+        compareWithTrial(Position.fromFen(ENDGAME), 4);
+    }
+
+    @Test
+    public void testCapturesMatchLegalCaptures() {
+        compareCaptures(Position.fromFen(KIWIPETE), 3);
+        compareCaptures(Position.fromFen(
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"
+        ), 3);
+    }
+
+    @Test
+    public void testIsLegalMatchesGenerator() {
+        compareIsLegal(Position.fromFen(KIWIPETE), new MoveList(), 3);
+        compareIsLegal(Position.fromFen(ENDGAME), new MoveList(), 4);
+    }
+
+    @Test
+    public void testIsLegalCastlingAndEnPassant() {
+        int kingside = Move.of(4, 6, Position.KING, Position.EMPTY, Position.EMPTY, Move.CASTLE);
+        int queenside = Move.of(4, 2, Position.KING, Position.EMPTY, Position.EMPTY, Move.CASTLE);
+        Position open = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertTrue(MoveGenerator.isLegal(open, kingside));
+        assertTrue(MoveGenerator.isLegal(open, queenside));
+        // the rook on f8 guards f1, and the knight stands in the way
+        Position guarded = Position.fromFen("r3kr2/8/8/8/8/8/8/RN2K2R w KQq - 0 1");
+        assertFalse(MoveGenerator.isLegal(guarded, kingside));
+        assertFalse(MoveGenerator.isLegal(guarded, queenside));
+        Position noRights = Position.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w kq - 0 1");
+        assertFalse(MoveGenerator.isLegal(noRights, kingside));
+
+        int enPassant = Move.of(
+                Position.parseSquare("e5"), Position.parseSquare("d6"), Position.PAWN,
+                Position.PAWN, Position.EMPTY, Move.EN_PASSANT
+        );
+        assertTrue(MoveGenerator.isLegal(
+                Position.fromFen("8/8/8/3pP3/8/8/8/K6k w - d6 0 1"), enPassant
+        ));
+        assertFalse(MoveGenerator.isLegal(
+                Position.fromFen("8/8/8/3pP3/8/8/8/K6k w - - 0 1"), enPassant
+        ));
+        // both pawns leave the fifth rank to the rook
+        assertFalse(MoveGenerator.isLegal(
+                Position.fromFen("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1"), enPassant
+        ));
+    }
+
+    @Test
+    public void testCheckmateAndStalemateHaveNoMoves() {
+        // fool's mate
+        assertEquals(0, legalCount(
+                "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3"
+        ));
+        assertEquals(0, legalCount("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"));
+    }
+
+    @Test
+    public void testDoubleCheckOnlyKingMoves() {
+        assertEquals(3, legalCount("4k3/8/5N2/8/8/8/8/4R1K1 b - - 0 1"));
+    }
+
+    @Test
+    public void testEnPassant() {
+        assertTrue(hasMove("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 2", "e5d6"));
+        // both pawns leave the fifth rank and expose the king to the rook
+        assertFalse(hasMove("8/8/8/K2pP2r/8/8/8/7k w - d6 0 2", "e5d6"));
+        // capturing the checking pawn en passant resolves the check
+        assertTrue(hasMove("8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 1", "e4d3"));
+    }
+
+    @Test
+    public void testCastlingThroughCheck() {
+        assertTrue(hasMove("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "e1g1"));
+        // f1 is attacked, so white may only castle queenside
+        String fen = "4kr2/8/8/8/8/8/8/R3K2R w KQ - 0 1";
+        assertFalse(hasMove(fen, "e1g1"));
+        assertTrue(hasMove(fen, "e1c1"));
+        // b1 may be attacked, the king does not cross it
+        assertTrue(hasMove("1r2k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "e1c1"));
+    }
+
+    @Test
+    public void testAllPromotions() {
+        String fen = "8/P6k/8/8/8/8/8/K7 w - - 0 1";
+        assertTrue(hasMove(fen, "a7a8q"));
+        assertTrue(hasMove(fen, "a7a8r"));
+        assertTrue(hasMove(fen, "a7a8b"));
+        assertTrue(hasMove(fen, "a7a8n"));
+    }
+}
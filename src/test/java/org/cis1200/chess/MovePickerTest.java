@@ -0,0 +1,119 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePickerTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static int move(Position position, String uci) {
+        return position.createMove(
+                Position.parseSquare(uci.substring(0, 2)),
+                Position.parseSquare(uci.substring(2, 4)), Position.QUEEN
+        );
+    }
+
+    private static List<Integer> drain(MovePicker picker) {
+        List<Integer> moves = new ArrayList<>();
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static Set<Integer> legal(Position position) {
+        MoveList list = new MoveList();
+        MoveGenerator.generateLegal(position, list);
+        Set<Integer> moves = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            moves.add(list.get(i));
+        }
+        return moves;
+    }
+
+    @Test
+    public void testStagesInOrder() {
+        Position position = Position.fromFen(KIWIPETE);
+        MovePicker picker = new MovePicker(new int[2 * 64 * 64], 0);
+        int hash = move(position, "e2a6");
+        int killer = move(position, "a2a3");
+        int counter = move(position, "g2g3");
+        picker.init(position, false, hash, killer, Move.NONE, counter);
+        List<Integer> moves = drain(picker);
+
+        assertEquals(legal(position), new HashSet<>(moves));
+        assertEquals(moves.size(), new HashSet<>(moves).size());
+        assertEquals(hash, moves.get(0));
+        // the good captures come next, then the killer and the countermove
+        int firstQuiet = 1;
+        while (!MovePicker.isQuiet(moves.get(firstQuiet))) {
+            firstQuiet++;
+        }
+        assertEquals(killer, moves.get(firstQuiet));
+        assertEquals(counter, moves.get(firstQuiet + 1));
+        // gxh3 wins a pawn for nothing, so it is a good capture
+        assertTrue(moves.indexOf(move(position, "g2h3")) < firstQuiet);
+    }
+
+    @Test
+    public void testIllegalHintsAreSkipped() {
+        Position position = Position.fromFen(KIWIPETE);
+        MovePicker picker = new MovePicker(new int[2 * 64 * 64], 0);
+        // a black move and a move onto an own piece
+        int hash = Move.of(
+                Position.parseSquare("e8"), Position.parseSquare("g8"), Position.KING,
+                Position.EMPTY, Position.EMPTY, Move.CASTLE
+        );
+        int killer = Move.of(
+                Position.parseSquare("a1"), Position.parseSquare("a2"), Position.ROOK,
+                Position.EMPTY, Position.EMPTY, 0
+        );
+        picker.init(position, false, hash, killer, killer, Move.NONE);
+        List<Integer> moves = drain(picker);
+        assertEquals(48, moves.size());
+        assertEquals(legal(position), new HashSet<>(moves));
+    }
+
+    @Test
+    public void testLosingCapturesLast() {
+        // Qxd5 loses the queen to cxd5; the quiescence picker drops it
+        String fen = "4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1";
+        Position position = Position.fromFen(fen);
+        MovePicker picker = new MovePicker(new int[2 * 64 * 64], 0);
+        picker.init(position, false, Move.NONE, Move.NONE, Move.NONE, Move.NONE);
+        List<Integer> moves = drain(picker);
+        assertEquals(move(position, "d2d5"), moves.get(moves.size() - 1));
+
+        picker.initQuiescence(position);
+        assertTrue(drain(picker).isEmpty());
+    }
+
+    @Test
+    public void testHistoryOrdersQuiets() {
+        Position position = Position.startPosition();
+        int[] history = new int[2 * 64 * 64];
+        int move = move(position, "b1c3");
+        history[MovePicker.historyIndex(Position.WHITE, move)] = 500;
+        MovePicker picker = new MovePicker(history, 0);
+        picker.init(position, false, Move.NONE, Move.NONE, Move.NONE, Move.NONE);
+        assertEquals(move, picker.next());
+    }
+
+    @Test
+    public void testEvasions() {
+        Position position = Position.fromFen("4k3/8/8/8/8/8/4q3/4K3 w - - 0 1");
+        MovePicker picker = new MovePicker(new int[2 * 64 * 64], 0);
+        picker.init(position, true, Move.NONE, Move.NONE, Move.NONE, Move.NONE);
+        List<Integer> moves = drain(picker);
+        assertEquals(legal(position), new HashSet<>(moves));
+        assertEquals("e1e2", Move.toUci(moves.get(0)));
+    }
+}
@@ -0,0 +1,112 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NnueTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String KIWIPETE_MIRRORED =
+            "r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1";
+
+    private static Nnue network;
+
+    // A small network of random weights: meaningless scores, but every
+    // weight is used
+    @BeforeAll
+    public static void buildNetwork() {
+        int hidden = 16;
+        Random random = new Random(7);
+        short[] featureWeights = new short[Nnue.FEATURES * hidden];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(41) - 20);
+        }
+        short[] featureBiases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        for (int i = 0; i < hidden; i++) {
+            featureBiases[i] = (short) (random.nextInt(101) + 50);
+        }
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) (random.nextInt(129) - 64);
+        }
+        network = new Nnue(hidden, featureWeights, featureBiases, outputWeights, 100);
+    }
+
+    private static int freshScore(Position position) {
+        Position copy = position.copy();
+        copy.setAccumulator(new NnueAccumulator(network));
+        return copy.getAccumulator().evaluate(copy);
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("test.nnue");
+        network.save(file);
+        Nnue loaded = Nnue.load(file);
+        assertEquals(network.getHidden(), loaded.getHidden());
+        Position position = Position.fromFen(KIWIPETE);
+        position.setAccumulator(new NnueAccumulator(loaded));
+        assertEquals(freshScore(position), Evaluation.evaluate(position));
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 });
+        assertThrows(IOException.class, () -> Nnue.load(file));
+        assertThrows(IOException.class, () -> Nnue.load(dir.resolve("missing.nnue")));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRefresh() {
+        Position position = Position.fromFen(KIWIPETE);
+        position.setAccumulator(new NnueAccumulator(network));
+        NnueAccumulator accumulator = position.getAccumulator();
+        int root = accumulator.evaluate(position);
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            assertEquals(freshScore(position), accumulator.evaluate(position));
+            MoveList replies = new MoveList();
+            MoveGenerator.generateLegal(position, replies);
+            for (int j = 0; j < replies.size(); j++) {
+                position.makeMove(replies.get(j));
+                assertEquals(freshScore(position), accumulator.evaluate(position));
+                position.unmakeMove();
+            }
+            position.unmakeMove();
+        }
+        assertEquals(root, accumulator.evaluate(position));
+    }
+
+    @Test
+    public void testMirroredPositionScoresTheSame() {
+        assertEquals(
+                freshScore(Position.fromFen(KIWIPETE)),
+                freshScore(Position.fromFen(KIWIPETE_MIRRORED))
+        );
+    }
+
+    @Test
+    public void testSearchWithNetworkFindsMate() {
+        Search search = new Search(
+                Position.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1")
+        );
+        search.setNetwork(network);
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(3);
+        SearchResult result = search.search(limits);
+        assertEquals("a1a8", Move.toUci(result.getBestMove()));
+        assertTrue(result.isMate());
+    }
+}
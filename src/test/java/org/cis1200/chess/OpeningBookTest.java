@@ -0,0 +1,166 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path dir;
+
+    private static int move(Position position, String text) {
+        return UciEngine.parseMove(position, text);
+    }
+
+    // A book of the start position: 1. e4 three times in four, 1. d4 otherwise,
+    // and 1. Nf3 never
+    private Path startBook() throws IOException {
+        Position start = Position.startPosition();
+        long key = OpeningBook.polyglotKey(start);
+        Path file = dir.resolve("start.bin");
+        OpeningBook.write(
+                file, new long[] { key, key, key },
+                new int[] { move(start, "d2d4"), move(start, "e2e4"), move(start, "g1f3") },
+                new int[] { 1, 3, 0 }
+        );
+        return file;
+    }
+
+    @Test
+    public void testPolyglotKeys() {
+        // the keys given with the Polyglot format
+        assertEquals(0x463b96181691fc9cL, OpeningBook.polyglotKey(Position.startPosition()));
+        Position position = Position.startPosition();
+        position.makeMove(move(position, "e2e4"));
+        assertEquals(0x823c9b50fd114196L, OpeningBook.polyglotKey(position));
+
+        String[] fens = {
+            "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+            "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+            "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"
+        };
+        long[] keys = {
+            0x0756b94461c50fb0L, 0x22a48b5a8e47ff78L, 0x00fdd303c946bdd9L,
+            0x3c8123ea7b067637L, 0x5c3f9b829b279560L
+        };
+        for (int i = 0; i < fens.length; i++) {
+            assertEquals(keys[i], OpeningBook.polyglotKey(Position.fromFen(fens[i])), fens[i]);
+        }
+    }
+
+    @Test
+    public void testReadsPolyglotEntries() throws IOException {
+        long key = OpeningBook.polyglotKey(Position.startPosition());
+        // e2e4, written out by hand: e4 is 28 and e2 is 12
+        ByteBuffer entry = ByteBuffer.allocate(OpeningBook.ENTRY_BYTES);
+        entry.putLong(key).putShort((short) (28 | 12 << 6)).putShort((short) 40000).putInt(0);
+        Path file = dir.resolve("one.bin");
+        Files.write(file, entry.array());
+
+        OpeningBook book = OpeningBook.open(file);
+        assertEquals(1, book.size());
+        assertEquals(0, book.find(key));
+        assertEquals(-1, book.find(key + 1));
+        assertEquals(40000, book.getWeight(0));
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(Position.startPosition(), legal);
+        int move = OpeningBook.toMove(legal, book.getMove(0));
+        assertEquals("e2e4", Move.toUci(move));
+        assertTrue(Move.isDoublePush(move));
+    }
+
+    @Test
+    public void testChoosesByWeight() throws IOException {
+        OpeningBook book = OpeningBook.open(startBook());
+        Position start = Position.startPosition();
+        // sorted by weight within the position
+        MoveList legal = new MoveList();
+        MoveGenerator.generateLegal(start, legal);
+        assertEquals("e2e4", Move.toUci(OpeningBook.toMove(legal, book.getMove(0))));
+
+        Random random = new Random(1);
+        int e4 = 0;
+        for (int i = 0; i < 4000; i++) {
+            String chosen = Move.toUci(book.choose(start, random));
+            assertNotEquals("g1f3", chosen);
+            if (chosen.equals("e2e4")) {
+                e4++;
+            }
+        }
+        assertTrue(e4 > 2800 && e4 < 3200, "e4 chosen " + e4 + " times");
+
+        start.makeMove(move(start, "e2e4"));
+        assertEquals(Move.NONE, book.choose(start, random));
+    }
+
+    @Test
+    public void testMovesConvertBothWays() {
+        String[] fens = {
+            KIWIPETE,
+            "r3k2r/1P6/8/3pP3/8/8/6p1/R3K2R w KQkq d6 0 1",
+            "r3k2r/1P6/8/8/3pP3/8/6p1/R3K2R b KQkq e3 0 1"
+        };
+        for (String fen : fens) {
+            Position position = Position.fromFen(fen);
+            MoveList moves = new MoveList();
+            MoveGenerator.generateLegal(position, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                assertEquals(move, OpeningBook.toMove(moves, OpeningBook.toBookMove(move)),
+                        Move.toUci(move));
+            }
+        }
+        // castling is written as the king taking the rook
+        Position position = Position.fromFen(KIWIPETE);
+        assertEquals(7 | 4 << 6, OpeningBook.toBookMove(move(position, "e1g1")));
+        assertEquals(0 | 4 << 6, OpeningBook.toBookMove(move(position, "e1c1")));
+    }
+
+    @Test
+    public void testFindsEveryKeyAcrossSegments() throws IOException {
+        Random random = new Random(3);
+        int count = 1000;
+        long[] keys = new long[count];
+        int[] moves = new int[count];
+        int[] weights = new int[count];
+        int e4 = move(Position.startPosition(), "e2e4");
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextLong();
+            moves[i] = e4;
+            weights[i] = 1;
+        }
+        Path file = dir.resolve("large.bin");
+        OpeningBook.write(file, keys, moves, weights);
+
+        // eight entries to a segment
+        OpeningBook book = OpeningBook.open(file, 3);
+        assertEquals(count, book.size());
+        for (long key : keys) {
+            long entry = book.find(key);
+            assertTrue(entry >= 0);
+            assertEquals(key, book.getKey(entry));
+        }
+        assertEquals(-1, book.find(OpeningBook.polyglotKey(Position.startPosition())));
+    }
+
+    @Test
+    public void testRejectsPartialEntries() throws IOException {
+        Path file = dir.resolve("short.bin");
+        Files.write(file, new byte[OpeningBook.ENTRY_BYTES + 3]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+        assertThrows(IOException.class, () -> OpeningBook.open(dir.resolve("missing.bin")));
+    }
+}
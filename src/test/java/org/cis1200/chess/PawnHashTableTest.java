@@ -0,0 +1,76 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PawnHashTableTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void testPawnKeyIgnoresOtherPieces() {
+        Position position = Position.startPosition();
+        long pawns = position.getPawnKey();
+        position.makeMove(position.createMove(
+                Position.parseSquare("g1"), Position.parseSquare("f3"), Position.EMPTY
+        ));
+        assertEquals(pawns, position.getPawnKey());
+        position.makeMove(position.createMove(
+                Position.parseSquare("e7"), Position.parseSquare("e5"), Position.EMPTY
+        ));
+        assertNotEquals(pawns, position.getPawnKey());
+        assertEquals(position.computePawnKey(), position.getPawnKey());
+        position.unmakeMove();
+        assertEquals(pawns, position.getPawnKey());
+    }
+
+    @Test
+    public void testLookupCachesAndCounts() {
+        PawnHashTable table = new PawnHashTable(1024);
+        Position position = Position.fromFen(KIWIPETE);
+        int slot = table.lookup(position);
+        assertEquals(0, table.getHits());
+        assertEquals(1, table.getMisses());
+        assertEquals(Evaluation.pawnStructure(position), table.getScore(slot));
+        assertEquals(Evaluation.passedPawns(position), table.getPassed(slot));
+
+        assertEquals(slot, table.lookup(position));
+        assertEquals(1, table.getHits());
+        assertEquals(0.5, table.getHitRate());
+
+        table.clear();
+        assertEquals(0, table.getHits() + table.getMisses());
+    }
+
+    @Test
+    public void testReplaceAlways() {
+        // one slot, so every new set of pawns replaces the last
+        PawnHashTable table = new PawnHashTable(1);
+        Position start = Position.startPosition();
+        Position kiwipete = Position.fromFen(KIWIPETE);
+        table.lookup(start);
+        table.lookup(kiwipete);
+        table.lookup(start);
+        assertEquals(0, table.getHits());
+        assertEquals(3, table.getMisses());
+        assertEquals(Evaluation.pawnStructure(start), table.getScore(0));
+    }
+
+    @Test
+    public void testCachedEvaluationMatches() {
+        PawnHashTable table = new PawnHashTable(64);
+        Position position = Position.fromFen(KIWIPETE);
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            position.makeMove(moves.get(i));
+            assertEquals(Evaluation.evaluate(position), Evaluation.evaluate(position, table));
+            // the second time from the table
+            assertEquals(Evaluation.evaluate(position), Evaluation.evaluate(position, table));
+            position.unmakeMove();
+        }
+        assertTrue(table.getHitRate() >= 0.5);
+    }
+}
@@ -0,0 +1,68 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Leaf counts of the standard perft positions, from the Chess Programming
+ * Wiki "Perft Results" page.
+ */
+public class PerftTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 =
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private static long perft(String fen, int depth) {
+        return Perft.perft(Position.fromFen(fen), depth);
+    }
+
+    @Test
+    public void testStartingPosition() {
+        assertEquals(20, perft(Position.START_FEN, 1));
+        assertEquals(400, perft(Position.START_FEN, 2));
+        assertEquals(8902, perft(Position.START_FEN, 3));
+        assertEquals(197281, perft(Position.START_FEN, 4));
+    }
+
+    @Test
+    public void testKiwipete() {
+        assertEquals(48, perft(KIWIPETE, 1));
+        assertEquals(2039, perft(KIWIPETE, 2));
+        assertEquals(97862, perft(KIWIPETE, 3));
+    }
+
+    @Test
+    public void testEndgame() {
+        assertEquals(2812, perft(POSITION_3, 3));
+        assertEquals(43238, perft(POSITION_3, 4));
+        assertEquals(674624, perft(POSITION_3, 5));
+    }
+
+    @Test
+    public void testPromotionsAndCastling() {
+        assertEquals(6, perft(POSITION_4, 1));
+        assertEquals(264, perft(POSITION_4, 2));
+        assertEquals(9467, perft(POSITION_4, 3));
+        assertEquals(422333, perft(POSITION_4, 4));
+    }
+
+    @Test
+    public void testDivideMatchesPerft() {
+        Position position = Position.fromFen(KIWIPETE);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, Long> counts = Perft.divide(position, 3, pool);
+        assertEquals(48, counts.size());
+        assertTrue(counts.containsKey("e1g1") && counts.containsKey("e1c1"));
+        assertEquals(97862, Perft.parallelPerft(position, 3, pool));
+        pool.shutdown();
+        // the root position is never touched
+        assertEquals(KIWIPETE, position.toFen());
+    }
+}
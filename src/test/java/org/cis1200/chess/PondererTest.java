@@ -0,0 +1,106 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PondererTest {
+    private EngineService service;
+    private Ponderer ponderer;
+
+    @BeforeAll
+    public static void buildAttackTables() {
+        // built the first time they are used, which takes a while; timing
+        // the first search would time that instead
+        MoveGenerator.generateLegal(Position.startPosition(), new MoveList());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        service = new EngineService(
+                new LazySmpSearch(new TranspositionTable(4), 1), Runnable::run
+        );
+        ponderer = new Ponderer(service);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private static SearchLimits moveTime(long millis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(millis);
+        return limits;
+    }
+
+    private SearchResult reply(Position position, SearchLimits limits) throws Exception {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        ponderer.reply(position, limits, null, result::complete);
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testPonderHitAnswersAtOnce() throws Exception {
+        Position position = Position.startPosition();
+        int predicted = position.createMove(
+                Position.parseSquare("e2"), Position.parseSquare("e4"), Position.EMPTY
+        );
+        ponderer.ponder(position, predicted);
+        assertTrue(ponderer.isPondering());
+        Thread.sleep(300);
+
+        position.makeMove(predicted);
+        long start = System.nanoTime();
+        // the budget has already been spent pondering
+        SearchResult result = reply(position, moveTime(200));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(1, ponderer.getHits());
+        assertTrue(millis < 150, "took " + millis + " ms");
+        assertTrue(MoveGenerator.isLegal(position, result.getBestMove()));
+        assertFalse(ponderer.isPondering());
+    }
+
+    @Test
+    public void testPonderMissSearchesRealPosition() throws Exception {
+        Position position = Position.startPosition();
+        ponderer.ponder(position, position.createMove(
+                Position.parseSquare("e2"), Position.parseSquare("e4"), Position.EMPTY
+        ));
+        position.makeMove(position.createMove(
+                Position.parseSquare("d2"), Position.parseSquare("d4"), Position.EMPTY
+        ));
+        SearchResult result = reply(position, moveTime(100));
+        assertEquals(1, ponderer.getMisses());
+        assertTrue(MoveGenerator.isLegal(position, result.getBestMove()));
+    }
+
+    @Test
+    public void testCancelStopsReply() throws Exception {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        EngineTask task = ponderer.reply(
+                Position.startPosition(), new SearchLimits(), null, result::complete
+        );
+        Thread.sleep(50);
+        ponderer.cancel();
+        assertNotNull(task.getResult().get(5, TimeUnit.SECONDS));
+        // a cancelled reply is never handed over
+        assertFalse(result.isDone());
+    }
+
+    @Test
+    public void testPredictReply() {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(4);
+        Position position = Position.startPosition();
+        SearchResult result = new Search(position).search(limits);
+        position.makeMove(result.getBestMove());
+        assertEquals(
+                result.getPv()[1],
+                Ponderer.predictReply(result, position, new TranspositionTable(1))
+        );
+    }
+}
@@ -0,0 +1,150 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionTest {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static int sq(String name) {
+        return Position.parseSquare(name);
+    }
+
+    private static void play(Position position, String from, String to, int promotion) {
+        position.makeMove(position.createMove(sq(from), sq(to), promotion));
+    }
+
+    @Test
+    public void testFenRoundTrip() {
+        assertEquals(Position.START_FEN, Position.startPosition().toFen());
+        assertEquals(KIWIPETE, Position.fromFen(KIWIPETE).toFen());
+    }
+
+    @Test
+    public void testCopyKeepsHistory() {
+        Position position = Position.startPosition();
+        play(position, "e2", "e4", Position.EMPTY);
+        Position copy = position.copy();
+        assertEquals(position.getKey(), copy.getKey());
+        copy.unmakeMove();
+        assertEquals(Position.START_FEN, copy.toFen());
+        // the original is untouched
+        assertEquals(1, position.getUndoDepth());
+    }
+
+    @Test
+    public void testNullMove() {
+        Position position = Position.startPosition();
+        play(position, "e2", "e4", Position.EMPTY);
+        String fen = position.toFen();
+        long key = position.getKey();
+        position.makeNullMove();
+        // white again, and the en passant square is gone
+        assertEquals(Position.WHITE, position.getSideToMove());
+        assertEquals(-1, position.getEnPassantSquare());
+        assertEquals(position.computeKey(), position.getKey());
+        assertNotEquals(key, position.getKey());
+        position.unmakeNullMove();
+        assertEquals(fen, position.toFen());
+        assertEquals(key, position.getKey());
+    }
+
+    @Test
+    public void testStartingPosition() {
+        Position position = Position.startPosition();
+        assertEquals(sq("e1"), position.getKingSquare(Position.WHITE));
+        assertEquals(sq("e8"), position.getKingSquare(Position.BLACK));
+        assertEquals(39, position.getMaterial(Position.WHITE));
+        assertEquals(0xFFFFL, position.getColorOccupancy(Position.WHITE));
+        assertFalse(position.isInCheck(Position.WHITE));
+    }
+
+    @Test
+    public void testMakeUnmakeRestoresPosition() {
+        Position position = Position.fromFen(KIWIPETE);
+
+        play(position, "e1", "g1", Position.EMPTY); // castle
+        play(position, "a6", "e2", Position.EMPTY); // bishop takes bishop
+        play(position, "a2", "a4", Position.EMPTY); // double push
+        play(position, "b4", "a3", Position.EMPTY); // en passant
+        assertEquals(Position.EMPTY, position.getTypeAt(sq("a4")));
+        assertEquals(sq("f1"), Long.numberOfTrailingZeros(
+                position.getPieces(Position.WHITE, Position.ROOK) & ~1L));
+        assertEquals(4, position.getUndoDepth());
+
+        for (int i = 0; i < 4; i++) {
+            position.unmakeMove();
+        }
+        assertEquals(KIWIPETE, position.toFen());
+    }
+
+    @Test
+    public void testPromotionAndCastlingRights() {
+        String fen = "r3k3/1P6/8/8/8/8/8/4K2R w Kq - 3 40";
+        Position position = Position.fromFen(fen);
+
+        play(position, "b7", "a8", Position.KNIGHT);
+        assertEquals(Position.KNIGHT, position.getTypeAt(sq("a8")));
+        assertEquals(Position.WHITE_KINGSIDE, position.getCastlingRights());
+        assertEquals(0, position.getHalfmoveClock());
+
+        position.unmakeMove();
+        assertEquals(fen, position.toFen());
+    }
+
+    @Test
+    public void testZobristKeyTracksMoves() {
+        Position position = Position.fromFen(KIWIPETE);
+        long start = position.getKey();
+        assertEquals(position.computeKey(), start);
+
+        // the same position reached by two move orders has the same key
+        play(position, "e1", "f1", Position.EMPTY);
+        play(position, "e8", "f8", Position.EMPTY);
+        long viaKing = position.getKey();
+        assertEquals(Position.fromFen(position.toFen()).getKey(), viaKing);
+        assertNotEquals(start, viaKing);
+
+        position.unmakeMove();
+        position.unmakeMove();
+        assertEquals(start, position.getKey());
+
+        // a double push nobody can capture en passant leaves no trace in the key
+        Position pushed = Position.startPosition();
+        play(pushed, "e2", "e4", Position.EMPTY);
+        assertEquals(
+                Position.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")
+                        .getKey(),
+                pushed.getKey()
+        );
+    }
+
+    @Test
+    public void testThreefoldRepetition() {
+        Position position = Position.startPosition();
+        for (int i = 0; i < 2; i++) {
+            assertFalse(position.isThreefoldRepetition());
+            play(position, "g1", "f3", Position.EMPTY);
+            play(position, "g8", "f6", Position.EMPTY);
+            play(position, "f3", "g1", Position.EMPTY);
+            play(position, "f6", "g8", Position.EMPTY);
+        }
+        assertEquals(2, position.countRepetitions());
+        assertTrue(position.isThreefoldRepetition());
+
+        // a pawn move cannot be taken back, so nothing before it repeats
+        play(position, "e2", "e4", Position.EMPTY);
+        assertEquals(0, position.countRepetitions());
+    }
+
+    @Test
+    public void testFiftyMoveRule() {
+        Position position = Position.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        assertFalse(position.isFiftyMoveDraw());
+        play(position, "a1", "a2", Position.EMPTY);
+        assertTrue(position.isFiftyMoveDraw());
+    }
+}
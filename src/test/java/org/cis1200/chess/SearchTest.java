@@ -0,0 +1,95 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+
+    private static SearchResult searchDepth(String fen, int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return new Search(Position.fromFen(fen)).search(limits);
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        SearchResult result = searchDepth("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", 4);
+        assertEquals("a1a8", Move.toUci(result.getBestMove()));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testTakesHangingQueen() {
+        SearchResult result = searchDepth("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", 4);
+        assertEquals("d2d5", Move.toUci(result.getBestMove()));
+        assertTrue(result.getScore() > 0);
+    }
+
+    @Test
+    public void testQuiescenceSeesRecapture() {
+        // at depth one only the quiescence search sees cxd5
+        SearchResult result = searchDepth("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", 1);
+        assertNotEquals("d2d5", Move.toUci(result.getBestMove()));
+    }
+
+    @Test
+    public void testPrincipalVariationStartsWithBestMove() {
+        Position position = Position.startPosition();
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(4);
+        SearchResult result = new Search(position).search(limits);
+        assertEquals(4, result.getDepth());
+        assertEquals(4, result.getPv().length);
+        assertEquals(result.getBestMove(), result.getPv()[0]);
+        // the search works on a copy
+        assertEquals(Position.START_FEN, position.toFen());
+    }
+
+    @Test
+    public void testPruningKeepsTactics() {
+        String[] fens = {
+            "6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1", "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1",
+            // a knight fork of king and queen
+            "4k3/2q5/8/3N4/8/8/8/4K3 w - - 0 1"
+        };
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(5);
+        for (String fen : fens) {
+            Search pruned = new Search(Position.fromFen(fen));
+            Search full = new Search(Position.fromFen(fen));
+            full.setOptions(SearchOptions.fullWidth());
+            assertEquals(
+                    full.search(limits).getBestMove(), pruned.search(limits).getBestMove(), fen
+            );
+        }
+    }
+
+    @Test
+    public void testPruningSearchesFewerNodes() {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(5);
+        Search pruned = new Search(Position.startPosition());
+        Search full = new Search(Position.startPosition());
+        full.setOptions(SearchOptions.fullWidth());
+        assertTrue(pruned.search(limits).getNodes() < full.search(limits).getNodes());
+    }
+
+    @Test
+    public void testNodeBudget() {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(5000);
+        SearchResult result = new Search(Position.startPosition()).search(limits);
+        assertNotEquals(Move.NONE, result.getBestMove());
+        // the budget is checked once every 1024 nodes
+        assertTrue(result.getNodes() < 5000 + 1024);
+    }
+
+    @Test
+    public void testNoMoveWhenMated() {
+        SearchResult result = searchDepth("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1", 3);
+        assertEquals(Move.NONE, result.getBestMove());
+        assertEquals(0, result.getScore());
+    }
+}
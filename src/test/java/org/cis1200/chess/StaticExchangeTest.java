@@ -0,0 +1,68 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTest {
+
+    private static int see(String fen, String from, String to) {
+        Position position = Position.fromFen(fen);
+        int move = position.createMove(
+                Position.parseSquare(from), Position.parseSquare(to), Position.QUEEN
+        );
+        return StaticExchange.evaluate(position, move);
+    }
+
+    @Test
+    public void testUndefendedCapture() {
+        assertEquals(100, see("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1", "e4", "d5"));
+    }
+
+    @Test
+    public void testQueenTakesDefendedPawn() {
+        assertEquals(-800, see("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", "d2", "d5"));
+    }
+
+    @Test
+    public void testPawnTakesDefendedKnight() {
+        // the pawn is lost for the knight
+        assertEquals(220, see("4k3/8/2p5/3n4/4P3/8/8/4K3 w - - 0 1", "e4", "d5"));
+    }
+
+    @Test
+    public void testXrayRecapture() {
+        // the rook on d1 backs up the rook on d2 through it
+        assertEquals(500, see("3rk3/8/8/3r4/8/8/3R4/3RK3 w - - 0 1", "d2", "d5"));
+        assertEquals(0, see("3rk3/8/8/3r4/8/8/3R4/4K3 w - - 0 1", "d2", "d5"));
+    }
+
+    @Test
+    public void testQuietMove() {
+        assertEquals(0, see(Position.START_FEN, "e2", "e4"));
+        // the knight steps onto a square the pawn attacks
+        assertEquals(-320, see("4k3/8/8/8/8/4p3/8/K6N w - - 0 1", "h1", "f2"));
+    }
+
+    @Test
+    public void testPromotion() {
+        assertEquals(800, see("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a7", "a8"));
+    }
+
+    @Test
+    public void testReusedBufferGivesSameResults() {
+        Position position = Position.fromFen(
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+        );
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(position, moves);
+        int[] gain = new int[StaticExchange.MAX_CAPTURES];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            assertEquals(
+                    StaticExchange.evaluate(position, move),
+                    StaticExchange.evaluate(position, move, gain), Move.toUci(move)
+            );
+        }
+    }
+}
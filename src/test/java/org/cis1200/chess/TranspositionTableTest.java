@@ -0,0 +1,63 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testSizeIsPowerOfTwo() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(1 << 16, table.getCapacity());
+        table.resize(3);
+        assertEquals(1 << 17, table.getCapacity());
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        Position position = Position.startPosition();
+        int move = position.createMove(
+                Position.parseSquare("e2"), Position.parseSquare("e4"), Position.EMPTY
+        );
+        long key = position.getKey();
+        table.store(key, move, -Search.MATE + 3, 7, TranspositionTable.LOWER);
+
+        long data = table.probe(key);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-Search.MATE + 3, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+        // a key landing on the same slot does not match
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(key ^ (1L << 40)));
+        assertEquals(0.5, table.getHitRate());
+    }
+
+    @Test
+    public void testDeeperEntryIsKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234L;
+        long other = key | (1L << 50);
+        table.store(key, Move.NONE, 10, 8, TranspositionTable.EXACT);
+        table.store(other, Move.NONE, 20, 2, TranspositionTable.EXACT);
+        assertEquals(8, TranspositionTable.depth(table.probe(key)));
+        // entries from an earlier search give way
+        table.newSearch();
+        table.store(other, Move.NONE, 20, 2, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(key));
+    }
+
+    @Test
+    public void testClear() {
+        TranspositionTable table = new TranspositionTable(1);
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(4);
+        new Search(Position.startPosition(), table).search(limits);
+        assertTrue(table.getFillPermille() > 0);
+        assertTrue(table.getHits() > 0);
+        table.clear();
+        assertEquals(0, table.getFillPermille());
+        assertEquals(0, table.getProbes());
+    }
+}
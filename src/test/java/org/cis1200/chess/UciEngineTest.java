@@ -0,0 +1,175 @@
+package org.cis1200.chess;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UciEngineTest {
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private UciEngine uci;
+
+    @BeforeEach
+    public void setUp() {
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream()) {
+            @Override
+            public void println(String line) {
+                lines.add(line);
+            }
+        };
+        uci = new UciEngine(out);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        uci.run(new BufferedReader(new StringReader("quit")));
+    }
+
+    // The first line starting with the prefix, skipping others
+    private String await(String prefix) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            String line = lines.poll(100, TimeUnit.MILLISECONDS);
+            if (line != null && line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        fail("no line starting with " + prefix);
+        return null;
+    }
+
+    @Test
+    public void testHandshake() throws Exception {
+        uci.handle("uci");
+        assertEquals("id name " + UciEngine.NAME, await("id name"));
+        assertTrue(await("option name Hash").contains("type spin"));
+        await("uciok");
+
+        long start = System.nanoTime();
+        uci.handle("isready");
+        assertEquals("readyok", lines.poll());
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 100);
+    }
+
+    @Test
+    public void testPositionWithMoves() {
+        uci.handle("position startpos moves e2e4 e7e5 g1f3");
+        Position expected = Position.fromFen(
+                "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2"
+        );
+        assertEquals(expected.getKey(), uci.getPosition().getKey());
+
+        uci.handle("position fen 8/P7/8/8/8/8/8/k6K w - - 0 1 moves a7a8q");
+        Position promoted = Position.fromFen("Q7/8/8/8/8/8/8/k6K b - - 0 1");
+        assertEquals(promoted.getKey(), uci.getPosition().getKey());
+    }
+
+    @Test
+    public void testGoDepthReportsInfoAndBestMove() throws Exception {
+        uci.handle("position fen 6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        uci.handle("go depth 3");
+        String info = await("info depth 1");
+        assertTrue(info.contains("score mate 1"), info);
+        assertTrue(info.contains(" nps "), info);
+        assertTrue(info.endsWith(" pv a1a8"), info);
+        assertTrue(await("bestmove").startsWith("bestmove a1a8"));
+    }
+
+    @Test
+    public void testPlaysFromBook(@TempDir Path dir) throws Exception {
+        Position start = Position.startPosition();
+        Path file = dir.resolve("book.bin");
+        OpeningBook.write(
+                file, new long[] { OpeningBook.polyglotKey(start) },
+                new int[] { UciEngine.parseMove(start, "c2c4") }, new int[] { 1 }
+        );
+        uci.handle("setoption name BookFile value " + file);
+        assertTrue(await("info string book").contains("1 entries"));
+        uci.handle("position startpos");
+        uci.handle("go depth 30");
+        assertEquals("bestmove c2c4", await("bestmove"));
+
+        // out of the book, the engine searches, deep enough not to lean on how
+        // quickly a search that is over at once sends its move
+        uci.handle("position startpos moves c2c4");
+        uci.handle("go depth 4");
+        await("info depth 4");
+        start.makeMove(UciEngine.parseMove(start, "c2c4"));
+        String reply = await("bestmove").split(" ")[1];
+        assertNotEquals(Move.NONE, UciEngine.parseMove(start, reply), reply);
+    }
+
+    @Test
+    public void testEveryQuickSearchSendsBestMove() throws Exception {
+        uci.handle("position startpos moves c2c4");
+        // a search this short can be over before go has recorded it
+        for (int i = 0; i < 200; i++) {
+            uci.handle("go depth 1");
+            assertTrue(await("bestmove").startsWith("bestmove "), "search " + i);
+        }
+        uci.handle("isready");
+        assertEquals("readyok", await("readyok"));
+        assertTrue(lines.stream().noneMatch(line -> line.startsWith("bestmove")));
+    }
+
+    @Test
+    public void testMoveTimeCapsClockSearch() throws Exception {
+        uci.handle("position startpos");
+        long start = System.nanoTime();
+        uci.handle("go wtime 600000 btime 600000 movestogo 1 movetime 200");
+        await("bestmove");
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 2000);
+    }
+
+    @Test
+    public void testInfiniteWaitsForStop() throws Exception {
+        uci.handle("position startpos");
+        uci.handle("go infinite depth 2");
+        await("info depth 2");
+        // the search is over, but the best move waits for stop
+        assertNull(lines.poll(200, TimeUnit.MILLISECONDS));
+        uci.handle("stop");
+        assertTrue(lines.poll().startsWith("bestmove "));
+    }
+
+    @Test
+    public void testStopEndsClockSearch() throws Exception {
+        uci.handle("position startpos");
+        uci.handle("go wtime 600000 btime 600000 movestogo 1");
+        await("info depth 3");
+        uci.handle("stop");
+        // stop waits for the search, so the move is already out
+        String line;
+        while ((line = lines.poll()) != null && !line.startsWith("bestmove")) {
+            assertTrue(line.startsWith("info"), line);
+        }
+        assertNotNull(line);
+    }
+
+    @Test
+    public void testPonderHit() throws Exception {
+        uci.handle("position startpos moves e2e4");
+        uci.handle("go ponder wtime 1000 btime 1000");
+        await("info depth 2");
+        uci.handle("ponderhit");
+        assertTrue(await("bestmove").matches("bestmove \\w{4}( ponder \\w{4})?"));
+    }
+
+    @Test
+    public void testSetOption() {
+        uci.handle("setoption name Hash value 1");
+        uci.handle("setoption name Threads value 2");
+        assertEquals(2, uci.getEngine().getThreads());
+        uci.handle("setoption name Threads value many");
+        assertTrue(lines.poll().startsWith("info string"));
+    }
+}